@@ -0,0 +1,157 @@
+/*
+
+    CellValueCache parses cell text into typed values (number, date, boolean) and keeps every parsed value,
+    so a cell read again and again by the data-driven keywords is parsed once per sheet.
+    One cache belongs to one immutable sheet (SheetSnapshot or TextFileSheet) and can be shared by several threads.
+    The text of a cell is only read from the sheet when its value is not cached yet.
+
+    Text formats understood :-
+    1) Numbers  -> plain decimal text, e.g. 12, -3.5, 1E3 (surrounding blanks are ignored).
+    2) Dates    -> yyyy-MM-dd, optionally followed by a time (yyyy-MM-dd HH:mm:ss), as written by XlsxWorkbook.
+    3) Booleans -> TRUE / FALSE, Y / N, YES / NO in any case.
+
+ */
+
+
+package datatable;
+
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+final class CellValueCache
+{
+	// The sheet the cell text is read from
+	interface Sheet
+	{
+		String getName();
+
+		String getCellData(int colNum, int rowNum);
+	}
+
+
+	private final Sheet sheet;
+
+	// Parsed values by cell, keyed as (colNum << 32 | rowNum)
+	private final ConcurrentMap<Long, Double> numbers = new ConcurrentHashMap<Long, Double>();
+	private final ConcurrentMap<Long, LocalDate> dates = new ConcurrentHashMap<Long, LocalDate>();
+	private final ConcurrentMap<Long, Boolean> booleans = new ConcurrentHashMap<Long, Boolean>();
+
+
+	CellValueCache(Sheet sheet)
+	{
+		this.sheet = sheet;
+	}
+
+
+	// Throws NumberFormatException if the cell is not a number
+	double getDouble(int colNum, int rowNum)
+	{
+		Long cell = cell(colNum, rowNum);
+		Double value = numbers.get(cell);
+		if (value == null)
+		{
+			value = parseDouble(sheet.getName(), colNum, rowNum, sheet.getCellData(colNum, rowNum));
+			numbers.put(cell, value);
+		}
+		return value;
+	}
+
+
+	// Throws DateTimeParseException if the cell is not a date
+	LocalDate getLocalDate(int colNum, int rowNum)
+	{
+		Long cell = cell(colNum, rowNum);
+		LocalDate value = dates.get(cell);
+		if (value == null)
+		{
+			value = parseLocalDate(sheet.getCellData(colNum, rowNum));
+			dates.put(cell, value);
+		}
+		return value;
+	}
+
+
+	// Throws IllegalArgumentException if the cell is not a boolean
+	boolean getBoolean(int colNum, int rowNum)
+	{
+		Long cell = cell(colNum, rowNum);
+		Boolean value = booleans.get(cell);
+		if (value == null)
+		{
+			value = parseBoolean(sheet.getName(), colNum, rowNum, sheet.getCellData(colNum, rowNum));
+			booleans.put(cell, value);
+		}
+		return value;
+	}
+
+
+	static double parseDouble(String sheetName, int colNum, int rowNum, String text)
+	{
+		try
+		{
+			return Double.parseDouble(text.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new NumberFormatException("Cell (" + colNum + ", " + rowNum + ") of sheet '" + sheetName
+					+ "' is not a number : '" + text + "'");
+		}
+	}
+
+
+	/*
+	 static int toInt(String sheetName, int colNum, int rowNum, double value) method specification :-
+
+	 1)  Returns value as an int, e.g. 12.0 -> 12.
+	 2)  Throws NumberFormatException if value has a fraction or does not fit into an int.
+
+	 */
+
+	static int toInt(String sheetName, int colNum, int rowNum, double value)
+	{
+		if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+		{
+			throw new NumberFormatException("Cell (" + colNum + ", " + rowNum + ") of sheet '" + sheetName
+					+ "' is not an int : " + value);
+		}
+		return (int) value;
+	}
+
+
+	static LocalDate parseLocalDate(String text)
+	{
+		String date = text.trim();
+
+		// Time of day, if any, is dropped
+		if (date.length() > 10 && date.charAt(10) == ' ')
+		{
+			date = date.substring(0, 10);
+		}
+		return LocalDate.parse(date);
+	}
+
+
+	static boolean parseBoolean(String sheetName, int colNum, int rowNum, String text)
+	{
+		String value = text.trim();
+		if (value.equalsIgnoreCase("TRUE") || value.equalsIgnoreCase("Y") || value.equalsIgnoreCase("YES"))
+		{
+			return true;
+		}
+		if (value.equalsIgnoreCase("FALSE") || value.equalsIgnoreCase("N") || value.equalsIgnoreCase("NO"))
+		{
+			return false;
+		}
+		throw new IllegalArgumentException("Cell (" + colNum + ", " + rowNum + ") of sheet '" + sheetName
+				+ "' is not a boolean : '" + text + "'");
+	}
+
+
+	private static Long cell(int colNum, int rowNum)
+	{
+		return ((long) colNum << 32) | rowNum;
+	}
+
+}
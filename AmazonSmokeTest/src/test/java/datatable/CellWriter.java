@@ -0,0 +1,21 @@
+/*
+
+    CellWriter takes over the cell updates of an XlsReader whose writes are forwarded (see XlsReader.forwardWrites)
+    instead of being written into its own xls file : when several processes run test cases against the same workbook,
+    one process alone writes it and the others forward their updates to it.
+
+ */
+
+
+package datatable;
+
+
+import java.io.IOException;
+
+public interface CellWriter
+{
+
+	// Writes text into the cell at colNum, rowNum of the sheet of the workbook at path
+	void writeCell(String path, String sheetName, int colNum, int rowNum, String text) throws IOException;
+
+}
@@ -0,0 +1,205 @@
+/*
+
+    CsvDataSource reads test plans and test data from UTF-8 .csv files (RFC 4180), one sheet per file (see TextFileDataSource).
+    The first record of a file holds the column names.
+
+    1) Fields are separated by commas, records by CRLF or LF; a leading byte order mark is skipped.
+    2) A field in double quotes may contain commas, line breaks and "" for a double quote.
+    3) Empty lines are skipped; missing trailing fields read as "", fields beyond the header are ignored.
+
+ */
+
+
+package datatable;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class CsvDataSource extends TextFileDataSource
+{
+
+	public CsvDataSource(String path)
+	{
+		super(path);
+	}
+
+
+	TextFileSheet parse(String sheetName, ByteBuffer content, long modified, long length)
+	{
+		int limit = content.limit();
+		int pos = 0;
+
+		// Byte order mark
+		if (limit >= 3 && (content.get(0) & 0xFF) == 0xEF && (content.get(1) & 0xFF) == 0xBB && (content.get(2) & 0xFF) == 0xBF)
+		{
+			pos = 3;
+		}
+
+		Cells cells = new Cells();
+		String[] headers = null;
+		int dataRows = 0;
+		int[] header = new int[16];
+
+		while (pos < limit)
+		{
+			byte b = content.get(pos);
+			if (b == '\r' || b == '\n')
+			{
+				// Empty line
+				pos++;
+				continue;
+			}
+
+			int field = 0;
+			boolean endOfRecord = false;
+			while (!endOfRecord)
+			{
+				int start = pos;
+				if (pos < limit && content.get(pos) == '"')
+				{
+					pos++;
+					while (true)
+					{
+						if (pos >= limit)
+						{
+							throw new IllegalArgumentException("Unterminated quoted field in sheet '" + sheetName + "'");
+						}
+						if (content.get(pos) == '"')
+						{
+							if (pos + 1 < limit && content.get(pos + 1) == '"')
+							{
+								pos += 2;
+								continue;
+							}
+							pos++;
+							break;
+						}
+						pos++;
+					}
+				}
+				while (pos < limit && content.get(pos) != ',' && content.get(pos) != '\r' && content.get(pos) != '\n')
+				{
+					pos++;
+				}
+				int end = pos;
+
+				if (headers == null)
+				{
+					if (field * 2 + 1 >= header.length)
+					{
+						header = Arrays.copyOf(header, header.length * 2);
+					}
+					header[field * 2] = start;
+					header[field * 2 + 1] = end;
+				}
+				else if (field < headers.length)
+				{
+					cells.set(dataRows * headers.length + field, start, end);
+				}
+				field++;
+
+				if (pos < limit && content.get(pos) == ',')
+				{
+					pos++;
+				}
+				else
+				{
+					endOfRecord = true;
+					if (pos < limit && content.get(pos) == '\r')
+					{
+						pos++;
+					}
+					if (pos < limit && content.get(pos) == '\n')
+					{
+						pos++;
+					}
+				}
+			}
+
+			if (headers == null)
+			{
+				headers = new String[field];
+				for (int c = 0; c < field; c++)
+				{
+					headers[c] = decode(content, header[c * 2], header[c * 2 + 1]).trim();
+				}
+			}
+			else
+			{
+				dataRows++;
+			}
+		}
+
+		if (headers == null)
+		{
+			headers = new String[0];
+		}
+		cells.ensure(dataRows * headers.length);
+
+		return new TextFileSheet(this, sheetName, content, headers, dataRows, cells.starts, cells.ends, modified, length);
+	}
+
+
+	String decode(ByteBuffer content, int start, int end)
+	{
+		boolean quoted = end - start >= 2 && content.get(start) == '"';
+		if (quoted)
+		{
+			start++;
+			// Up to the closing quote, anything after it is dropped
+			end = lastQuote(content, start, end);
+		}
+
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = content.get(start + i);
+		}
+
+		String text = new String(bytes, StandardCharsets.UTF_8);
+		return quoted ? text.replace("\"\"", "\"") : text;
+	}
+
+
+	private static int lastQuote(ByteBuffer content, int start, int end)
+	{
+		for (int i = end - 1; i >= start; i--)
+		{
+			if (content.get(i) == '"')
+			{
+				return i;
+			}
+		}
+		return end;
+	}
+
+
+	// Growable cell boundaries, -1 where a record has no field
+	private static final class Cells
+	{
+		int[] starts = new int[0];
+		int[] ends = new int[0];
+
+		void set(int cell, int start, int end)
+		{
+			ensure(cell + 1);
+			starts[cell] = start;
+			ends[cell] = end;
+		}
+
+		void ensure(int size)
+		{
+			if (size > starts.length)
+			{
+				int capacity = Math.max(size, starts.length * 2);
+				int from = starts.length;
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				Arrays.fill(starts, from, capacity, -1);
+			}
+		}
+	}
+
+}
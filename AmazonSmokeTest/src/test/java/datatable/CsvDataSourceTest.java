@@ -0,0 +1,138 @@
+package datatable;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CsvDataSourceTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void readsQuotedFieldsLineBreaksAndMissingFields() throws Exception
+	{
+		write("controller.csv", "\uFEFFTCID,Description,Runmode\r\n"
+				+ "AmazonTest,\"Add to cart, then pay\",Y\r\n"
+				+ "\r\n"
+				+ "LoginTest,\"Two\nlines with \"\"quotes\"\"\"\n"
+				+ "LastTest,,N,ignored\n");
+		DataSource controller = open("controller.csv");
+
+		assertEquals(4, controller.getRowCount("controller"));
+		assertEquals("TCID", controller.getCellData("controller", 0, 0));
+		assertEquals("Add to cart, then pay", controller.getCellData("controller", "Description", 1));
+		assertEquals("Two\nlines with \"quotes\"", controller.getCellData("controller", "Description", 2));
+		assertEquals("", controller.getCellData("controller", "Runmode", 2));
+		assertEquals("", controller.getCellData("controller", "Description", 3));
+		assertEquals("N", controller.getCellData("controller", "Runmode", 3));
+	}
+
+
+	@Test
+	public void readsTypedValuesAndRows() throws Exception
+	{
+		write("testData.csv", "Key,Quantity,Price\nfirst,2,9.5\nsecond,10,0.25\n");
+		DataSource testData = open("testData.csv");
+
+		assertEquals(10, testData.getInt("testData", "Quantity", 2));
+		assertEquals(9.5, testData.getDouble("testData", "Price", 1), 0);
+
+		List<String> keys = new ArrayList<String>();
+		try (Rows rows = testData.rows("testData"))
+		{
+			for (Row row : rows)
+			{
+				keys.add(row.getRowNum() + ":" + row.get("Key"));
+			}
+		}
+		assertEquals("[1:first, 2:second]", keys.toString());
+	}
+
+
+	@Test
+	public void listsOnlyTheSheetsOfItsOwnSource() throws Exception
+	{
+		write("controller.csv", "TCID\nAmazonTest\n");
+		write("controller.AmazonTest.csv", "TSID,Keyword\nTS1,openBrowser\n");
+		write("controller.LoginTest.csv", "TSID,Keyword\n");
+		write("testData.csv", "TCID\n");
+		write("testData.LoginData.csv", "User\nadmin\n");
+		write("controller.AmazonTest.jsonl", "{}\n");
+
+		assertArrayEquals(new String[] { "controller", "AmazonTest", "LoginTest" }, open("controller.csv").getSheetNames());
+		assertArrayEquals(new String[] { "testData", "LoginData" }, open("testData.csv").getSheetNames());
+		assertEquals("openBrowser", open("controller.csv").getCellData("AmazonTest", "Keyword", 1));
+		assertEquals("admin", open("testData.csv").getCellData("LoginData", "User", 1));
+	}
+
+
+	@Test
+	public void readsAChangedFileAgain() throws Exception
+	{
+		File file = write("controller.csv", "TCID\nAmazonTest\n");
+		DataSource controller = open("controller.csv");
+		assertEquals("AmazonTest", controller.getCellData("controller", "TCID", 1));
+
+		write("controller.csv", "TCID\nLoginTest\nCheckoutTest\n");
+		file.setLastModified(file.lastModified() + 2000);
+		assertEquals(3, controller.getRowCount("controller"));
+		assertEquals("LoginTest", controller.getCellData("controller", "TCID", 1));
+	}
+
+
+	@Test
+	public void rejectsMissingSheetsAndColumnsAndUnterminatedQuotes() throws Exception
+	{
+		write("controller.csv", "TCID\nAmazonTest\n");
+		write("controller.Broken.csv", "TSID\n\"TS1\n");
+		DataSource controller = open("controller.csv");
+
+		for (String sheetName : new String[] { "Missing", "Broken" })
+		{
+			try
+			{
+				controller.getRowCount(sheetName);
+				fail("Sheet " + sheetName + " was read");
+			}
+			catch (IllegalArgumentException expected)
+			{
+			}
+		}
+		try
+		{
+			controller.getCellData("controller", "Runmode", 1);
+			fail("Column Runmode was read");
+		}
+		catch (IllegalArgumentException expected)
+		{
+		}
+	}
+
+
+	private File write(String fileName, String content) throws Exception
+	{
+		File file = new File(folder.getRoot(), fileName);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+
+	private DataSource open(String fileName)
+	{
+		return DataSources.open(new File(folder.getRoot(), fileName).getPath(), 0);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+
+    DataSource is the common interface of the test plan and test data sources read by the framework.
+    A data source is a set of named sheets; row 0 of every sheet holds the column names, data rows start at row 1.
+
+    Implementations :-
+    1) XlsReader           -> .xls and .xlsx workbooks, one sheet per worksheet.
+    2) CsvDataSource       -> .csv files, one sheet per file.
+    3) JsonLinesDataSource -> .jsonl files (one flat JSON object per line), one sheet per file.
+
+    Use DataSources.open(path, flushThreshold) to pick the implementation by file extension.
+
+ */
+
+
+package datatable;
+
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import jxl.JXLException;
+
+public interface DataSource
+{
+
+	// Path of the file the data source was opened from
+	String getPath();
+
+
+	// Names of every sheet, in order; the first one is the index sheet of a test plan
+	String[] getSheetNames() throws JXLException, IOException;
+
+
+	String getFirstSheetname() throws JXLException, IOException;
+
+
+	// Total no. of rows of the sheet, header row included
+	int getRowCount(String sheetName) throws JXLException, IOException;
+
+
+	String getCellData(String sheetName, int colNum, int rowNum) throws JXLException, IOException;
+
+
+	// Throws IllegalArgumentException if the sheet or the column does not exist
+	String getCellData(String sheetName, String colName, int rowNum) throws JXLException, IOException;
+
+
+	// Typed cell data, see SheetSnapshot and CellValueCache for the values understood.
+	// Throw NumberFormatException, DateTimeParseException or IllegalArgumentException if the cell does not hold such a value.
+	int getInt(String sheetName, String colName, int rowNum) throws JXLException, IOException;
+
+
+	double getDouble(String sheetName, String colName, int rowNum) throws JXLException, IOException;
+
+
+	LocalDate getLocalDate(String sheetName, String colName, int rowNum) throws JXLException, IOException;
+
+
+	boolean getBoolean(String sheetName, String colName, int rowNum) throws JXLException, IOException;
+
+
+	// Data rows (row 1 onwards) of the sheet, in order; close them once done (see Rows)
+	Rows rows(String sheetName) throws JXLException, IOException;
+
+
+	// Writes back pending updates, if the data source supports updates at all
+	void flush() throws JXLException, IOException;
+
+}
@@ -0,0 +1,51 @@
+/*
+
+    DataSources opens the DataSource matching the extension of a file :-
+    1) .xls, .xlsx     -> XlsReader
+    2) .csv            -> CsvDataSource
+    3) .jsonl, .ndjson -> JsonLinesDataSource
+
+ */
+
+
+package datatable;
+
+
+public final class DataSources
+{
+
+	private DataSources()
+	{
+	}
+
+
+	/*
+	 public static DataSource open(String path, int flushThreshold) method specification :-
+
+	 1)  Returns the data source for the file at path, picked by file extension.
+	 2)  flushThreshold -> see XlsReader(String path, int flushThreshold), ignored by read-only data sources.
+	 3)  Throws IllegalArgumentException for an unknown extension.
+
+	 */
+
+	public static DataSource open(String path, int flushThreshold)
+	{
+		String lowerCasePath = path.toLowerCase();
+
+		if (lowerCasePath.endsWith(".xls") || lowerCasePath.endsWith(".xlsx"))
+		{
+			return new XlsReader(path, flushThreshold);
+		}
+		if (lowerCasePath.endsWith(".csv"))
+		{
+			return new CsvDataSource(path);
+		}
+		if (lowerCasePath.endsWith(".jsonl") || lowerCasePath.endsWith(".ndjson"))
+		{
+			return new JsonLinesDataSource(path);
+		}
+
+		throw new IllegalArgumentException("No data source for the file type of " + path);
+	}
+
+}
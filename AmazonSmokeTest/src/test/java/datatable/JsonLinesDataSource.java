@@ -0,0 +1,275 @@
+/*
+
+    JsonLinesDataSource reads test plans and test data from UTF-8 JSON lines files, one sheet per file (see TextFileDataSource).
+    Each line is one flat JSON object and one row, e.g. {"TCID":"AmazonTest","Description":"Add to cart","Runmode":"Y"}
+
+    1) The columns of a sheet are the keys of its objects, in the order they first appear; row 0 reads the column names.
+    2) Strings read unescaped, null reads as "", numbers and true / false read as written.
+    3) Blank lines are skipped; a missing key reads as "". Nested objects and arrays are not supported.
+
+ */
+
+
+package datatable;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class JsonLinesDataSource extends TextFileDataSource
+{
+
+	public JsonLinesDataSource(String path)
+	{
+		super(path);
+	}
+
+
+	TextFileSheet parse(String sheetName, ByteBuffer content, long modified, long length)
+	{
+		int limit = content.limit();
+		int pos = 0;
+
+		// Byte order mark
+		if (limit >= 3 && (content.get(0) & 0xFF) == 0xEF && (content.get(1) & 0xFF) == 0xBB && (content.get(2) & 0xFF) == 0xBF)
+		{
+			pos = 3;
+		}
+
+		Map<String, Integer> columns = new LinkedHashMap<String, Integer>();
+
+		// (row, column, start, end) of every value read
+		int[] values = new int[64];
+		int valueCount = 0;
+		int dataRows = 0;
+		int line = 1;
+
+		while (true)
+		{
+			pos = skipBlank(content, pos, limit);
+			if (pos >= limit)
+			{
+				break;
+			}
+			if (content.get(pos) == '\n')
+			{
+				pos++;
+				line++;
+				continue;
+			}
+
+			pos = expect(content, pos, limit, '{', sheetName, line);
+			pos = skipBlank(content, pos, limit);
+			boolean first = true;
+
+			while (pos >= limit || content.get(pos) != '}')
+			{
+				if (!first)
+				{
+					pos = skipBlank(content, expect(content, pos, limit, ',', sheetName, line), limit);
+				}
+				first = false;
+
+				int keyStart = pos;
+				int keyEnd = skipValue(content, pos, limit, sheetName, line);
+				if (content.get(keyStart) != '"')
+				{
+					throw malformed(sheetName, line, "expected a key");
+				}
+				pos = skipBlank(content, keyEnd, limit);
+				pos = skipBlank(content, expect(content, pos, limit, ':', sheetName, line), limit);
+
+				int valueStart = pos;
+				int valueEnd = skipValue(content, pos, limit, sheetName, line);
+				pos = skipBlank(content, valueEnd, limit);
+
+				String key = decode(content, keyStart, keyEnd);
+				Integer column = columns.get(key);
+				if (column == null)
+				{
+					column = columns.size();
+					columns.put(key, column);
+				}
+
+				if (valueCount + 4 > values.length)
+				{
+					values = Arrays.copyOf(values, values.length * 2);
+				}
+				values[valueCount++] = dataRows;
+				values[valueCount++] = column;
+				values[valueCount++] = valueStart;
+				values[valueCount++] = valueEnd;
+			}
+			pos++;
+			dataRows++;
+
+			pos = skipBlank(content, pos, limit);
+			if (pos < limit && content.get(pos) != '\n')
+			{
+				throw malformed(sheetName, line, "expected the end of the line after the object");
+			}
+		}
+
+		List<String> headers = new ArrayList<String>(columns.keySet());
+		int width = headers.size();
+		int[] starts = new int[dataRows * width];
+		int[] ends = new int[dataRows * width];
+		Arrays.fill(starts, -1);
+		for (int i = 0; i < valueCount; i += 4)
+		{
+			// A repeated key in an object, the last value wins as in most JSON readers
+			int cell = values[i] * width + values[i + 1];
+			starts[cell] = values[i + 2];
+			ends[cell] = values[i + 3];
+		}
+
+		return new TextFileSheet(this, sheetName, content, headers.toArray(new String[width]), dataRows, starts, ends,
+				modified, length);
+	}
+
+
+	String decode(ByteBuffer content, int start, int end)
+	{
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = content.get(start + i);
+		}
+		String raw = new String(bytes, StandardCharsets.UTF_8);
+
+		if (raw.equals("null"))
+		{
+			return "";
+		}
+		if (!raw.startsWith("\""))
+		{
+			return raw;
+		}
+
+		StringBuilder text = new StringBuilder(raw.length());
+		for (int i = 1; i < raw.length() - 1; i++)
+		{
+			char c = raw.charAt(i);
+			if (c != '\\')
+			{
+				text.append(c);
+				continue;
+			}
+
+			c = raw.charAt(++i);
+			switch (c)
+			{
+				case 'b':
+					text.append('\b');
+					break;
+				case 'f':
+					text.append('\f');
+					break;
+				case 'n':
+					text.append('\n');
+					break;
+				case 'r':
+					text.append('\r');
+					break;
+				case 't':
+					text.append('\t');
+					break;
+				case 'u':
+					text.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+					i += 4;
+					break;
+				default:
+					// \" \\ \/
+					text.append(c);
+			}
+		}
+		return text.toString();
+	}
+
+
+	// End of the string, number or literal starting at pos
+	private static int skipValue(ByteBuffer content, int pos, int limit, String sheetName, int line)
+	{
+		if (pos >= limit)
+		{
+			throw malformed(sheetName, line, "unexpected end of file");
+		}
+
+		byte b = content.get(pos);
+		if (b == '"')
+		{
+			pos++;
+			while (pos < limit && content.get(pos) != '"')
+			{
+				if (content.get(pos) == '\n')
+				{
+					break;
+				}
+				pos += content.get(pos) == '\\' ? 2 : 1;
+			}
+			if (pos >= limit || content.get(pos) != '"')
+			{
+				throw malformed(sheetName, line, "unterminated string");
+			}
+			return pos + 1;
+		}
+		if (b == '{' || b == '[')
+		{
+			throw malformed(sheetName, line, "nested objects and arrays are not supported");
+		}
+
+		int start = pos;
+		while (pos < limit)
+		{
+			b = content.get(pos);
+			if (b == ',' || b == '}' || b == ' ' || b == '\t' || b == '\r' || b == '\n')
+			{
+				break;
+			}
+			pos++;
+		}
+		if (pos == start)
+		{
+			throw malformed(sheetName, line, "expected a value");
+		}
+		return pos;
+	}
+
+
+	// Skips spaces, tabs and carriage returns; stops at a line feed
+	private static int skipBlank(ByteBuffer content, int pos, int limit)
+	{
+		while (pos < limit)
+		{
+			byte b = content.get(pos);
+			if (b != ' ' && b != '\t' && b != '\r')
+			{
+				break;
+			}
+			pos++;
+		}
+		return pos;
+	}
+
+
+	private static int expect(ByteBuffer content, int pos, int limit, char expected, String sheetName, int line)
+	{
+		if (pos >= limit || content.get(pos) != expected)
+		{
+			throw malformed(sheetName, line, "expected '" + expected + "'");
+		}
+		return pos + 1;
+	}
+
+
+	private static IllegalArgumentException malformed(String sheetName, int line, String reason)
+	{
+		return new IllegalArgumentException("Malformed JSON in sheet '" + sheetName + "' at line " + line + " : " + reason);
+	}
+
+}
@@ -0,0 +1,107 @@
+package datatable;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JsonLinesDataSourceTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void readsColumnsInOrderOfFirstAppearance() throws Exception
+	{
+		write("controller.jsonl", "{\"TCID\":\"AmazonTest\",\"Runmode\":\"Y\"}\n"
+				+ "\n"
+				+ "  { \"TCID\" : \"LoginTest\" , \"Description\" : \"Log in\" }  \r\n"
+				+ "{\"Runmode\":null,\"TCID\":\"LastTest\"}");
+		DataSource controller = open("controller.jsonl");
+
+		assertEquals(4, controller.getRowCount("controller"));
+		assertEquals("TCID", controller.getCellData("controller", 0, 0));
+		assertEquals("Runmode", controller.getCellData("controller", 1, 0));
+		assertEquals("Description", controller.getCellData("controller", 2, 0));
+
+		assertEquals("Y", controller.getCellData("controller", "Runmode", 1));
+		assertEquals("", controller.getCellData("controller", "Description", 1));
+		assertEquals("Log in", controller.getCellData("controller", "Description", 2));
+		assertEquals("", controller.getCellData("controller", "Runmode", 3));
+		assertEquals("LastTest", controller.getCellData("controller", "TCID", 3));
+	}
+
+
+	@Test
+	public void unescapesStringsAndKeepsLiteralsAsWritten() throws Exception
+	{
+		write("testData.jsonl", "{\"Text\":\"a \\\"quoted\\\" \\\\ \\/ caf\\u00e9\\ttab\\nline\",\"Count\":42,\"Price\":9.5,\"Flag\":true}\n");
+		DataSource testData = open("testData.jsonl");
+
+		assertEquals("a \"quoted\" \\ / café\ttab\nline", testData.getCellData("testData", "Text", 1));
+		assertEquals("42", testData.getCellData("testData", "Count", 1));
+		assertEquals(42, testData.getInt("testData", "Count", 1));
+		assertEquals(9.5, testData.getDouble("testData", "Price", 1), 0);
+		assertEquals("true", testData.getCellData("testData", "Flag", 1));
+	}
+
+
+	@Test
+	public void listsOnlyTheSheetsOfItsOwnSource() throws Exception
+	{
+		write("controller.jsonl", "{\"TCID\":\"AmazonTest\"}\n");
+		write("controller.AmazonTest.jsonl", "{\"TSID\":\"TS1\",\"Keyword\":\"openBrowser\"}\n");
+		write("testData.jsonl", "{\"TCID\":\"AmazonTest\"}\n");
+		write("testData.LoginData.jsonl", "{\"User\":\"admin\"}\n");
+
+		assertArrayEquals(new String[] { "controller", "AmazonTest" }, open("controller.jsonl").getSheetNames());
+		assertArrayEquals(new String[] { "testData", "LoginData" }, open("testData.jsonl").getSheetNames());
+		assertEquals("openBrowser", open("controller.jsonl").getCellData("AmazonTest", "Keyword", 1));
+	}
+
+
+	@Test
+	public void rejectsMalformedLinesWithTheirLineNo() throws Exception
+	{
+		String[] malformed = { "{\"TCID\":\"AmazonTest\"}\n{\"TCID\" \"LoginTest\"}\n", "{\"TCID\":\"AmazonTest\"}\n\n{\"TCID\":{\"nested\":1}}\n",
+				"{\"TCID\":\"AmazonTest\"}\n{\"TCID\":\"unterminated}\n" };
+		String[] lines = { "line 2", "line 3", "line 2" };
+
+		for (int i = 0; i < malformed.length; i++)
+		{
+			write("controller.jsonl", malformed[i]);
+			try
+			{
+				open("controller.jsonl").getRowCount("controller");
+				fail("Malformed sheet was read : " + malformed[i]);
+			}
+			catch (IllegalArgumentException expected)
+			{
+				assertTrue(expected.getMessage(), expected.getMessage().contains(lines[i]));
+			}
+		}
+	}
+
+
+	private void write(String fileName, String content) throws Exception
+	{
+		Files.write(new File(folder.getRoot(), fileName).toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	private DataSource open(String fileName)
+	{
+		return DataSources.open(new File(folder.getRoot(), fileName).getPath(), 0);
+	}
+
+}
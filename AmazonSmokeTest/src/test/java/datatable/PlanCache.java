@@ -0,0 +1,392 @@
+/*
+
+    PlanCache is a compiled, binary copy of a workbook (<xls path>.plan) that XlsReader reads instead of parsing the .xls with jxl.
+    The plan is keyed by a SHA-1 hash of the workbook contents : a plan whose hash does not match the workbook is ignored,
+    and XlsReader then parses the workbook with jxl and writes a fresh plan.
+    A plan is read into a heap buffer in one go, and each sheet is decoded from it only when it is first looked up.
+    The plan file is not held open nor mapped once loaded, so a stale plan can always be replaced (Windows refuses to
+    replace a file that is still mapped).
+
+    Plan file layout (big endian) :-
+    1) int magic, int version, 20 bytes SHA-1 of the workbook.
+    2) int string count, then every distinct cell value as int byte length + UTF-8 bytes.
+    3) int sheet count, then per sheet : int name (string no.), int rows, int cols, rows * cols ints (string no. of each cell, column by column),
+       then per column : byte 0 for a column of text cells only, or byte 1 + rows bytes (native cell types) + rows doubles (native values).
+
+    To precompile plans, e.g. as a CI step before the run :-
+        java datatable.PlanCache src/test/java/config/controller.xls src/test/java/config/testData.xls
+
+ */
+
+
+package datatable;
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jxl.Workbook;
+
+public final class PlanCache
+{
+	private static final int MAGIC = 0x584C5350;
+	private static final int VERSION = 2;
+	private static final int HASH_LENGTH = 20;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final ByteBuffer buffer;
+	private final String[] strings;
+	private final String[] sheetNames;
+
+	// Sheet name -> position of the sheet block within the buffer
+	private final Map<String, Integer> sheetPositions;
+
+
+	private PlanCache(ByteBuffer buffer, String[] strings, String[] sheetNames, Map<String, Integer> sheetPositions)
+	{
+		this.buffer = buffer;
+		this.strings = strings;
+		this.sheetNames = sheetNames;
+		this.sheetPositions = sheetPositions;
+	}
+
+
+	/*
+	 static byte[] hash(byte[] content) method specification :-
+
+	 1)  Returns the SHA-1 hash of the workbook contents, used as the key of its plan.
+
+	 */
+
+	static byte[] hash(byte[] content)
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-1").digest(content);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every JRE is required to provide SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/*
+	 static PlanCache load(File planFile, byte[] hash) method specification :-
+
+	 1)  Reads the plan file into memory and reads its string table and sheet directory.
+	 2)  Returns null if the plan file does not exist, was written by another plan version, belongs to other workbook contents or is truncated.
+
+	 */
+
+	static PlanCache load(File planFile, byte[] hash) throws IOException
+	{
+		ByteBuffer buffer;
+		try
+		{
+			buffer = ByteBuffer.wrap(Files.readAllBytes(planFile.toPath()));
+		}
+		catch (NoSuchFileException noPlan)
+		{
+			return null;
+		}
+
+		try
+		{
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			{
+				return null;
+			}
+
+			byte[] planHash = new byte[HASH_LENGTH];
+			buffer.get(planHash);
+			if (!Arrays.equals(planHash, hash))
+			{
+				return null;
+			}
+
+			String[] strings = new String[buffer.getInt()];
+			for (int i = 0; i < strings.length; i++)
+			{
+				byte[] bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				strings[i] = new String(bytes, UTF_8).intern();
+			}
+
+			String[] sheetNames = new String[buffer.getInt()];
+			Map<String, Integer> sheetPositions = new HashMap<String, Integer>();
+			for (int i = 0; i < sheetNames.length; i++)
+			{
+				int position = buffer.position();
+				sheetNames[i] = strings[buffer.getInt()];
+				int rows = buffer.getInt();
+				int cols = buffer.getInt();
+				sheetPositions.put(sheetNames[i], position);
+
+				// Skip the cells and their native values, they are decoded by readSheet()
+				buffer.position(buffer.position() + rows * cols * 4);
+				for (int c = 0; c < cols; c++)
+				{
+					if (buffer.get() != 0)
+					{
+						buffer.position(buffer.position() + rows * 9);
+					}
+				}
+			}
+
+			return new PlanCache(buffer, strings, sheetNames, sheetPositions);
+		}
+		catch (BufferUnderflowException truncatedPlan)
+		{
+			return null;
+		}
+		catch (IllegalArgumentException truncatedPlan)
+		{
+			return null;
+		}
+		catch (ArrayIndexOutOfBoundsException corruptPlan)
+		{
+			return null;
+		}
+	}
+
+
+	/*
+	 static void write(File planFile, byte[] hash, Workbook workbook) method specification :-
+
+	 1)  Writes the plan of a workbook parsed with jxl.
+	 2)  Sheets are snapshotted one at a time, twice : once to collect the string table, once to write their cells.
+	     Only one sheet is held in memory at a time, whatever the size of the workbook.
+	 3)  The plan is written to a temporary file first and then moved over planFile in one atomic step,
+	     so a reader sees either the old or the new plan, never half of one nor no plan at all.
+	     Each writer has a temporary file of its own, so several processes may compile the same plan at once.
+
+	 */
+
+	static void write(File planFile, byte[] hash, final Workbook workbook) throws IOException
+	{
+		write(planFile, hash, workbook.getSheetNames(), new Sheets()
+		{
+			public SheetSnapshot read(String sheetName)
+			{
+				return SheetSnapshot.fromSheet(workbook.getSheet(sheetName));
+			}
+		});
+	}
+
+
+	// Where write() takes the snapshot of each sheet from
+	interface Sheets
+	{
+		SheetSnapshot read(String sheetName) throws IOException;
+	}
+
+
+	/*
+	 static void write(File planFile, byte[] hash, String[] sheetNames, Sheets sheets) method specification :-
+
+	 1)  Writes the plan of the sheets, e.g. the snapshots XlsReader already decoded from a workbook parsed with jxl.
+	 2)  Each sheet is read twice, once to collect the string table and once to write its cells, and not held on to.
+	 3)  Written the same way as write(File, byte[], Workbook).
+
+	 */
+
+	static void write(File planFile, byte[] hash, String[] sheetNames, Sheets sheets) throws IOException
+	{
+
+		// Distinct strings in order of first appearance
+		Map<String, Integer> stringNos = new HashMap<String, Integer>();
+		List<String> strings = new ArrayList<String>();
+		for (String sheetName : sheetNames)
+		{
+			stringNo(sheetName, stringNos, strings);
+			SheetSnapshot sheet = sheets.read(sheetName);
+			for (int c = 0; c < sheet.getColumnCount(); c++)
+			{
+				for (int r = 0; r < sheet.getRowCount(); r++)
+				{
+					stringNo(sheet.getCellData(c, r), stringNos, strings);
+				}
+			}
+		}
+
+		File tempFile = File.createTempFile(planFile.getName(), ".tmp", planFile.getAbsoluteFile().getParentFile());
+		DataOutputStream out = null;
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(hash);
+
+			out.writeInt(strings.size());
+			for (String value : strings)
+			{
+				byte[] bytes = value.getBytes(UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.writeInt(sheetNames.length);
+			for (String sheetName : sheetNames)
+			{
+				SheetSnapshot sheet = sheets.read(sheetName);
+				out.writeInt(stringNos.get(sheetName));
+				out.writeInt(sheet.getRowCount());
+				out.writeInt(sheet.getColumnCount());
+				for (int c = 0; c < sheet.getColumnCount(); c++)
+				{
+					for (int r = 0; r < sheet.getRowCount(); r++)
+					{
+						out.writeInt(stringNos.get(sheet.getCellData(c, r)));
+					}
+				}
+				for (int c = 0; c < sheet.getColumnCount(); c++)
+				{
+					byte[] types = sheet.getTypes(c);
+					double[] values = sheet.getValues(c);
+					if (types == null)
+					{
+						out.writeByte(0);
+						continue;
+					}
+
+					out.writeByte(1);
+					out.write(types);
+					for (double value : values)
+					{
+						out.writeDouble(value);
+					}
+				}
+			}
+
+			out.close();
+			out = null;
+
+			Files.move(tempFile.toPath(), planFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			if (out != null)
+			{
+				out.close();
+			}
+			tempFile.delete();
+		}
+	}
+
+
+	private static int stringNo(String value, Map<String, Integer> stringNos, List<String> strings)
+	{
+		Integer stringNo = stringNos.get(value);
+		if (stringNo == null)
+		{
+			stringNo = strings.size();
+			stringNos.put(value, stringNo);
+			strings.add(value);
+		}
+		return stringNo;
+	}
+
+
+	String[] getSheetNames()
+	{
+		return sheetNames.clone();
+	}
+
+
+	/*
+	 SheetSnapshot readSheet(String sheetName) method specification :-
+
+	 1)  Decodes one sheet of the plan into a SheetSnapshot.
+	 2)  Returns null if the workbook has no such sheet.
+
+	 */
+
+	SheetSnapshot readSheet(String sheetName)
+	{
+		Integer position = sheetPositions.get(sheetName);
+		if (position == null)
+		{
+			return null;
+		}
+
+		// Absolute reads on a duplicate, the shared buffer position is never moved
+		ByteBuffer sheet = buffer.duplicate();
+		sheet.position(position + 4);
+		int rows = sheet.getInt();
+		int cols = sheet.getInt();
+
+		String[][] columns = new String[cols][rows];
+		for (int c = 0; c < cols; c++)
+		{
+			for (int r = 0; r < rows; r++)
+			{
+				columns[c][r] = strings[sheet.getInt()];
+			}
+		}
+
+		byte[][] types = new byte[cols][];
+		double[][] values = new double[cols][];
+		for (int c = 0; c < cols; c++)
+		{
+			if (sheet.get() != 0)
+			{
+				types[c] = new byte[rows];
+				values[c] = new double[rows];
+				sheet.get(types[c]);
+				for (int r = 0; r < rows; r++)
+				{
+					values[c][r] = sheet.getDouble();
+				}
+			}
+		}
+
+		return new SheetSnapshot(sheetName, columns, types, values, rows);
+	}
+
+
+	/*
+	 public static void main(String[] args) method specification :-
+
+	 1)  Precompiles the plan of every .xls workbook path given as argument.
+	 2)  A plan that is already up to date is left as it is.
+
+	 */
+
+	public static void main(String[] args) throws Exception
+	{
+		for (String path : args)
+		{
+			byte[] content = Files.readAllBytes(new File(path).toPath());
+			byte[] hash = hash(content);
+			File planFile = new File(path + ".plan");
+
+			PlanCache plan = load(planFile, hash);
+			if (plan == null)
+			{
+				XlsReader.writePlan(planFile, hash, content);
+				plan = load(planFile, hash);
+			}
+			System.out.println("Compiled " + planFile.getPath() + " (" + plan.sheetNames.length + " sheets)");
+		}
+	}
+
+}
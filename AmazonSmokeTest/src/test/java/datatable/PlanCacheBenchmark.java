@@ -0,0 +1,133 @@
+/*
+
+    PlanCacheBenchmark measures the start-up cost of reading workbooks from their compiled plan (see PlanCache)
+    against parsing them with jxl, the two ways XlsReader can load a workbook.
+
+    1) The plan of every workbook is compiled first, if it is not up to date.
+    2) Each round reads every sheet of every workbook once with jxl, then once from the plans.
+    3) The first round is reported on its own : it includes class loading, which is most of what a smoke run pays for at start-up.
+       Compiling a plan loads jxl as well, so run the benchmark a second time, with the plans up to date, for a cold first round.
+
+    Usage :-
+        java datatable.PlanCacheBenchmark [rounds, default 20] [workbook paths, default the framework's controller.xls and testData.xls]
+
+ */
+
+
+package datatable;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import jxl.Workbook;
+
+public final class PlanCacheBenchmark
+{
+	private static final String[] DEFAULT_WORKBOOKS = { "src/test/java/config/controller.xls", "src/test/java/config/testData.xls" };
+
+
+	private PlanCacheBenchmark()
+	{
+	}
+
+
+	public static void main(String[] args) throws Exception
+	{
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		String[] paths = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_WORKBOOKS;
+
+		PlanCache.main(paths);
+
+		long[] jxlNanos = new long[rounds];
+		long[] planNanos = new long[rounds];
+		for (int round = 0; round < rounds; round++)
+		{
+			long start = System.nanoTime();
+			int jxlCells = readWithJxl(paths);
+			jxlNanos[round] = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			int planCells = readFromPlans(paths);
+			planNanos[round] = System.nanoTime() - start;
+
+			if (jxlCells != planCells)
+			{
+				throw new IllegalStateException("The plans hold " + planCells + " cells, jxl read " + jxlCells);
+			}
+		}
+
+		System.out.println(paths.length + " workbooks, " + rounds + " rounds");
+		System.out.println("jxl   : first round " + millis(jxlNanos[0]) + ", then " + millis(average(jxlNanos)) + " per round");
+		System.out.println("plans : first round " + millis(planNanos[0]) + ", then " + millis(average(planNanos)) + " per round");
+	}
+
+
+	// Parses each workbook the way XlsReader does without a plan, and snapshots every sheet
+	private static int readWithJxl(String[] paths) throws Exception
+	{
+		int cells = 0;
+		for (String path : paths)
+		{
+			byte[] content = Files.readAllBytes(new File(path).toPath());
+			Workbook workbook = Workbook.getWorkbook(new ByteArrayInputStream(content));
+			try
+			{
+				for (String sheetName : workbook.getSheetNames())
+				{
+					SheetSnapshot sheet = SheetSnapshot.fromSheet(workbook.getSheet(sheetName));
+					cells += sheet.getRowCount() * sheet.getColumnCount();
+				}
+			}
+			finally
+			{
+				workbook.close();
+			}
+		}
+		return cells;
+	}
+
+
+	// Loads each plan the way XlsReader does, hashing the workbook included, and decodes every sheet
+	private static int readFromPlans(String[] paths) throws Exception
+	{
+		int cells = 0;
+		for (String path : paths)
+		{
+			byte[] content = Files.readAllBytes(new File(path).toPath());
+			PlanCache plan = PlanCache.load(new File(path + ".plan"), PlanCache.hash(content));
+			for (String sheetName : plan.getSheetNames())
+			{
+				SheetSnapshot sheet = plan.readSheet(sheetName);
+				cells += sheet.getRowCount() * sheet.getColumnCount();
+			}
+		}
+		return cells;
+	}
+
+
+	// Average of the rounds after the first one
+	private static long average(long[] nanos)
+	{
+		if (nanos.length < 2)
+		{
+			return nanos[0];
+		}
+
+		long sum = 0;
+		for (int i = 1; i < nanos.length; i++)
+		{
+			sum += nanos[i];
+		}
+		return sum / (nanos.length - 1);
+	}
+
+
+	private static String millis(long nanos)
+	{
+		return String.format("%.2f ms", nanos / 1000000.0);
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+
+    Row is a read-only view of one data row of a sheet.
+    It is handed out by XlsReader.rows(sheetName) and gives access to the cells of the row by column name or column no.
+    A Row either looks into a SheetSnapshot, or holds its own cells when the sheet is streamed (.xlsx workbooks).
+
+ */
+
+
+package datatable;
+
+
+import java.util.Map;
+
+public final class Row
+{
+	private final String sheetName;
+	private final int rowNum;
+
+	// Set for a view over a snapshot
+	private final SheetSnapshot sheet;
+
+	// Set for a streamed row : header row of the sheet and cells of this row
+	private final Map<String, Integer> headerIndex;
+	private final String[] cells;
+
+
+	Row(SheetSnapshot sheet, int rowNum)
+	{
+		this.sheetName = sheet.getName();
+		this.rowNum = rowNum;
+		this.sheet = sheet;
+		this.headerIndex = null;
+		this.cells = null;
+	}
+
+
+	// cells must not be modified afterwards
+	Row(String sheetName, Map<String, Integer> headerIndex, String[] cells, int rowNum)
+	{
+		this.sheetName = sheetName;
+		this.rowNum = rowNum;
+		this.sheet = null;
+		this.headerIndex = headerIndex;
+		this.cells = cells;
+	}
+
+
+	// Row no. within the sheet, the header row being row 0
+	public int getRowNum()
+	{
+		return rowNum;
+	}
+
+
+	public String getSheetName()
+	{
+		return sheetName;
+	}
+
+
+	public boolean hasColumn(String colName)
+	{
+		return sheet != null ? sheet.hasColumn(colName) : headerIndex.containsKey(colName);
+	}
+
+
+	// Throws IllegalArgumentException if colName is not a header of the sheet
+	public String get(String colName)
+	{
+		if (sheet != null)
+		{
+			return sheet.getCellData(colName, rowNum);
+		}
+
+		Integer colNum = headerIndex.get(colName);
+		if (colNum == null)
+		{
+			throw new IllegalArgumentException("Column '" + colName + "' not found in sheet '" + sheetName + "'");
+		}
+		return cells[colNum];
+	}
+
+
+	public String get(int colNum)
+	{
+		return sheet != null ? sheet.getCellData(colNum, rowNum) : cells[colNum];
+	}
+
+
+	// No. of columns of the sheet, i.e. valid column nos. for get(int)
+	public int getColumnCount()
+	{
+		return sheet != null ? sheet.getColumnCount() : cells.length;
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+
+    RowIndex is a hash index over one column (the key column) of a SheetSnapshot.
+    It fetches the rows holding a given key in O(1) instead of scanning the sheet, e.g. the test data rows of a TCID.
+    A key may appear on several rows (fan-out), getRows(key) returns all of them in sheet order.
+    Rows whose key cell is empty are not indexed.
+
+    It is handed out by XlsReader.indexBy(sheetName, colName) and, like the snapshot it is built from, never changes afterwards.
+
+ */
+
+
+package datatable;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class RowIndex
+{
+	private final String keyColumn;
+
+	// Key -> rows holding it, in sheet order
+	private final Map<String, List<Row>> rowsByKey;
+
+
+	/*
+	 RowIndex(SheetSnapshot sheet, String keyColumn) method specification :-
+
+	 1)  Walks the data rows of the sheet once and groups them by the content of the key column.
+	 2)  Throws IllegalArgumentException if keyColumn is not a header of the sheet.
+
+	 */
+
+	RowIndex(SheetSnapshot sheet, String keyColumn)
+	{
+		this.keyColumn = keyColumn;
+
+		int colNum = sheet.getColumnIndex(keyColumn);
+		Map<String, List<Row>> index = new HashMap<String, List<Row>>();
+
+		for (Row row : sheet.rows())
+		{
+			String key = row.get(colNum);
+			if (key.length() == 0)
+			{
+				continue;
+			}
+
+			List<Row> rows = index.get(key);
+			if (rows == null)
+			{
+				rows = new ArrayList<Row>(1);
+				index.put(key, rows);
+			}
+			rows.add(row);
+		}
+
+		for (Map.Entry<String, List<Row>> entry : index.entrySet())
+		{
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		this.rowsByKey = index;
+	}
+
+
+	public String getKeyColumn()
+	{
+		return keyColumn;
+	}
+
+
+	public boolean containsKey(String key)
+	{
+		return rowsByKey.containsKey(key);
+	}
+
+
+	// Returns the first row holding the key, or null if no row holds it
+	public Row getRow(String key)
+	{
+		List<Row> rows = rowsByKey.get(key);
+		return rows == null ? null : rows.get(0);
+	}
+
+
+	// Returns every row holding the key in sheet order, or an empty list if no row holds it
+	public List<Row> getRows(String key)
+	{
+		List<Row> rows = rowsByKey.get(key);
+		return rows == null ? Collections.<Row> emptyList() : rows;
+	}
+
+
+	public Set<String> keys()
+	{
+		return Collections.unmodifiableSet(rowsByKey.keySet());
+	}
+
+}
@@ -0,0 +1,29 @@
+/*
+
+    Rows is what DataSource.rows(sheetName) hands out : the data rows of a sheet, walked with a for-each loop,
+    and a resource to close once the loop is done, e.g.
+
+        try (Rows testCases = controller.rows(firstSheetName))
+        {
+            for (Row testCase : testCases) ...
+        }
+
+    Rows read from memory (sheet snapshots, text file sheets) hold nothing and closing them does nothing.
+    Rows streamed from an .xlsx workbook keep the workbook file open while a loop is under way : a loop that runs
+    to the end or fails on a parse error closes it by itself, closing the Rows closes the loops left half-way (break, exception).
+
+ */
+
+
+package datatable;
+
+
+import java.io.Closeable;
+
+public interface Rows extends Iterable<Row>, Closeable
+{
+
+	// Closes every iterator still open, never fails
+	void close();
+
+}
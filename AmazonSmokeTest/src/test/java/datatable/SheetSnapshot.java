@@ -0,0 +1,434 @@
+/*
+
+    SheetSnapshot is an immutable, column-oriented copy of one sheet of a workbook.
+    It is built once from a jxl Sheet and then answers every lookup with plain array access,
+    so no jxl Cell objects are touched on the hot path and the same snapshot can be shared by several threads.
+
+    Useful methods provided by SheetSnapshot :-
+    1) int getRowCount() - Returns total no. of rows present inside the sheet (header row included).
+
+    2) String getCellData(int colNum, int rowNum)
+        -> Returns cell data present at specified row and column of the sheet.
+
+    3) String getCellData(String colName, int rowNum)
+        -> Returns cell data present at specified row and column of the sheet.
+
+    4) Rows rows()
+        -> Walks the data rows of the sheet (row 1 onwards) in order.
+
+    5) RowIndex indexBy(String colName)
+        -> Returns a hash index of the data rows by the content of colName.
+
+    6) int getInt, double getDouble, LocalDate getLocalDate, boolean getBoolean (String colName, int rowNum)
+        -> Return cell data as a typed value. Number, date and boolean cells of an .xls sheet keep their native jxl value,
+           so e.g. a date formatted as 10/18/26 is not parsed back from its text. Other cells are parsed from their text
+           once (see CellValueCache).
+
+ */
+
+
+package datatable;
+
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jxl.BooleanCell;
+import jxl.Cell;
+import jxl.DateCell;
+import jxl.NumberCell;
+import jxl.Sheet;
+
+public final class SheetSnapshot implements CellValueCache.Sheet
+{
+	// Native cell types
+	static final byte TEXT = 0;
+	static final byte NUMBER = 1;
+	static final byte DATE = 2;
+	static final byte BOOLEAN = 3;
+
+	private final String name;
+	private final int rowCount;
+
+	// Cell contents, indexed as columns[colNum][rowNum]. Every value is interned.
+	private final String[][] columns;
+
+	// Native cell types, indexed as types[colNum][rowNum]. null for a column of text cells only.
+	private final byte[][] types;
+
+	// Native values of the typed cells : the number, the date as UTC epoch millis (as jxl reads it) or 1 / 0 for a boolean
+	private final double[][] values;
+
+	// Typed values parsed from cell text so far
+	private final CellValueCache parsed;
+
+	// Column name -> column no., built from row 0 of the sheet
+	private final Map<String, Integer> headerIndex;
+
+	// Row indexes built so far, by key column. Only ever gains immutable indexes.
+	private final ConcurrentMap<String, RowIndex> rowIndexes = new ConcurrentHashMap<String, RowIndex>();
+
+
+	/*
+	 SheetSnapshot(String name, String[][] columns, int rowCount) method specification :-
+
+	 1)  Wraps already extracted column arrays. The arrays must not be modified afterwards.
+	 2)  If a column name appears twice in the header row, the first one wins.
+
+	 */
+
+	SheetSnapshot(String name, String[][] columns, int rowCount)
+	{
+		this(name, columns, new byte[columns.length][], new double[columns.length][], rowCount);
+	}
+
+
+	/*
+	 SheetSnapshot(String name, String[][] columns, byte[][] types, double[][] values, int rowCount) method specification :-
+
+	 1)  Wraps already extracted column arrays along with the native types and values of their cells.
+	 2)  types[colNum] and values[colNum] are null for a column of text cells only. The arrays must not be modified afterwards.
+
+	 */
+
+	SheetSnapshot(String name, String[][] columns, byte[][] types, double[][] values, int rowCount)
+	{
+		this.name = name;
+		this.columns = columns;
+		this.types = types;
+		this.values = values;
+		this.rowCount = rowCount;
+		this.parsed = new CellValueCache(this);
+
+		String[] headers = new String[columns.length];
+		for (int i = 0; i < columns.length; i++)
+		{
+			headers[i] = rowCount > 0 ? columns[i][0] : "";
+		}
+		this.headerIndex = headerIndex(headers);
+	}
+
+
+	/*
+	 static Map<String, Integer> headerIndex(String[] headers) method specification :-
+
+	 1)  Returns an unmodifiable column name -> column no. map of a header row.
+	 2)  If a column name appears twice in the header row, the first one wins.
+
+	 */
+
+	static Map<String, Integer> headerIndex(String[] headers)
+	{
+		Map<String, Integer> index = new HashMap<String, Integer>();
+		for (int i = 0; i < headers.length; i++)
+		{
+			if (!index.containsKey(headers[i]))
+			{
+				index.put(headers[i], i);
+			}
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+
+	/*
+	 static SheetSnapshot fromSheet(Sheet sheet) method specification :-
+
+	 1)  Copies every cell of the jxl sheet into interned String arrays, one array per column.
+	 2)  Empty cells are stored as "".
+	 3)  Number, date and boolean cells keep their native value next to their text.
+
+	 */
+
+	static SheetSnapshot fromSheet(Sheet sheet)
+	{
+		int rows = sheet.getRows();
+		int cols = sheet.getColumns();
+		String[][] columns = new String[cols][rows];
+		byte[][] types = new byte[cols][];
+		double[][] values = new double[cols][];
+
+		for (int c = 0; c < cols; c++)
+		{
+			for (int r = 0; r < rows; r++)
+			{
+				Cell cell = sheet.getCell(c, r);
+				columns[c][r] = cell.getContents().intern();
+
+				byte type = TEXT;
+				double value = 0;
+				if (cell instanceof NumberCell)
+				{
+					type = NUMBER;
+					value = ((NumberCell) cell).getValue();
+				}
+				else if (cell instanceof DateCell)
+				{
+					type = DATE;
+					value = ((DateCell) cell).getDate().getTime();
+				}
+				else if (cell instanceof BooleanCell)
+				{
+					type = BOOLEAN;
+					value = ((BooleanCell) cell).getValue() ? 1 : 0;
+				}
+
+				if (type != TEXT)
+				{
+					// Typed arrays only for the columns that need them
+					if (types[c] == null)
+					{
+						types[c] = new byte[rows];
+						values[c] = new double[rows];
+					}
+					types[c][r] = type;
+					values[c][r] = value;
+				}
+			}
+		}
+
+		return new SheetSnapshot(sheet.getName(), columns, types, values, rows);
+	}
+
+
+	public String getName()
+	{
+		return name;
+	}
+
+
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+
+
+	public int getColumnCount()
+	{
+		return columns.length;
+	}
+
+
+	/*
+	 public int getColumnIndex(String colName) method specification :-
+
+	 1)  Returns the column no. of colName within the sheet.
+	 2)  Throws IllegalArgumentException if colName is not a header of the sheet.
+
+	 */
+
+	public int getColumnIndex(String colName)
+	{
+		Integer colNum = headerIndex.get(colName);
+		if (colNum == null)
+		{
+			throw new IllegalArgumentException("Column '" + colName + "' not found in sheet '" + name + "'");
+		}
+		return colNum;
+	}
+
+
+	public boolean hasColumn(String colName)
+	{
+		return headerIndex.containsKey(colName);
+	}
+
+
+	public String getCellData(int colNum, int rowNum)
+	{
+		return columns[colNum][rowNum];
+	}
+
+
+	public String getCellData(String colName, int rowNum)
+	{
+		return columns[getColumnIndex(colName)][rowNum];
+	}
+
+
+	// Native cell types of a column, null for a column of text cells only. Not to be modified.
+	byte[] getTypes(int colNum)
+	{
+		return types[colNum];
+	}
+
+
+	// Native values of a column, null for a column of text cells only. Not to be modified.
+	double[] getValues(int colNum)
+	{
+		return values[colNum];
+	}
+
+
+	/*
+	 public double getDouble(int colNum, int rowNum) method specification :-
+
+	 1)  Returns the value of a number cell, or else the cell text parsed as a number.
+	 2)  Throws NumberFormatException if the cell is not a number.
+
+	 */
+
+	public double getDouble(int colNum, int rowNum)
+	{
+		if (typeOf(colNum, rowNum) == NUMBER)
+		{
+			return values[colNum][rowNum];
+		}
+		return parsed.getDouble(colNum, rowNum);
+	}
+
+
+	public double getDouble(String colName, int rowNum)
+	{
+		return getDouble(getColumnIndex(colName), rowNum);
+	}
+
+
+	// Throws NumberFormatException if the cell is not a whole number within the int range
+	public int getInt(int colNum, int rowNum)
+	{
+		return CellValueCache.toInt(name, colNum, rowNum, getDouble(colNum, rowNum));
+	}
+
+
+	public int getInt(String colName, int rowNum)
+	{
+		return getInt(getColumnIndex(colName), rowNum);
+	}
+
+
+	/*
+	 public LocalDate getLocalDate(int colNum, int rowNum) method specification :-
+
+	 1)  Returns the date of a date cell, or else the cell text parsed as yyyy-MM-dd (see CellValueCache).
+	 2)  Throws DateTimeParseException if the cell is not a date.
+
+	 */
+
+	public LocalDate getLocalDate(int colNum, int rowNum)
+	{
+		if (typeOf(colNum, rowNum) == DATE)
+		{
+			return LocalDate.ofEpochDay(Math.floorDiv((long) values[colNum][rowNum], 86400000L));
+		}
+		return parsed.getLocalDate(colNum, rowNum);
+	}
+
+
+	public LocalDate getLocalDate(String colName, int rowNum)
+	{
+		return getLocalDate(getColumnIndex(colName), rowNum);
+	}
+
+
+	/*
+	 public boolean getBoolean(int colNum, int rowNum) method specification :-
+
+	 1)  Returns the value of a boolean cell, or else the cell text parsed as TRUE / FALSE, Y / N or YES / NO.
+	 2)  Throws IllegalArgumentException if the cell is not a boolean.
+
+	 */
+
+	public boolean getBoolean(int colNum, int rowNum)
+	{
+		if (typeOf(colNum, rowNum) == BOOLEAN)
+		{
+			return values[colNum][rowNum] != 0;
+		}
+		return parsed.getBoolean(colNum, rowNum);
+	}
+
+
+	public boolean getBoolean(String colName, int rowNum)
+	{
+		return getBoolean(getColumnIndex(colName), rowNum);
+	}
+
+
+	private byte typeOf(int colNum, int rowNum)
+	{
+		byte[] column = types[colNum];
+		return column == null ? TEXT : column[rowNum];
+	}
+
+
+	/*
+	 public Rows rows() method specification :-
+
+	 1)  Returns the data rows of the sheet in order, skipping the header row (row 0).
+	 2)  Every Row is a view over this snapshot, no cell data is copied.
+
+	 */
+
+	public Rows rows()
+	{
+		return new Rows()
+		{
+			public Iterator<Row> iterator()
+			{
+				return new Iterator<Row>()
+				{
+					private int next = 1;
+
+					public boolean hasNext()
+					{
+						return next < rowCount;
+					}
+
+					public Row next()
+					{
+						if (!hasNext())
+						{
+							throw new NoSuchElementException();
+						}
+						return new Row(SheetSnapshot.this, next++);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			// Nothing to close, the rows are read from memory
+			public void close()
+			{
+			}
+		};
+	}
+
+
+	/*
+	 public RowIndex indexBy(String colName) method specification :-
+
+	 1)  Returns a hash index of the data rows by the content of colName (see RowIndex).
+	 2)  The index is built on first use and kept with the snapshot.
+	 3)  Throws IllegalArgumentException if colName is not a header of the sheet.
+
+	 */
+
+	public RowIndex indexBy(String colName)
+	{
+		RowIndex index = rowIndexes.get(colName);
+		if (index == null)
+		{
+			index = new RowIndex(this, colName);
+
+			// Two threads may build the same index at once, both are equal and the first one is kept
+			RowIndex built = rowIndexes.putIfAbsent(colName, index);
+			if (built != null)
+			{
+				index = built;
+			}
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+
+    TextFileDataSource is the base of the text file data sources (CSV, JSON lines).
+    Each sheet is a file of its own : the file the data source was opened from is the first sheet, named after the file,
+    and every other sheet is the file <first sheet name>.<sheet name><extension> in the same directory.
+    e.g. config/controller.csv -> sheets "controller" (config/controller.csv), "AmazonTest" (config/controller.AmazonTest.csv), ...
+    The prefix keeps the sheets of the controller and of the test data apart, though they share the config directory.
+
+    A sheet file is read into memory in one go and scanned once into cell boundaries (see TextFileSheet); a cell is decoded
+    into a String only when it is read. The file is not held open nor mapped afterwards, so editing it while a run
+    is under way neither disturbs the run nor is refused by the OS. It is read again when its modification time or size changes.
+    These data sources are read-only and can be shared between threads.
+
+ */
+
+
+package datatable;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+abstract class TextFileDataSource implements DataSource
+{
+	private final String path;
+	private final File directory;
+	private final String extension;
+	private final String firstSheetName;
+
+	// Reads of a sheet file that keeps changing while it is read, the last content read is used
+	private static final int READ_ATTEMPTS = 3;
+
+	// Sheets read so far, replaced when their file changes
+	private final ConcurrentMap<String, TextFileSheet> sheets = new ConcurrentHashMap<String, TextFileSheet>();
+
+
+	TextFileDataSource(String path)
+	{
+		File file = new File(path).getAbsoluteFile();
+		String fileName = file.getName();
+
+		this.path = path;
+		this.directory = file.getParentFile();
+		this.extension = fileName.substring(fileName.lastIndexOf('.'));
+		this.firstSheetName = fileName.substring(0, fileName.lastIndexOf('.'));
+	}
+
+
+	/*
+	 abstract TextFileSheet parse(String sheetName, ByteBuffer content, long modified, long length) method specification :-
+
+	 1)  Scans the content of a sheet file into a TextFileSheet.
+	 2)  Throws IllegalArgumentException if the content is malformed.
+
+	 */
+
+	abstract TextFileSheet parse(String sheetName, ByteBuffer content, long modified, long length);
+
+
+	/*
+	 abstract String decode(ByteBuffer content, int start, int end) method specification :-
+
+	 1)  Decodes the raw cell found between start (inclusive) and end (exclusive) by parse().
+
+	 */
+
+	abstract String decode(ByteBuffer content, int start, int end);
+
+
+	public String getPath()
+	{
+		return path;
+	}
+
+
+	// The first sheet, then the other sheet files of this data source in name order
+	public String[] getSheetNames()
+	{
+		List<String> names = new ArrayList<String>();
+		names.add(firstSheetName);
+
+		String prefix = firstSheetName + ".";
+		String[] fileNames = directory.list();
+		if (fileNames != null)
+		{
+			Arrays.sort(fileNames);
+			for (String fileName : fileNames)
+			{
+				if (fileName.startsWith(prefix) && fileName.endsWith(extension)
+						&& fileName.length() > prefix.length() + extension.length())
+				{
+					names.add(fileName.substring(prefix.length(), fileName.length() - extension.length()));
+				}
+			}
+		}
+
+		return names.toArray(new String[names.size()]);
+	}
+
+
+	public String getFirstSheetname()
+	{
+		return firstSheetName;
+	}
+
+
+	public int getRowCount(String sheetName) throws IOException
+	{
+		return getSheet(sheetName).getRowCount();
+	}
+
+
+	public String getCellData(String sheetName, int colNum, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getCellData(colNum, rowNum);
+	}
+
+
+	public String getCellData(String sheetName, String colName, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getCellData(colName, rowNum);
+	}
+
+
+	public int getInt(String sheetName, String colName, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getInt(colName, rowNum);
+	}
+
+
+	public double getDouble(String sheetName, String colName, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getDouble(colName, rowNum);
+	}
+
+
+	public LocalDate getLocalDate(String sheetName, String colName, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getLocalDate(colName, rowNum);
+	}
+
+
+	public boolean getBoolean(String sheetName, String colName, int rowNum) throws IOException
+	{
+		return getSheet(sheetName).getBoolean(colName, rowNum);
+	}
+
+
+	public Rows rows(String sheetName) throws IOException
+	{
+		return getSheet(sheetName).rows();
+	}
+
+
+	// Read-only, nothing to write back
+	public void flush()
+	{
+	}
+
+
+	/*
+	 TextFileSheet getSheet(String sheetName) method specification :-
+
+	 1)  Returns the sheet, reading its file on first use or when the file has changed since it was read.
+	 2)  A file that changes while it is being read (an editor saving it) is read again, up to READ_ATTEMPTS times.
+	 3)  Throws IllegalArgumentException if there is no file for the sheet.
+
+	 */
+
+	TextFileSheet getSheet(String sheetName) throws IOException
+	{
+		File file = sheetFile(sheetName);
+		if (!file.isFile())
+		{
+			throw new IllegalArgumentException("Sheet '" + sheetName + "' not found : no file " + file.getPath());
+		}
+
+		long modified = file.lastModified();
+		long length = file.length();
+
+		TextFileSheet sheet = sheets.get(sheetName);
+		if (sheet != null && sheet.modified == modified && sheet.length == length)
+		{
+			return sheet;
+		}
+
+		byte[] content = Files.readAllBytes(file.toPath());
+		for (int attempt = 1; attempt < READ_ATTEMPTS && changed(file, modified, length, content); attempt++)
+		{
+			modified = file.lastModified();
+			length = file.length();
+			content = Files.readAllBytes(file.toPath());
+		}
+
+		// Two threads may read a changed file at once, either copy is fine
+		sheet = parse(sheetName, ByteBuffer.wrap(content), modified, length);
+		sheets.put(sheetName, sheet);
+		return sheet;
+	}
+
+
+	// File of a sheet, the first sheet is the file the data source was opened from
+	private File sheetFile(String sheetName)
+	{
+		if (sheetName.equals(firstSheetName))
+		{
+			return new File(directory, firstSheetName + extension);
+		}
+		return new File(directory, firstSheetName + "." + sheetName + extension);
+	}
+
+
+	// Whether the file changed while content was read from it
+	private static boolean changed(File file, long modified, long length, byte[] content)
+	{
+		return content.length != length || file.lastModified() != modified || file.length() != length;
+	}
+
+}
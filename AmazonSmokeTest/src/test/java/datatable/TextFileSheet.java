@@ -0,0 +1,188 @@
+/*
+
+    TextFileSheet is one sheet of a TextFileDataSource : the file content, read into memory, plus the boundaries of every cell in it.
+    Cells are kept as [start, end) offsets into the content and decoded by the data source only when read,
+    so scanning a sheet copies no cell data. The sheet never changes once built.
+    Typed values are parsed from the cell text once and cached (see CellValueCache).
+
+ */
+
+
+package datatable;
+
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+final class TextFileSheet implements CellValueCache.Sheet
+{
+	private final TextFileDataSource source;
+	private final String name;
+	private final ByteBuffer content;
+	private final String[] headers;
+	private final Map<String, Integer> headerIndex;
+	private final CellValueCache parsed;
+
+	// No. of data rows (header row excluded)
+	private final int dataRows;
+
+	// Cell boundaries of the data rows, indexed as [(rowNum - 1) * headers.length + colNum]; -1 for a missing cell
+	private final int[] starts;
+	private final int[] ends;
+
+	// Modification time and size of the file the sheet was read from
+	final long modified;
+	final long length;
+
+
+	TextFileSheet(TextFileDataSource source, String name, ByteBuffer content, String[] headers, int dataRows, int[] starts,
+			int[] ends, long modified, long length)
+	{
+		this.source = source;
+		this.name = name;
+		this.content = content;
+		this.headers = headers;
+		this.headerIndex = SheetSnapshot.headerIndex(headers);
+		this.parsed = new CellValueCache(this);
+		this.dataRows = dataRows;
+		this.starts = starts;
+		this.ends = ends;
+		this.modified = modified;
+		this.length = length;
+	}
+
+
+	public String getName()
+	{
+		return name;
+	}
+
+
+	// Header row included
+	int getRowCount()
+	{
+		return dataRows + 1;
+	}
+
+
+	int getColumnCount()
+	{
+		return headers.length;
+	}
+
+
+	public String getCellData(int colNum, int rowNum)
+	{
+		if (colNum < 0 || colNum >= headers.length || rowNum < 0 || rowNum > dataRows)
+		{
+			throw new ArrayIndexOutOfBoundsException("Cell (" + colNum + ", " + rowNum + ") is outside of sheet '" + name + "'");
+		}
+
+		if (rowNum == 0)
+		{
+			return headers[colNum];
+		}
+
+		int cell = (rowNum - 1) * headers.length + colNum;
+		if (starts[cell] < 0)
+		{
+			return "";
+		}
+
+		// Absolute reads on a duplicate, the shared buffer position is never moved
+		return source.decode(content.duplicate(), starts[cell], ends[cell]);
+	}
+
+
+	// Throws IllegalArgumentException if colName is not a header of the sheet
+	int getColumnIndex(String colName)
+	{
+		Integer colNum = headerIndex.get(colName);
+		if (colNum == null)
+		{
+			throw new IllegalArgumentException("Column '" + colName + "' not found in sheet '" + name + "'");
+		}
+		return colNum;
+	}
+
+
+	String getCellData(String colName, int rowNum)
+	{
+		return getCellData(getColumnIndex(colName), rowNum);
+	}
+
+
+	double getDouble(String colName, int rowNum)
+	{
+		return parsed.getDouble(getColumnIndex(colName), rowNum);
+	}
+
+
+	int getInt(String colName, int rowNum)
+	{
+		int colNum = getColumnIndex(colName);
+		return CellValueCache.toInt(name, colNum, rowNum, parsed.getDouble(colNum, rowNum));
+	}
+
+
+	LocalDate getLocalDate(String colName, int rowNum)
+	{
+		return parsed.getLocalDate(getColumnIndex(colName), rowNum);
+	}
+
+
+	boolean getBoolean(String colName, int rowNum)
+	{
+		return parsed.getBoolean(getColumnIndex(colName), rowNum);
+	}
+
+
+	// Data rows in order, each row's cells are decoded when the row is reached
+	Rows rows()
+	{
+		return new Rows()
+		{
+			public Iterator<Row> iterator()
+			{
+				return new Iterator<Row>()
+				{
+					private int next = 1;
+
+					public boolean hasNext()
+					{
+						return next <= dataRows;
+					}
+
+					public Row next()
+					{
+						if (!hasNext())
+						{
+							throw new NoSuchElementException();
+						}
+
+						String[] cells = new String[headers.length];
+						for (int c = 0; c < cells.length; c++)
+						{
+							cells[c] = getCellData(c, next);
+						}
+						return new Row(name, headerIndex, cells, next++);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			// Nothing to close, the sheet file was read when the sheet was opened
+			public void close()
+			{
+			}
+		};
+	}
+
+}
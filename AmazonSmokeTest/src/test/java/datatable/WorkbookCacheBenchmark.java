@@ -0,0 +1,146 @@
+/*
+
+    WorkbookCacheBenchmark measures what caching the parsed workbook in XlsReader saves over re-parsing the xls file
+    on every cell lookup, the way XlsReader read cells before the workbook was cached.
+
+    1) A controller-like workbook of <rows> test cases (TCID, Description, Runmode) is written into a temporary folder.
+    2) The same <lookups> cell lookups are timed once with a fresh jxl parse per lookup, once through a single XlsReader.
+    3) Both runs must read the same cells, the benchmark fails otherwise.
+
+    Usage :-
+        java datatable.WorkbookCacheBenchmark [rows, default 200] [lookups, default 500]
+
+ */
+
+
+package datatable;
+
+
+import java.io.File;
+import java.nio.file.Files;
+
+import jxl.Sheet;
+import jxl.Workbook;
+import jxl.write.Label;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+
+public final class WorkbookCacheBenchmark
+{
+	private static final String SHEET = "Test Cases";
+	private static final String[] COLUMNS = { "TCID", "Description", "Runmode" };
+
+
+	private WorkbookCacheBenchmark()
+	{
+	}
+
+
+	public static void main(String[] args) throws Exception
+	{
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+		File folder = Files.createTempDirectory("workbook-cache-benchmark").toFile();
+		File file = new File(folder, "controller.xls");
+		try
+		{
+			writeWorkbook(file, rows);
+
+			// Warm up class loading and the JIT on both paths before timing them
+			reparsed(file, rows, Math.min(lookups, 100));
+			cached(file, rows, Math.min(lookups, 100));
+
+			long start = System.nanoTime();
+			long reparsedSum = reparsed(file, rows, lookups);
+			long reparsedNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			long cachedSum = cached(file, rows, lookups);
+			long cachedNanos = System.nanoTime() - start;
+
+			if (reparsedSum != cachedSum)
+			{
+				throw new IllegalStateException("The cached workbook read different cells than the re-parsed one");
+			}
+
+			System.out.println(lookups + " lookups over " + rows + " rows");
+			System.out.println("jxl parse per lookup : " + report(reparsedNanos, lookups));
+			System.out.println("cached XlsReader     : " + report(cachedNanos, lookups));
+			System.out.println("speed-up             : " + (reparsedNanos / Math.max(cachedNanos, 1)) + "x");
+		}
+		finally
+		{
+			for (File written : folder.listFiles())
+			{
+				written.delete();
+			}
+			folder.delete();
+		}
+	}
+
+
+	private static void writeWorkbook(File file, int rows) throws Exception
+	{
+		WritableWorkbook workbook = Workbook.createWorkbook(file);
+		try
+		{
+			WritableSheet sheet = workbook.createSheet(SHEET, 0);
+			for (int c = 0; c < COLUMNS.length; c++)
+			{
+				sheet.addCell(new Label(c, 0, COLUMNS[c]));
+			}
+			for (int r = 1; r <= rows; r++)
+			{
+				sheet.addCell(new Label(0, r, "TC" + r));
+				sheet.addCell(new Label(1, r, "Test case no. " + r));
+				sheet.addCell(new Label(2, r, r % 2 == 0 ? "Y" : "N"));
+			}
+			workbook.write();
+		}
+		finally
+		{
+			workbook.close();
+		}
+	}
+
+
+	// Reads every looked up cell the uncached way : open, parse and close the workbook each time
+	private static long reparsed(File file, int rows, int lookups) throws Exception
+	{
+		long sum = 0;
+		for (int i = 0; i < lookups; i++)
+		{
+			Workbook workbook = Workbook.getWorkbook(file);
+			try
+			{
+				Sheet sheet = workbook.getSheet(SHEET);
+				sum += sheet.getCell(i % COLUMNS.length, 1 + i % rows).getContents().length();
+			}
+			finally
+			{
+				workbook.close();
+			}
+		}
+		return sum;
+	}
+
+
+	private static long cached(File file, int rows, int lookups) throws Exception
+	{
+		XlsReader reader = new XlsReader(file.getPath());
+		long sum = 0;
+		for (int i = 0; i < lookups; i++)
+		{
+			sum += reader.getCellData(SHEET, i % COLUMNS.length, 1 + i % rows).length();
+		}
+		return sum;
+	}
+
+
+	private static String report(long nanos, int lookups)
+	{
+		return (nanos / 1000000) + " ms, " + (nanos / lookups / 1000) + " us per lookup";
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+
+    WriteJournal collects the cell updates made through XlsReader.writeIntoExcel until they are flushed into the workbook.
+    Every update is also appended to a sidecar log file (<xls path>.journal) as soon as it is made,
+    so that updates which were not flushed yet survive a crash and are picked up again by the next XlsReader on the same file.
+    A journal of forwarded updates (see XlsReader.forwardWrites) is kept in memory only.
+
+    Appending, flushing (see XlsReader.flush) and clearing are serialized on the journal itself, while
+    looking up a pending update takes no lock.
+
+    Sidecar log format :- one update per line, "sheetName <TAB> colNum <TAB> rowNum <TAB> text",
+    with backslash, tab, carriage return and line feed escaped inside sheetName and text.
+
+ */
+
+
+package datatable;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class WriteJournal
+{
+	// Sidecar log, null for a journal kept in memory only
+	private final File file;
+
+	// Pending updates by cell, a later update of the same cell replaces the earlier one
+	private final Map<String, Entry> pending = new ConcurrentHashMap<String, Entry>();
+
+	private Writer out = null;
+
+
+	static final class Entry
+	{
+		final String sheetName;
+		final int colNum;
+		final int rowNum;
+		final String text;
+
+		Entry(String sheetName, int colNum, int rowNum, String text)
+		{
+			this.sheetName = sheetName;
+			this.colNum = colNum;
+			this.rowNum = rowNum;
+			this.text = text;
+		}
+	}
+
+
+	/*
+	 WriteJournal(File file) method specification :-
+
+	 1)  file -> sidecar log file of the workbook, null to keep the updates in memory only.
+	 2)  If the sidecar log already exists, the updates recorded in it become pending again.
+	 3)  A last line without its line feed (crash in the middle of an append) or a malformed line is ignored.
+
+	 */
+
+	WriteJournal(File file) throws IOException
+	{
+		this.file = file;
+
+		if (file != null && file.exists())
+		{
+			boolean torn = endsWithTornLine(file);
+			BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+			try
+			{
+				String line = in.readLine();
+				while (line != null)
+				{
+					String next = in.readLine();
+
+					// A torn last line may have been cut inside its text, which still gives four fields
+					if (next != null || !torn)
+					{
+						replay(line);
+					}
+					line = next;
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+	}
+
+
+	/*
+	 synchronized void append(String sheetName, int colNum, int rowNum, String text) method specification :-
+
+	 1)  Records the update in memory and appends it to the sidecar log.
+	 2)  The sidecar log is flushed after every update so that it is on disk before the call returns.
+ 3)  A torn last line is cut off the sidecar log first : it was never replayed, and once followed by
+     a line feed it would be replayed as a complete, truncated update.
+
+	 */
+
+	synchronized void append(String sheetName, int colNum, int rowNum, String text) throws IOException
+	{
+		if (file != null)
+		{
+			if (out == null)
+			{
+				if (file.exists() && endsWithTornLine(file))
+				{
+					cutTornLine(file);
+				}
+				out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+			}
+
+			out.write(escape(sheetName) + "\t" + colNum + "\t" + rowNum + "\t" + escape(text) + "\n");
+			out.flush();
+		}
+
+		put(new Entry(sheetName, colNum, rowNum, text));
+	}
+
+
+	// Returns the pending text of a cell, or null if the cell has no pending update
+	String get(String sheetName, int colNum, int rowNum)
+	{
+		Entry entry = pending.get(key(sheetName, colNum, rowNum));
+		return entry == null ? null : entry.text;
+	}
+
+
+	int size()
+	{
+		return pending.size();
+	}
+
+
+	synchronized List<Entry> entries()
+	{
+		return new ArrayList<Entry>(pending.values());
+	}
+
+
+	/*
+	 synchronized void clear() method specification :-
+
+	 1)  Forgets every pending update and deletes the sidecar log.
+	 2)  To be called once the pending updates have been written into the workbook.
+
+	 */
+
+	synchronized void clear() throws IOException
+	{
+		if (out != null)
+		{
+			out.close();
+			out = null;
+		}
+
+		pending.clear();
+
+		if (file != null && file.exists() && !file.delete())
+		{
+			throw new IOException("Unable to delete write journal " + file.getPath());
+		}
+	}
+
+
+	// Makes the update recorded in a sidecar log line pending, a malformed line is skipped
+	private void replay(String line)
+	{
+		String[] fields = line.split("\t", -1);
+		if (fields.length != 4)
+		{
+			return;
+		}
+
+		try
+		{
+			put(new Entry(unescape(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), unescape(fields[3])));
+		}
+		catch (NumberFormatException malformedLine)
+		{
+			return;
+		}
+	}
+
+
+	// true if the file does not end with a line feed, i.e. an append was cut short
+	private static boolean endsWithTornLine(File file) throws IOException
+	{
+		RandomAccessFile journalFile = new RandomAccessFile(file, "r");
+		try
+		{
+			long length = journalFile.length();
+			if (length == 0)
+			{
+				return false;
+			}
+			journalFile.seek(length - 1);
+			return journalFile.read() != '\n';
+		}
+		finally
+		{
+			journalFile.close();
+		}
+	}
+
+
+	// Cuts the file after its last line feed
+	private static void cutTornLine(File file) throws IOException
+	{
+		RandomAccessFile journalFile = new RandomAccessFile(file, "rw");
+		try
+		{
+			long length = journalFile.length();
+			while (length > 0)
+			{
+				journalFile.seek(length - 1);
+				if (journalFile.read() == '\n')
+				{
+					break;
+				}
+				length--;
+			}
+			journalFile.setLength(length);
+		}
+		finally
+		{
+			journalFile.close();
+		}
+	}
+
+
+	private void put(Entry entry)
+	{
+		pending.put(key(entry.sheetName, entry.colNum, entry.rowNum), entry);
+	}
+
+
+	private static String key(String sheetName, int colNum, int rowNum)
+	{
+		return sheetName + "\u0000" + colNum + ":" + rowNum;
+	}
+
+
+	private static String escape(String value)
+	{
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			switch (c)
+			{
+			case '\\':
+				escaped.append("\\\\");
+				break;
+			case '\t':
+				escaped.append("\\t");
+				break;
+			case '\r':
+				escaped.append("\\r");
+				break;
+			case '\n':
+				escaped.append("\\n");
+				break;
+			default:
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+
+	private static String unescape(String value)
+	{
+		StringBuilder unescaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length())
+			{
+				char next = value.charAt(++i);
+				switch (next)
+				{
+				case 't':
+					unescaped.append('\t');
+					break;
+				case 'r':
+					unescaped.append('\r');
+					break;
+				case 'n':
+					unescaped.append('\n');
+					break;
+				default:
+					unescaped.append(next);
+				}
+			}
+			else
+			{
+				unescaped.append(c);
+			}
+		}
+		return unescaped.toString();
+	}
+
+}
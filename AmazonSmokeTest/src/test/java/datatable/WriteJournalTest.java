@@ -0,0 +1,110 @@
+package datatable;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WriteJournalTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+
+	@Before
+	public void journalFile()
+	{
+		file = new File(folder.getRoot(), "testData.xls.journal");
+	}
+
+
+	@Test
+	public void replaysTheUpdatesLeftByAnEarlierRun() throws Exception
+	{
+		WriteJournal journal = new WriteJournal(file);
+		journal.append("Data", 1, 3, "first");
+		journal.append("Data", 1, 3, "second");
+		journal.append("Sheet\twith tab", 0, 7, "back\\slash\ttab\r\nlines");
+
+		// No flush nor clear : the run ends as if it crashed
+		WriteJournal replayed = new WriteJournal(file);
+
+		assertEquals(2, replayed.size());
+		assertEquals("second", replayed.get("Data", 1, 3));
+		assertEquals("back\\slash\ttab\r\nlines", replayed.get("Sheet\twith tab", 0, 7));
+		assertNull(replayed.get("Data", 1, 4));
+	}
+
+
+	@Test
+	public void ignoresATornOrMalformedLine() throws Exception
+	{
+		Files.write(file.toPath(), ("Data\t1\t3\tkept\n" + "Data\tx\t4\tnot a column\n" + "Data\t1").getBytes(StandardCharsets.UTF_8));
+		WriteJournal torn = new WriteJournal(file);
+
+		assertEquals(1, torn.size());
+		assertEquals("kept", torn.get("Data", 1, 3));
+	}
+
+
+	@Test
+	public void aLineCutInsideItsTextIsIgnoredAndNotAppendedTo() throws Exception
+	{
+		Files.write(file.toPath(), ("Data\t1\t3\tkept\n" + "Data\t1\t4\tPass : full resu").getBytes(StandardCharsets.UTF_8));
+		WriteJournal torn = new WriteJournal(file);
+
+		assertEquals(1, torn.size());
+		assertNull(torn.get("Data", 1, 4));
+
+		// The next update starts a line of its own and survives the next replay
+		torn.append("Data", 1, 5, "Fail");
+		WriteJournal replayed = new WriteJournal(file);
+
+		assertEquals(2, replayed.size());
+		assertEquals("kept", replayed.get("Data", 1, 3));
+		assertEquals("Fail", replayed.get("Data", 1, 5));
+		assertNull(replayed.get("Data", 1, 4));
+	}
+
+
+	@Test
+	public void clearForgetsTheUpdatesAndDeletesTheLog() throws Exception
+	{
+		WriteJournal journal = new WriteJournal(file);
+		journal.append("Data", 1, 3, "pending");
+		assertTrue(file.exists());
+
+		journal.clear();
+
+		assertEquals(0, journal.size());
+		assertFalse(file.exists());
+		assertEquals(0, new WriteJournal(file).size());
+	}
+
+
+	@Test
+	public void aJournalWithoutFileKeepsTheUpdatesInMemory() throws Exception
+	{
+		WriteJournal journal = new WriteJournal(null);
+		journal.append("Data", 1, 3, "forwarded");
+
+		assertEquals("forwarded", journal.get("Data", 1, 3));
+		assertEquals(0, folder.getRoot().list().length);
+
+		journal.clear();
+		assertEquals(0, journal.size());
+	}
+
+}
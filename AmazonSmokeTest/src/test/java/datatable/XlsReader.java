@@ -3,6 +3,16 @@
 
     XlsReader is a java class which is responsible for all the communication with the .xls file. 
     It provides many useful methods for reading data from the spreadsheet.
+    Workbooks are read from their compiled plan (<xls path>.plan, see PlanCache) whenever the plan matches the
+    workbook contents, so jxl is not involved at all. Otherwise the workbook is parsed with jxl once and a fresh plan is written.
+    Sheets are loaded lazily : opening the workbook only reads its sheet list, and the cells of a sheet are decoded
+    from the plan, or from the parsed jxl workbook when there is no plan yet, the first time that sheet is looked up.
+    Sheets that are never touched (e.g. test cases whose Runmode is not 'Y') are never materialized.
+    .xlsx workbooks are supported as well (see XlsxWorkbook) : rows(sheetName) streams their rows with bounded memory
+    whatever the size of the sheet, while the other read methods load the whole sheet. They are read-only.
+    An XlsReader can be shared by several threads : reads go lock-free over immutable sheet snapshots,
+    while loading the workbook and writing back into it are each serialized.
+    XlsReader is the spreadsheet DataSource; test plans can be kept in .csv or .jsonl files as well (see DataSources).
 
     Useful methods provided by Xls_Reader :-
     1) int getRowCount(String sheetName) - Returns total no. of rows present inside the sheetName.
@@ -13,39 +23,106 @@
     3) String getCellData(String sheetName, String colName,int rowNum)
         -> Returns cell data present at specified row and column of the sheetName.   
 
+    4) SheetSnapshot getSheetSnapshot(String sheetName)
+        -> Returns an immutable, column-oriented copy of the sheetName for plain array lookups.
+
+    5) Rows rows(String sheetName)
+        -> Walks the data rows of the sheetName once, with access to cells by column name. Close the Rows once done.
+
+    6) RowIndex indexBy(String sheetName, String colName)
+        -> Returns a hash index of the rows of the sheetName by a key column, to fetch rows by key in O(1).
+
+    7) void writeIntoExcel(String sheetName, String colName, int rowNum, String text) and void flush()
+        -> Cell updates are journaled and written into the xls file in one go by flush().
+           forwardWrites(CellWriter) hands them to another writer instead, e.g. the coordinator of sharded workers.
+
+    8) int getInt, double getDouble, LocalDate getLocalDate, boolean getBoolean (String sheetName, String colName, int rowNum)
+        -> Return cell data as a typed value, read from the native jxl number / date / boolean cell where there is one.
+
  */
 
 
 package datatable;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import javax.swing.text.DefaultEditorKit.InsertContentAction;
-
-import jxl.Cell;
 import jxl.JXLException;
 import jxl.Sheet;
 import jxl.Workbook;
+import jxl.WorkbookSettings;
 import jxl.read.biff.BiffException;
-import jxl.write.Boolean;
-import jxl.write.DateTime;
 import jxl.write.Label;
-import jxl.write.Number;
 import jxl.write.WritableSheet;
 import jxl.write.WritableWorkbook;
 import jxl.write.WriteException;
 import jxl.write.biff.RowsExceededException;
 
-public class XlsReader 
+import org.apache.log4j.Logger;
+
+public class XlsReader implements DataSource
 {
-	public  String path;
-	public  FileInputStream fis = null;
-	public  FileOutputStream fileOut =null;
+	private static final Logger APPLICATION_LOGS = Logger.getLogger("devpinoyLogger");
+
+	private final String path;
+
+	// Currently loaded workbook, replaced as a whole whenever the xls file changes
+	private volatile LoadedWorkbook loaded = null;
+
+	// Serializes loading of the workbook, readers of an already loaded workbook never take it
+	private final Object loadLock = new Object();
+
+	// Cell updates not yet written into the xls file, see WriteJournal. Its lock keeps updates out of a write-back.
+	private volatile WriteJournal journal;
+
+	// Serializes write-back and the switch to forwarded writes; never reassigned, unlike journal
+	private final Object writeLock = new Object();
+
+	// Writer the cell updates are forwarded to instead of the xls file, null if they are written here
+	private volatile CellWriter forwardTo = null;
+
+	// No. of pending cell updates after which writeIntoExcel flushes the journal by itself
+	private final int flushThreshold;
+
+	public static final int DEFAULT_FLUSH_THRESHOLD = 200;
+
+
+	/*
+	 Loaded state of the workbook : its sheet names and where its sheets are decoded from (compiled plan, .xlsx workbook
+	 or jxl workbook parsed in memory), along with the modification time and size of the file they were read from,
+	 and the snapshot of every sheet looked up so far.
+	 Everything but the snapshot map is final, and the map only ever gains immutable snapshots.
+	 jxl is not thread-safe : sheets are read from the jxl workbook while holding its lock.
+	 */
 
+	private static final class LoadedWorkbook
+	{
+		final String[] sheetNames;
+		final PlanCache plan;
+		final XlsxWorkbook xlsx;
+		final Workbook workbook;
+		final long modified;
+		final long length;
+		final ConcurrentMap<String, SheetSnapshot> snapshots = new ConcurrentHashMap<String, SheetSnapshot>();
+
+		LoadedWorkbook(String[] sheetNames, PlanCache plan, XlsxWorkbook xlsx, Workbook workbook, long modified, long length)
+		{
+			this.sheetNames = sheetNames;
+			this.plan = plan;
+			this.xlsx = xlsx;
+			this.workbook = workbook;
+			this.modified = modified;
+			this.length = length;
+		}
+	}
 
 
 	/*   
@@ -54,24 +131,55 @@ public class XlsReader
 	 1)  Specify the path of the xls file and set a file input stream with the file.
 	 2)  path -> Path of the xls file 
 	 3)  FileInputStream -> To take input from specified xls file.
+	 4)  Cell updates left in the write journal of the xls file by an earlier run become pending again.
 
 	 */
 
 	public XlsReader(String path) 
+	{
+		this(path, DEFAULT_FLUSH_THRESHOLD);
+	}	
+
+
+	/*   
+	 public XlsReader(String path, int flushThreshold) method specification :-
+
+	 1)  Same as XlsReader(String path).
+	 2)  flushThreshold -> No. of pending cell updates after which writeIntoExcel writes them into the xls file by itself.
+
+	 */
+
+	public XlsReader(String path, int flushThreshold) 
 	{
 		this.path=path;
+		this.flushThreshold = flushThreshold;
 		try 
 		{
-			fis = new FileInputStream(path);
+			FileInputStream fis = new FileInputStream(path);
 			fis.close();
 		} 
 		catch (Exception e) 
 		{
 			e.printStackTrace();
 		} 	
+
+		try 
+		{
+			journal = new WriteJournal(new File(path + ".journal"));
+		} 
+		catch (IOException e) 
+		{
+			e.printStackTrace();
+		} 	
 	}	
 
 
+	public String getPath()
+	{
+		return path;
+	}
+
+
 	/*   
 	 public int getRowCount(String sheetName) method specification :-
 
@@ -85,16 +193,7 @@ public class XlsReader
 
 	public int getRowCount(String sheetName) throws JXLException, IOException // it will count the number of rows in the gmail sheet
 	{
-		File inputWorkbook = new File(path);
-		Workbook w;
-		w = Workbook.getWorkbook(inputWorkbook);
-		Sheet sheet = w.getSheet(sheetName); 
-		int row_count=0;
-		for (int i = 0; i < sheet.getRows(); i++) 
-		{
-			row_count++;
-		} 
-		return row_count;
+		return getSheetSnapshot(sheetName).getRowCount();
 	}
 
 
@@ -113,13 +212,16 @@ public class XlsReader
 
 	public String getCellData(String sheetName, int colNum,int rowNum) throws BiffException, IOException
 	{
-		File inputWorkbook = new File(path);
-		Workbook w;
-		w = Workbook.getWorkbook(inputWorkbook);
-		Sheet sheet = w.getSheet(sheetName); 
-		Cell cell = sheet.getCell(colNum, rowNum);
-		
-		return cell.getContents();
+		SheetSnapshot snapshot = getSheetSnapshot(sheetName);
+
+		// Updates not flushed yet win over the xls file contents
+		String pendingText = pendingText(sheetName, colNum, rowNum);
+		if (pendingText != null)
+		{
+			return pendingText;
+		}
+
+		return snapshot.getCellData(colNum, rowNum);
 	}
 
 
@@ -133,30 +235,88 @@ public class XlsReader
 	 5)  Sheet -> Refer to an individual sheet within that workbook.
 	 6)  sheet.getCell() -> Used to hold the control of a particular cell specified by colNum and rowNum.
 	 7)  cell.getContents() -> return content of a cell.
+	 8)  Throws IllegalArgumentException if colName is not a header of the sheet.
 
 	 */
 
 	public String getCellData(String sheetName, String colName,int rowNum) throws BiffException, IOException
 	{
-		File inputWorkbook = new File(path);
-		Workbook w;
-		w = Workbook.getWorkbook(inputWorkbook);
-		Sheet sheet = w.getSheet(sheetName);
-		int i=0;
-		int colNum; 
-
-		for(i=0; i<sheet.getColumns(); i++)
-		{	
-			if(sheet.getCell(i, 0).getContents().equals(colName))
-			{
-				break;
-			}
+		return getCellData(sheetName, getSheetSnapshot(sheetName).getColumnIndex(colName), rowNum);
+	}
+
+
+	/*
+	 public int getInt(String sheetName, String colName, int rowNum) method specification :-
+
+	 1)  Returns cell data as an int, e.g. for a quantity or a no. of days.
+	 2)  The native value of a jxl NumberCell is used as it is, other cells are parsed from their text once per sheet.
+	 3)  Throws NumberFormatException if the cell is not a whole number within the int range.
+	 4)  getDouble, getLocalDate and getBoolean below work the same way for NumberCell, DateCell and BooleanCell.
+	 5)  A pending update (see writeIntoExcel) is parsed from its text.
+
+	 */
+
+	public int getInt(String sheetName, String colName, int rowNum) throws BiffException, IOException
+	{
+		SheetSnapshot snapshot = getSheetSnapshot(sheetName);
+		int colNum = snapshot.getColumnIndex(colName);
+
+		String pendingText = pendingText(sheetName, colNum, rowNum);
+		if (pendingText != null)
+		{
+			return CellValueCache.toInt(sheetName, colNum, rowNum,
+					CellValueCache.parseDouble(sheetName, colNum, rowNum, pendingText));
 		}
+		return snapshot.getInt(colNum, rowNum);
+	}
 
-		colNum=i;
 
-		Cell cell = sheet.getCell(colNum, rowNum);
-		return cell.getContents();
+	public double getDouble(String sheetName, String colName, int rowNum) throws BiffException, IOException
+	{
+		SheetSnapshot snapshot = getSheetSnapshot(sheetName);
+		int colNum = snapshot.getColumnIndex(colName);
+
+		String pendingText = pendingText(sheetName, colNum, rowNum);
+		if (pendingText != null)
+		{
+			return CellValueCache.parseDouble(sheetName, colNum, rowNum, pendingText);
+		}
+		return snapshot.getDouble(colNum, rowNum);
+	}
+
+
+	public LocalDate getLocalDate(String sheetName, String colName, int rowNum) throws BiffException, IOException
+	{
+		SheetSnapshot snapshot = getSheetSnapshot(sheetName);
+		int colNum = snapshot.getColumnIndex(colName);
+
+		String pendingText = pendingText(sheetName, colNum, rowNum);
+		if (pendingText != null)
+		{
+			return CellValueCache.parseLocalDate(pendingText);
+		}
+		return snapshot.getLocalDate(colNum, rowNum);
+	}
+
+
+	public boolean getBoolean(String sheetName, String colName, int rowNum) throws BiffException, IOException
+	{
+		SheetSnapshot snapshot = getSheetSnapshot(sheetName);
+		int colNum = snapshot.getColumnIndex(colName);
+
+		String pendingText = pendingText(sheetName, colNum, rowNum);
+		if (pendingText != null)
+		{
+			return CellValueCache.parseBoolean(sheetName, colNum, rowNum, pendingText);
+		}
+		return snapshot.getBoolean(colNum, rowNum);
+	}
+
+
+	// Text of an update not flushed yet, null if there is none
+	private String pendingText(String sheetName, int colNum, int rowNum)
+	{
+		return journal.size() > 0 ? journal.get(sheetName, colNum, rowNum) : null;
 	}
 
 
@@ -166,47 +326,462 @@ public class XlsReader
 	 public String getFirstSheetname() method specification :-
 
 	 1) Returns first sheet name  from specified excel sheet
-	 2) Workbook -> Refer to the whole xls workbook file
-	 3) Workbook.getWorkbook(<xls workbook file>) -> Load the xls workbook flie
-	 4) w.getSheet(0).getName() -> Give the first sheet name
+	 2) loadSheetNames() -> Load the xls workbook file (or its compiled plan)
+	 3) sheetNames[0] -> Give the first sheet name, the cells of the sheet are not read here
 
 	 */
 	
 	public String getFirstSheetname() throws BiffException, IOException
 	{
 
-		File inputWorkbook = new File(path);
-		Workbook w;
-		w = Workbook.getWorkbook(inputWorkbook);
-		String  sheet = w.getSheet(0).getName();
+		String  sheet = loadWorkbook().sheetNames[0];
 		
 		return sheet;
 		
 	}
+
+
+	/*   
+	 public String[] getSheetNames() method specification :-
+
+	 1) Returns the names of every sheet of the workbook, in workbook order.
+	 2) No sheet is materialized by this call.
+
+	 */
+
+	public String[] getSheetNames() throws BiffException, IOException
+	{
+		return loadWorkbook().sheetNames.clone();
+	}
 	
+	/*   
+	 public void writeIntoExcel(String sheetName, String colName, int rowNum,String text) method specification :-
+
+	 1) Records text as the new content of the cell at colName, rowNum of the sheet.
+	 2) The update goes to the write journal first (memory + sidecar log) and is written into the xls file by flush().
+	 3) getCellData returns the new text right away, snapshots and rows() only see it after the flush.
+	 4) Once flushThreshold updates are pending, they are flushed by this call.
+	 5) Waits while another thread is flushing.
+	 6) Throws IllegalArgumentException if the sheet or the column does not exist.
+	 7) Throws UnsupportedOperationException for .xlsx workbooks, jxl cannot write them.
+
+	 */
+
 	public void writeIntoExcel(String sheetName, String colName, int rowNum,String text) throws BiffException, IOException, RowsExceededException, WriteException
 	{
-		Workbook w = Workbook.getWorkbook(new File(path));
-		WritableWorkbook copy = Workbook.createWorkbook(new File(path), w);
-		WritableSheet sheet = copy.getSheet(sheetName);
-		
-		int i=0;
-		int colNum; 
+		if (isXlsx())
+		{
+			throw new UnsupportedOperationException("Writing into .xlsx workbooks is not supported : " + path);
+		}
+
+		writeIntoExcel(sheetName, getSheetSnapshot(sheetName).getColumnIndex(colName), rowNum, text);
+	}
+
+
+	/*   
+	 public void writeIntoExcel(String sheetName, int colNum, int rowNum, String text) method specification :-
+
+	 1) Same as writeIntoExcel(sheetName, colName, rowNum, text), for the cell at colNum.
+	 2) Forwarded writes (see forwardWrites) are handed to the CellWriter at once and stay visible to getCellData.
+
+	 */
+
+	public void writeIntoExcel(String sheetName, int colNum, int rowNum, String text) throws BiffException, IOException, RowsExceededException, WriteException
+	{
+		if (isXlsx())
+		{
+			throw new UnsupportedOperationException("Writing into .xlsx workbooks is not supported : " + path);
+		}
+
+		journal.append(sheetName, colNum, rowNum, text);
+
+		CellWriter cellWriter = forwardTo;
+		if (cellWriter != null)
+		{
+			cellWriter.writeCell(path, sheetName, colNum, rowNum, text);
+		}
+		else if (journal.size() >= flushThreshold)
+		{
+			flush();
+		}
+	}
+
+
+	/*   
+	 public void forwardWrites(CellWriter cellWriter) method specification :-
+
+	 1) From now on every cell update is handed to cellWriter as it is made, the xls file is never written by this reader.
+	 2) Updates are kept in memory, so that getCellData still returns them, and the sidecar log of the xls file is
+	    left to the process that writes the workbook : its pending updates are not this reader's to replay.
+	 3) To be called before the first update.
+
+	 */
+
+	public void forwardWrites(CellWriter cellWriter) throws IOException
+	{
+		synchronized (writeLock)
+		{
+			journal = new WriteJournal(null);
+			forwardTo = cellWriter;
+		}
+	}
+
+
+	/*   
+	 public void flush() method specification :-
+
+	 1) Writes every pending cell update into the xls file with a single workbook rewrite.
+	 2) Clears the write journal and its sidecar log once the workbook is written.
+	 3) Does nothing if no update is pending, or if the updates are forwarded (see forwardWrites).
+	 4) Write-backs are serialized on writeLock, and each holds the lock of the journal it writes :
+	    no update can slip in between writing the workbook and clearing the journal.
+	 5) The workbook is written into a temporary file next to the xls file, which is then moved over it in one atomic step :
+	    a concurrent reader loads either the old or the new workbook, never half of one, and a failed write leaves the xls file untouched.
+
+	 */
 
-		for(i=0; i<sheet.getColumns(); i++)
-		{	
-			if(sheet.getCell(i, 0).getContents().equals(colName))
+	public void flush() throws BiffException, IOException, RowsExceededException, WriteException
+	{
+		synchronized (writeLock)
+		{
+			WriteJournal pending = journal;
+			if (pending.size() == 0 || forwardTo != null)
+			{
+				return;
+			}
+
+			synchronized (pending)
 			{
-				break;
+				File inputWorkbook = new File(path).getAbsoluteFile();
+				File tempFile = File.createTempFile(inputWorkbook.getName(), ".tmp", inputWorkbook.getParentFile());
+				Workbook w = null;
+				WritableWorkbook copy = null;
+				try
+				{
+					w = Workbook.getWorkbook(inputWorkbook);
+					copy = Workbook.createWorkbook(tempFile, w);
+
+					for (WriteJournal.Entry entry : pending.entries())
+					{
+						WritableSheet sheet = copy.getSheet(entry.sheetName);
+						Label label = new Label(entry.colNum, entry.rowNum, entry.text);
+						sheet.addCell(label);
+					}
+
+					copy.write();
+					WritableWorkbook written = copy;
+					copy = null;
+					written.close();
+
+					Files.move(tempFile.toPath(), inputWorkbook.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				}
+				finally
+				{
+					if (copy != null)
+					{
+						closeFailedCopy(copy);
+					}
+					if (w != null)
+					{
+						w.close();
+					}
+					tempFile.delete();
+				}
+
+				// Drop the cached workbook, the file was rewritten
+				invalidate();
+
+				pending.clear();
 			}
 		}
+	}
 
-		colNum=i;
-		
-		Label label = new Label(colNum, rowNum, text);
-		sheet.addCell(label);
-		copy.write();
-		copy.close();
+
+	// The write already failed and its exception is the one passed on, a failure to close the copy adds nothing to it
+	private static void closeFailedCopy(WritableWorkbook copy)
+	{
+		try
+		{
+			copy.close();
+		}
+		catch (Exception closeException)
+		{
+		}
+	}
+
+
+	/*   
+	 private LoadedWorkbook loadWorkbook() method specification :-
+
+	 1) Loads the workbook on first use and returns its loaded state.
+	 2) The loaded workbook is kept in memory and reused by every read method.
+	 3) The workbook is loaded again only when the file's modification time or size has changed since the last load.
+	 4) If the compiled plan of the workbook matches the workbook contents, only the plan's sheet directory is read here.
+	 5) Otherwise the workbook is parsed with jxl and kept parsed in memory, its sheets are snapshotted on first lookup.
+	    A fresh plan is compiled for the next run on a background thread, from a jxl workbook of its own.
+	    Failing to write the plan is not an error, the workbook is simply parsed again next time.
+	 6) A current workbook is returned without locking, only the threads that have to load it are serialized.
+	 7) .xlsx workbooks are not read as a whole nor compiled into a plan, only their sheet list, styles and shared strings are read here.
+
+	 */
+
+	private LoadedWorkbook loadWorkbook() throws BiffException, IOException
+	{
+		File inputWorkbook = new File(path);
+		long modified = inputWorkbook.lastModified();
+		long length = inputWorkbook.length();
+
+		LoadedWorkbook current = loaded;
+		if (current != null && modified == current.modified && length == current.length)
+		{
+			return current;
+		}
+
+		synchronized (loadLock)
+		{
+			// Another thread may have loaded it while this one was waiting
+			current = loaded;
+			if (current != null && modified == current.modified && length == current.length)
+			{
+				return current;
+			}
+
+			if (isXlsx())
+			{
+				XlsxWorkbook xlsx = new XlsxWorkbook(inputWorkbook);
+				current = new LoadedWorkbook(xlsx.getSheetNames(), null, xlsx, null, modified, length);
+				loaded = current;
+				return current;
+			}
+
+			// Hash and parse the very same bytes, so that the plan always matches what was parsed
+			byte[] content = Files.readAllBytes(inputWorkbook.toPath());
+			byte[] hash = PlanCache.hash(content);
+			File planFile = new File(path + ".plan");
+
+			PlanCache plan = PlanCache.load(planFile, hash);
+
+			if (plan != null)
+			{
+				current = new LoadedWorkbook(plan.getSheetNames(), plan, null, null, modified, length);
+			}
+			else
+			{
+				// Parsed from memory, the workbook holds no file handle and is simply dropped with its LoadedWorkbook
+				Workbook w = Workbook.getWorkbook(new ByteArrayInputStream(content), readSettings());
+				current = new LoadedWorkbook(w.getSheetNames(), null, null, w, modified, length);
+				compilePlan(planFile, hash, current);
+			}
+
+			loaded = current;
+			return current;
+		}
+	}
+
+
+	/*   
+	 private void compilePlan(File planFile, byte[] hash, LoadedWorkbook parsed) method specification :-
+
+	 1) Writes the plan of the parsed workbook on a thread of its own, so loading the workbook does not wait for every sheet.
+	 2) The plan is written from the sheet snapshots of the parsed workbook, shared with the readers : the workbook is not parsed again.
+	 3) The thread is a daemon, it never keeps the JVM alive : a run that ends first leaves the plan to the next one.
+
+	 */
+
+	private void compilePlan(final File planFile, final byte[] hash, final LoadedWorkbook parsed)
+	{
+		Thread compiler = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					PlanCache.write(planFile, hash, parsed.sheetNames, new PlanCache.Sheets()
+					{
+						public SheetSnapshot read(String sheetName) throws IOException
+						{
+							return snapshot(parsed, sheetName);
+						}
+					});
+				}
+				catch (Exception planException)
+				{
+					APPLICATION_LOGS.debug("Error came while writing the test plan cache " + planFile.getPath() + " : " + planException.getMessage());
+				}
+			}
+		}, "plan-compiler");
+		compiler.setDaemon(true);
+		compiler.start();
+	}
+
+
+	/*   
+	 static void writePlan(File planFile, byte[] hash, byte[] content) method specification :-
+
+	 1) Parses the workbook contents with jxl and writes their plan (see PlanCache.write).
+
+	 */
+
+	static void writePlan(File planFile, byte[] hash, byte[] content) throws BiffException, IOException
+	{
+		Workbook w = Workbook.getWorkbook(new ByteArrayInputStream(content), readSettings());
+		try
+		{
+			PlanCache.write(planFile, hash, w);
+		}
+		finally
+		{
+			w.close();
+		}
+	}
+
+
+	/*   
+	 private static WorkbookSettings readSettings() method specification :-
+
+	 1) Settings used to parse the workbook for reading.
+	 2) setGCDisabled(true) -> jxl would otherwise call System.gc() every time a different sheet is requested.
+	 3) Drawings, cell validations and auto filters are never read by the framework, so they are not parsed.
+	 4) flush() rewrites the workbook from a copy parsed with default settings, so nothing is lost on write-back.
+	 5) These settings only change what is read, so they are not part of the plan key.
+
+	 */
+
+	private static WorkbookSettings readSettings()
+	{
+		WorkbookSettings settings = new WorkbookSettings();
+		settings.setGCDisabled(true);
+		settings.setDrawingsDisabled(true);
+		settings.setCellValidationDisabled(true);
+		settings.setAutoFilterDisabled(true);
+		return settings;
+	}
+
+
+	/*   
+	 public SheetSnapshot getSheetSnapshot(String sheetName) method specification :-
+
+	 1) Returns an immutable, column-oriented copy of the sheet (see SheetSnapshot).
+	 2) The snapshot is decoded from the plan, the .xlsx workbook or the parsed jxl workbook on the first lookup of the sheet,
+	    and reused until the workbook is loaded again.
+	 3) A snapshot keeps its data after the workbook changes, so it is safe to hold on to and share between threads.
+	 4) Throws IllegalArgumentException if the sheet does not exist.
+
+	 */
+
+	public SheetSnapshot getSheetSnapshot(String sheetName) throws BiffException, IOException
+	{
+		return snapshot(loadWorkbook(), sheetName);
+	}
+
+
+	// Snapshot of a sheet of the loaded workbook, decoded on its first lookup
+	private SheetSnapshot snapshot(LoadedWorkbook current, String sheetName) throws IOException
+	{
+		SheetSnapshot snapshot = current.snapshots.get(sheetName);
+
+		if (snapshot == null)
+		{
+			if (current.plan != null)
+			{
+				snapshot = current.plan.readSheet(sheetName);
+			}
+			else if (current.xlsx != null)
+			{
+				snapshot = current.xlsx.readSheet(sheetName);
+			}
+			else
+			{
+				synchronized (current.workbook)
+				{
+					Sheet sheet = current.workbook.getSheet(sheetName);
+					if (sheet != null)
+					{
+						snapshot = SheetSnapshot.fromSheet(sheet);
+					}
+				}
+			}
+
+			if (snapshot == null)
+			{
+				throw new IllegalArgumentException("Sheet '" + sheetName + "' not found in " + path);
+			}
+
+			// Two threads may decode the same sheet at once, both copies are equal and the first one is kept
+			SheetSnapshot decoded = current.snapshots.putIfAbsent(sheetName, snapshot);
+			if (decoded != null)
+			{
+				snapshot = decoded;
+			}
+		}
+
+		return snapshot;
+	}
+
+
+	/*   
+	 public Rows rows(String sheetName) method specification :-
+
+	 1) Returns the data rows (row 1 onwards) of the sheet in order.
+	 2) The sheet is read once through its snapshot, each Row gives access to its cells by column name or no.
+	 3) For .xlsx workbooks whose sheet has not been snapshotted, rows are streamed from the file instead, one row in memory at a time.
+	    The file stays open until the rows have been read to the end or the Rows are closed, e.g. by try-with-resources.
+	 4) Throws IllegalArgumentException if the sheet does not exist.
+
+	 */
+
+	public Rows rows(String sheetName) throws BiffException, IOException
+	{
+		LoadedWorkbook current = loadWorkbook();
+
+		if (current.xlsx != null && !current.snapshots.containsKey(sheetName))
+		{
+			Rows rows = current.xlsx.streamRows(sheetName);
+			if (rows == null)
+			{
+				throw new IllegalArgumentException("Sheet '" + sheetName + "' not found in " + path);
+			}
+			return rows;
+		}
+
+		return getSheetSnapshot(sheetName).rows();
+	}
+
+
+	// .xlsx workbooks are told apart from .xls ones by their file extension
+	private boolean isXlsx()
+	{
+		return path.toLowerCase().endsWith(".xlsx");
+	}
+
+
+	/*   
+	 public RowIndex indexBy(String sheetName, String colName) method specification :-
+
+	 1) Returns a hash index of the data rows of the sheet by the content of colName (see RowIndex).
+	 2) e.g. indexBy("TestData", "TCID").getRows(currentTest) -> every test data row of the current test case.
+	 3) The index is built once per snapshot, it is rebuilt only after the workbook changes.
+	 4) Like rows(), the index reflects the xls file as last flushed.
+	 5) Throws IllegalArgumentException if the sheet or the column does not exist.
+
+	 */
+
+	public RowIndex indexBy(String sheetName, String colName) throws BiffException, IOException
+	{
+		return getSheetSnapshot(sheetName).indexBy(colName);
+	}
+
+
+	/*   
+	 public void invalidate() method specification :-
+
+	 1) Drops the loaded workbook so that the next read loads the xls file again.
+
+	 */
+
+	public void invalidate()
+	{
+		loaded = null;
 	}
 	
 }
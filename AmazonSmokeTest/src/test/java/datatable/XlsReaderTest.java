@@ -0,0 +1,266 @@
+package datatable;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jxl.Workbook;
+import jxl.write.DateFormat;
+import jxl.write.DateTime;
+import jxl.write.Label;
+import jxl.write.Number;
+import jxl.write.NumberFormat;
+import jxl.write.WritableCellFormat;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XlsReaderTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+
+	@Before
+	public void writeWorkbook() throws Exception
+	{
+		file = folder.newFile("testData.xls");
+
+		WritableWorkbook workbook = Workbook.createWorkbook(file);
+		WritableSheet sheet = workbook.createSheet("Data", 0);
+		sheet.addCell(new Label(0, 0, "TCID"));
+		sheet.addCell(new Label(1, 0, "Value"));
+		for (int r = 1; r <= 50; r++)
+		{
+			sheet.addCell(new Label(0, r, "TC" + r));
+			sheet.addCell(new Label(1, r, "initial"));
+		}
+		workbook.createSheet("Other", 1).addCell(new Label(0, 0, "Key"));
+		workbook.write();
+		workbook.close();
+	}
+
+
+	@Test
+	public void readsCellsByColumnName() throws Exception
+	{
+		XlsReader reader = new XlsReader(file.getPath());
+
+		assertEquals(51, reader.getRowCount("Data"));
+		assertEquals("TC7", reader.getCellData("Data", "TCID", 7));
+		assertEquals("initial", reader.getCellData("Data", 1, 7));
+		assertEquals("Key", reader.getCellData("Other", "Key", 0));
+	}
+
+
+	@Test
+	public void typedAccessorsReadNativeTextAndPendingValues() throws Exception
+	{
+		File typed = folder.newFile("typed.xls");
+		Date date = Date.from(LocalDate.of(2026, 10, 18).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+		WritableWorkbook workbook = Workbook.createWorkbook(typed);
+		WritableSheet sheet = workbook.createSheet("Typed", 0);
+		sheet.addCell(new Label(0, 0, "Quantity"));
+		sheet.addCell(new Label(1, 0, "Price"));
+		sheet.addCell(new Label(2, 0, "Delivery"));
+		sheet.addCell(new Label(3, 0, "Gift"));
+
+		// Native cells, shown in a format their text would not parse from
+		sheet.addCell(new Number(0, 1, 1234, new WritableCellFormat(new NumberFormat("#,##0.00"))));
+		sheet.addCell(new Number(1, 1, 1999.5, new WritableCellFormat(new NumberFormat("#,##0.00"))));
+		sheet.addCell(new DateTime(2, 1, date, new WritableCellFormat(new DateFormat("MM/dd/yy")), DateTime.GMT));
+		sheet.addCell(new jxl.write.Boolean(3, 1, true));
+
+		// Text cells
+		sheet.addCell(new Label(0, 2, " 12 "));
+		sheet.addCell(new Label(1, 2, "9.5"));
+		sheet.addCell(new Label(2, 2, "2026-10-19 10:30"));
+		sheet.addCell(new Label(3, 2, "no"));
+		workbook.write();
+		workbook.close();
+
+		XlsReader reader = new XlsReader(typed.getPath());
+
+		assertEquals("1,234.00", reader.getCellData("Typed", "Quantity", 1));
+		assertEquals(1234, reader.getInt("Typed", "Quantity", 1));
+		assertEquals(1999.5, reader.getDouble("Typed", "Price", 1), 0);
+		assertEquals("10/18/26", reader.getCellData("Typed", "Delivery", 1));
+		assertEquals(LocalDate.of(2026, 10, 18), reader.getLocalDate("Typed", "Delivery", 1));
+		assertTrue(reader.getBoolean("Typed", "Gift", 1));
+
+		assertEquals(12, reader.getInt("Typed", "Quantity", 2));
+		assertEquals(9.5, reader.getDouble("Typed", "Price", 2), 0);
+		assertEquals(LocalDate.of(2026, 10, 19), reader.getLocalDate("Typed", "Delivery", 2));
+		assertFalse(reader.getBoolean("Typed", "Gift", 2));
+
+		// A pending update replaces the native value before it is flushed
+		reader.writeIntoExcel("Typed", "Quantity", 1, "7");
+		reader.writeIntoExcel("Typed", "Delivery", 1, "2027-01-02");
+		assertEquals(7, reader.getInt("Typed", "Quantity", 1));
+		assertEquals(LocalDate.of(2027, 1, 2), reader.getLocalDate("Typed", "Delivery", 1));
+
+		// A fraction is no int
+		try
+		{
+			reader.getInt("Typed", "Price", 1);
+			fail("1999.5 was read as an int");
+		}
+		catch (NumberFormatException expected)
+		{
+		}
+	}
+
+
+	@Test
+	public void flushWritesPendingUpdatesIntoTheWorkbook() throws Exception
+	{
+		XlsReader writer = new XlsReader(file.getPath());
+		writer.writeIntoExcel("Data", "Value", 3, "updated");
+
+		// Pending updates are visible to getCellData before the flush
+		assertEquals("updated", writer.getCellData("Data", "Value", 3));
+
+		writer.flush();
+
+		assertEquals(0, new File(file.getPath() + ".journal").length());
+		assertEquals("updated", new XlsReader(file.getPath()).getCellData("Data", "Value", 3));
+		assertEquals("initial", new XlsReader(file.getPath()).getCellData("Data", "Value", 4));
+	}
+
+
+	@Test
+	public void forwardedWritesAreWrittenByTheirWriterOnly() throws Exception
+	{
+		// One writer, like the coordinator, and two readers forwarding their updates to it, like shard workers
+		final XlsReader coordinator = new XlsReader(file.getPath());
+		CellWriter forward = new CellWriter()
+		{
+			public void writeCell(String path, String sheetName, int colNum, int rowNum, String text) throws IOException
+			{
+				assertEquals(file.getPath(), path);
+				try
+				{
+					coordinator.writeIntoExcel(sheetName, colNum, rowNum, text);
+				}
+				catch (Exception e)
+				{
+					throw new IOException(e);
+				}
+			}
+		};
+
+		byte[] original = Files.readAllBytes(file.toPath());
+		XlsReader first = new XlsReader(file.getPath(), 1);
+		XlsReader second = new XlsReader(file.getPath(), 1);
+		first.forwardWrites(forward);
+		second.forwardWrites(forward);
+
+		first.writeIntoExcel("Data", "Value", 1, "first");
+		second.writeIntoExcel("Data", "Value", 2, "second");
+		first.flush();
+		second.flush();
+
+		// The workers see their own updates but did not write the workbook, the updates are pending in the writer
+		assertEquals("first", first.getCellData("Data", "Value", 1));
+		assertArrayEquals(original, Files.readAllBytes(file.toPath()));
+		assertEquals("second", coordinator.getCellData("Data", "Value", 2));
+
+		coordinator.flush();
+
+		XlsReader written = new XlsReader(file.getPath());
+		assertEquals("first", written.getCellData("Data", "Value", 1));
+		assertEquals("second", written.getCellData("Data", "Value", 2));
+		assertFalse(new File(file.getPath() + ".journal").exists());
+	}
+
+
+	@Test
+	public void readersNeverSeeAHalfWrittenWorkbook() throws Exception
+	{
+		final XlsReader writer = new XlsReader(file.getPath(), 1000);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++)
+		{
+			// Readers of their own, like other test cases or processes reading the same workbook
+			final XlsReader reader = new XlsReader(file.getPath());
+			Thread thread = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						while (writing.get())
+						{
+							String value = reader.getCellData("Data", "Value", 25);
+							if (!value.equals("initial") && !value.matches("round \\d+"))
+							{
+								throw new AssertionError("Unexpected cell content '" + value + "'");
+							}
+							assertEquals(51, reader.getRowCount("Data"));
+						}
+					}
+					catch (Throwable readException)
+					{
+						failures.add(readException);
+					}
+				}
+			});
+			thread.start();
+			readers.add(thread);
+		}
+
+		try
+		{
+			for (int round = 1; round <= 30; round++)
+			{
+				for (int r = 1; r <= 50; r++)
+				{
+					writer.writeIntoExcel("Data", "Value", r, "round " + round);
+				}
+				writer.flush();
+			}
+		}
+		finally
+		{
+			writing.set(false);
+			for (Thread thread : readers)
+			{
+				thread.join();
+			}
+		}
+
+		assertTrue("Readers failed : " + failures, failures.isEmpty());
+		assertEquals("round 30", new XlsReader(file.getPath()).getCellData("Data", "Value", 50));
+
+		// No temporary workbook is left behind (a plan may still be compiling in the background)
+		for (String name : folder.getRoot().list())
+		{
+			assertFalse(name, name.endsWith(".tmp") && !name.startsWith(file.getName() + ".plan"));
+		}
+	}
+
+}
@@ -0,0 +1,811 @@
+/*
+
+    XlsxWorkbook reads .xlsx (Office Open XML) workbooks for XlsReader, with nothing but the JDK :
+    the workbook is a zip archive of XML parts, which are read with a StAX pull parser.
+
+    Sheets are streamed : a sheet's XML part is never loaded as a whole, rows are parsed one at a time as they are consumed.
+    Streaming a sheet with streamRows(sheetName) therefore holds one row in memory, whatever the size of the sheet.
+    The only workbook-wide data kept in memory are the sheet list, the cell styles and the shared string table.
+
+    Cell contents are returned the way jxl returns them for .xls files as far as possible :-
+    1) Text, shared text and formula text -> the text.
+    2) Numbers -> the stored value, e.g. "42" or "3.5".
+    3) Dates (numbers with a date style) -> "yyyy-MM-dd", or "yyyy-MM-dd HH:mm:ss" when there is a time of day.
+    4) Booleans -> "TRUE" / "FALSE".
+    5) Missing cells -> "".
+
+ */
+
+
+package datatable;
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+final class XlsxWorkbook
+{
+	private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+	// Built-in number formats that display dates or times
+	private static final Set<Integer> BUILT_IN_DATE_FORMATS = new HashSet<Integer>(
+			Arrays.asList(14, 15, 16, 17, 18, 19, 20, 21, 22, 45, 46, 47));
+
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+	private final File file;
+	private final String[] sheetNames;
+
+	// Sheet name -> zip entry name of the sheet part
+	private final Map<String, String> sheetParts;
+
+	private final String[] sharedStrings;
+
+	// Cell style no. -> whether numbers with that style are dates
+	private final boolean[] dateStyles;
+
+	private final boolean date1904;
+
+
+	/*
+	 XlsxWorkbook(File file) method specification :-
+
+	 1)  Reads the sheet list, the shared strings and the cell styles of the workbook. No sheet is read here.
+	 2)  Throws IOException if the file is not a readable .xlsx workbook.
+
+	 */
+
+	XlsxWorkbook(File file) throws IOException
+	{
+		this.file = file;
+
+		ZipFile zip = new ZipFile(file);
+		try
+		{
+			Map<String, String> targets = readRelationships(zip, "xl/_rels/workbook.xml.rels");
+
+			List<String> names = new ArrayList<String>();
+			Map<String, String> parts = new HashMap<String, String>();
+			boolean uses1904 = false;
+
+			XMLStreamReader xml = open(zip, "xl/workbook.xml");
+			try
+			{
+				while (xml.hasNext())
+				{
+					if (xml.next() != XMLStreamConstants.START_ELEMENT)
+					{
+						continue;
+					}
+
+					if (xml.getLocalName().equals("workbookPr"))
+					{
+						String value = xml.getAttributeValue(null, "date1904");
+						uses1904 = "1".equals(value) || "true".equals(value);
+					}
+					else if (xml.getLocalName().equals("sheet"))
+					{
+						String name = xml.getAttributeValue(null, "name");
+						String target = targets.get(xml.getAttributeValue(RELATIONSHIPS_NS, "id"));
+						if (target == null)
+						{
+							throw new IOException("No part found for sheet '" + name + "' in " + file.getPath());
+						}
+						names.add(name);
+						parts.put(name, partName(target));
+					}
+				}
+			}
+			finally
+			{
+				close(xml);
+			}
+
+			this.sheetNames = names.toArray(new String[names.size()]);
+			this.sheetParts = parts;
+			this.date1904 = uses1904;
+			this.sharedStrings = readSharedStrings(zip);
+			this.dateStyles = readDateStyles(zip);
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException("Unable to read " + file.getPath() + " : " + e.getMessage(), e);
+		}
+		finally
+		{
+			zip.close();
+		}
+	}
+
+
+	String[] getSheetNames()
+	{
+		return sheetNames.clone();
+	}
+
+
+	boolean hasSheet(String sheetName)
+	{
+		return sheetParts.containsKey(sheetName);
+	}
+
+
+	/*
+	 SheetSnapshot readSheet(String sheetName) method specification :-
+
+	 1)  Reads a whole sheet into a SheetSnapshot, for random access by XlsReader.getCellData and friends.
+	 2)  Unlike streamRows(), this holds the whole sheet in memory.
+	 3)  Returns null if the workbook has no such sheet.
+
+	 */
+
+	SheetSnapshot readSheet(String sheetName) throws IOException
+	{
+		if (!hasSheet(sheetName))
+		{
+			return null;
+		}
+
+		List<String[]> rows = new ArrayList<String[]>();
+		int cols = 0;
+
+		RawRowIterator rawRows = new RawRowIterator(sheetName);
+		try
+		{
+			while (rawRows.hasNext())
+			{
+				String[] row = rawRows.next();
+				cols = Math.max(cols, row.length);
+				rows.add(row);
+			}
+		}
+		finally
+		{
+			rawRows.close();
+		}
+
+		String[][] columns = new String[cols][rows.size()];
+		for (int r = 0; r < rows.size(); r++)
+		{
+			String[] row = rows.get(r);
+			for (int c = 0; c < cols; c++)
+			{
+				columns[c][r] = c < row.length ? row[c].intern() : "";
+			}
+		}
+
+		return new SheetSnapshot(sheetName, columns, rows.size());
+	}
+
+
+	/*
+	 Rows streamRows(String sheetName) method specification :-
+
+	 1)  Returns the data rows (row 1 onwards) of the sheet, parsed one at a time while iterating.
+	 2)  Each iteration reads the sheet part afresh. The part is closed once the last row has been read, when a row
+	     cannot be parsed, or when the Rows are closed (see Rows).
+	 3)  Empty rows between data rows are returned as rows of empty cells, so row nos. match the sheet.
+	 4)  Returns null if the workbook has no such sheet.
+
+	 */
+
+	Rows streamRows(final String sheetName)
+	{
+		if (!hasSheet(sheetName))
+		{
+			return null;
+		}
+
+		return new Rows()
+		{
+			// Iterators handed out so far, closed along with the Rows
+			private final List<RowStream> streams = new ArrayList<RowStream>();
+
+			public Iterator<Row> iterator()
+			{
+				try
+				{
+					RowStream stream = new RowStream(sheetName);
+					synchronized (streams)
+					{
+						streams.add(stream);
+					}
+					return stream;
+				}
+				catch (IOException e)
+				{
+					throw new IllegalStateException("Unable to read sheet '" + sheetName + "' of " + file.getPath(), e);
+				}
+			}
+
+			public void close()
+			{
+				synchronized (streams)
+				{
+					for (RowStream stream : streams)
+					{
+						stream.close();
+					}
+					streams.clear();
+				}
+			}
+		};
+	}
+
+
+	/*
+	 RowStream method specification :-
+
+	 1)  Iterates the data rows of a sheet over a RawRowIterator, each row as wide as the header row at least.
+	 2)  close() closes the sheet part if the rows were not read to the end.
+
+	 */
+
+	private final class RowStream implements Iterator<Row>, Closeable
+	{
+		private final String sheetName;
+		private final RawRowIterator rawRows;
+		private final String[] headers;
+		private final Map<String, Integer> headerIndex;
+		private int rowNum = 1;
+
+		RowStream(String sheetName) throws IOException
+		{
+			this.sheetName = sheetName;
+			this.rawRows = new RawRowIterator(sheetName);
+			this.headers = rawRows.hasNext() ? rawRows.next() : new String[0];
+			this.headerIndex = SheetSnapshot.headerIndex(headers);
+		}
+
+		public boolean hasNext()
+		{
+			return rawRows.hasNext();
+		}
+
+		public Row next()
+		{
+			String[] cells = rawRows.next();
+
+			// Every row is at least as wide as the header row
+			if (cells.length < headers.length)
+			{
+				String[] padded = Arrays.copyOf(cells, headers.length);
+				Arrays.fill(padded, cells.length, headers.length, "");
+				cells = padded;
+			}
+
+			return new Row(sheetName, headerIndex, cells, rowNum++);
+		}
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		public void close()
+		{
+			rawRows.close();
+		}
+	}
+
+
+	/*
+	 RawRowIterator method specification :-
+
+	 1)  Pull-parses the <row> elements of a sheet part and returns the cells of each row as a String[], row 0 first.
+	 2)  Missing rows and cells (sparse sheets) come back as "".
+	 3)  The zip file is closed once the last row has been returned, when a row cannot be parsed, or by close().
+
+	 */
+
+	private final class RawRowIterator implements Iterator<String[]>, Closeable
+	{
+		private final ZipFile zip;
+		private final XMLStreamReader xml;
+
+		// Next row no. to hand out, and the next parsed row (whose no. may be further on)
+		private int rowNum = 0;
+		private int parsedRowNum = -1;
+		private String[] parsedRow = null;
+		private boolean finished = false;
+
+		RawRowIterator(String sheetName) throws IOException
+		{
+			zip = new ZipFile(file);
+			try
+			{
+				xml = open(zip, sheetParts.get(sheetName));
+			}
+			catch (IOException e)
+			{
+				zip.close();
+				throw e;
+			}
+			catch (XMLStreamException e)
+			{
+				zip.close();
+				throw new IOException("Unable to read sheet '" + sheetName + "' of " + file.getPath(), e);
+			}
+		}
+
+		public boolean hasNext()
+		{
+			if (parsedRow == null && !finished)
+			{
+				parseNextRow();
+			}
+			return parsedRow != null;
+		}
+
+		public String[] next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+
+			// Fill the gap up to the next parsed row with empty rows
+			if (rowNum < parsedRowNum)
+			{
+				rowNum++;
+				return new String[0];
+			}
+
+			String[] row = parsedRow;
+			parsedRow = null;
+			rowNum++;
+			return row;
+		}
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		// Closes the sheet part and the zip file, a finished iterator has nothing more to close
+		public void close()
+		{
+			if (finished)
+			{
+				return;
+			}
+
+			finished = true;
+			parsedRow = null;
+			XlsxWorkbook.close(xml);
+			try
+			{
+				zip.close();
+			}
+			catch (IOException e)
+			{
+				// Nothing left to read
+			}
+		}
+
+		private void parseNextRow()
+		{
+			try
+			{
+				while (xml.hasNext())
+				{
+					if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("row"))
+					{
+						String r = xml.getAttributeValue(null, "r");
+						parsedRowNum = r != null ? Integer.parseInt(r) - 1 : rowNum;
+						parsedRow = parseRow();
+						return;
+					}
+				}
+
+				close();
+			}
+			catch (XMLStreamException e)
+			{
+				close();
+				throw new IllegalStateException("Unable to read " + file.getPath(), e);
+			}
+			catch (RuntimeException e)
+			{
+				// e.g. a malformed row no. or cell value
+				close();
+				throw e;
+			}
+		}
+
+		// Reads the <c> elements of the current <row> up to its end tag
+		private String[] parseRow() throws XMLStreamException
+		{
+			List<String> cells = new ArrayList<String>();
+
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("row"))
+				{
+					break;
+				}
+
+				if (event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("c"))
+				{
+					String ref = xml.getAttributeValue(null, "r");
+					int colNum = ref != null ? columnNo(ref) : cells.size();
+					String type = xml.getAttributeValue(null, "t");
+					String style = xml.getAttributeValue(null, "s");
+					String value = parseCell(type, style);
+
+					while (cells.size() < colNum)
+					{
+						cells.add("");
+					}
+					if (cells.size() == colNum)
+					{
+						cells.add(value);
+					}
+					else
+					{
+						cells.set(colNum, value);
+					}
+				}
+			}
+
+			return cells.toArray(new String[cells.size()]);
+		}
+
+		// Reads the current <c> element up to its end tag
+		private String parseCell(String type, String style) throws XMLStreamException
+		{
+			String value = null;
+			StringBuilder inlineText = null;
+
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("c"))
+				{
+					break;
+				}
+
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					if (xml.getLocalName().equals("v"))
+					{
+						value = xml.getElementText();
+					}
+					else if (xml.getLocalName().equals("t"))
+					{
+						// Inline string, possibly split in rich text runs
+						if (inlineText == null)
+						{
+							inlineText = new StringBuilder();
+						}
+						inlineText.append(xml.getElementText());
+					}
+				}
+			}
+
+			if ("inlineStr".equals(type))
+			{
+				return inlineText == null ? "" : inlineText.toString();
+			}
+			if (value == null)
+			{
+				return "";
+			}
+			if ("s".equals(type))
+			{
+				return sharedStrings[Integer.parseInt(value.trim())];
+			}
+			if ("b".equals(type))
+			{
+				return "1".equals(value.trim()) ? "TRUE" : "FALSE";
+			}
+			if ("str".equals(type) || "e".equals(type))
+			{
+				return value;
+			}
+			return formatNumber(value, style);
+		}
+	}
+
+
+	// Formats a numeric cell, as a date if its style is a date style
+	private String formatNumber(String value, String style)
+	{
+		if (style != null)
+		{
+			int styleNo = Integer.parseInt(style);
+			if (styleNo < dateStyles.length && dateStyles[styleNo])
+			{
+				return formatDate(Double.parseDouble(value));
+			}
+		}
+
+		try
+		{
+			// "3.0" -> "3", "1.5E2" -> "150", the way numbers are displayed in the sheet
+			return new BigDecimal(value).stripTrailingZeros().toPlainString();
+		}
+		catch (NumberFormatException notANumber)
+		{
+			return value;
+		}
+	}
+
+
+	private String formatDate(double serial)
+	{
+		LocalDateTime epoch = date1904 ? LocalDateTime.of(1904, 1, 1, 0, 0) : LocalDateTime.of(1899, 12, 30, 0, 0);
+		long days = (long) Math.floor(serial);
+		long seconds = Math.round((serial - days) * 86400);
+		LocalDateTime dateTime = epoch.plusDays(days).plusSeconds(seconds);
+
+		if (seconds == 0)
+		{
+			return dateTime.toLocalDate().format(DATE_FORMAT);
+		}
+		return dateTime.format(DATE_TIME_FORMAT);
+	}
+
+
+	// Column no. of a cell reference, e.g. "C5" -> 2, "AA1" -> 26
+	private static int columnNo(String ref)
+	{
+		int colNum = 0;
+		for (int i = 0; i < ref.length(); i++)
+		{
+			char c = ref.charAt(i);
+			if (c < 'A' || c > 'Z')
+			{
+				break;
+			}
+			colNum = colNum * 26 + (c - 'A' + 1);
+		}
+		return colNum - 1;
+	}
+
+
+	private String[] readSharedStrings(ZipFile zip) throws IOException, XMLStreamException
+	{
+		if (zip.getEntry("xl/sharedStrings.xml") == null)
+		{
+			return new String[0];
+		}
+
+		List<String> strings = new ArrayList<String>();
+		XMLStreamReader xml = open(zip, "xl/sharedStrings.xml");
+		try
+		{
+			StringBuilder text = null;
+			boolean phonetic = false;
+
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					String name = xml.getLocalName();
+					if (name.equals("si"))
+					{
+						text = new StringBuilder();
+					}
+					else if (name.equals("rPh"))
+					{
+						phonetic = true;
+					}
+					else if (name.equals("t") && text != null && !phonetic)
+					{
+						text.append(xml.getElementText());
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT)
+				{
+					String name = xml.getLocalName();
+					if (name.equals("si"))
+					{
+						strings.add(text.toString());
+						text = null;
+					}
+					else if (name.equals("rPh"))
+					{
+						phonetic = false;
+					}
+				}
+			}
+		}
+		finally
+		{
+			close(xml);
+		}
+
+		return strings.toArray(new String[strings.size()]);
+	}
+
+
+	private boolean[] readDateStyles(ZipFile zip) throws IOException, XMLStreamException
+	{
+		if (zip.getEntry("xl/styles.xml") == null)
+		{
+			return new boolean[0];
+		}
+
+		Set<Integer> customDateFormats = new HashSet<Integer>();
+		List<Boolean> styles = new ArrayList<Boolean>();
+
+		XMLStreamReader xml = open(zip, "xl/styles.xml");
+		try
+		{
+			boolean inCellXfs = false;
+
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					String name = xml.getLocalName();
+					if (name.equals("numFmt"))
+					{
+						if (isDateFormatCode(xml.getAttributeValue(null, "formatCode")))
+						{
+							customDateFormats.add(Integer.parseInt(xml.getAttributeValue(null, "numFmtId")));
+						}
+					}
+					else if (name.equals("cellXfs"))
+					{
+						inCellXfs = true;
+					}
+					else if (name.equals("xf") && inCellXfs)
+					{
+						String numFmtId = xml.getAttributeValue(null, "numFmtId");
+						int formatNo = numFmtId == null ? 0 : Integer.parseInt(numFmtId);
+						styles.add(BUILT_IN_DATE_FORMATS.contains(formatNo) || customDateFormats.contains(formatNo));
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("cellXfs"))
+				{
+					inCellXfs = false;
+				}
+			}
+		}
+		finally
+		{
+			close(xml);
+		}
+
+		boolean[] dateStyleFlags = new boolean[styles.size()];
+		for (int i = 0; i < dateStyleFlags.length; i++)
+		{
+			dateStyleFlags[i] = styles.get(i);
+		}
+		return dateStyleFlags;
+	}
+
+
+	// A format code displays a date if it has a date or time placeholder outside quoted text and [..] sections
+	private static boolean isDateFormatCode(String formatCode)
+	{
+		if (formatCode == null)
+		{
+			return false;
+		}
+
+		boolean quoted = false;
+		boolean bracketed = false;
+		for (int i = 0; i < formatCode.length(); i++)
+		{
+			char c = formatCode.charAt(i);
+			if (c == '"')
+			{
+				quoted = !quoted;
+			}
+			else if (!quoted && c == '[')
+			{
+				bracketed = true;
+			}
+			else if (!quoted && c == ']')
+			{
+				bracketed = false;
+			}
+			else if (!quoted && !bracketed && "dmyhsDMYHS".indexOf(c) >= 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// Relationship id -> target of a .rels part
+	private static Map<String, String> readRelationships(ZipFile zip, String partName) throws IOException, XMLStreamException
+	{
+		Map<String, String> targets = new HashMap<String, String>();
+		XMLStreamReader xml = open(zip, partName);
+		try
+		{
+			while (xml.hasNext())
+			{
+				if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Relationship"))
+				{
+					targets.put(xml.getAttributeValue(null, "Id"), xml.getAttributeValue(null, "Target"));
+				}
+			}
+		}
+		finally
+		{
+			close(xml);
+		}
+		return targets;
+	}
+
+
+	// Zip entry name of a relationship target, targets are relative to xl/ unless absolute
+	private static String partName(String target)
+	{
+		return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+	}
+
+
+	private static XMLStreamReader open(ZipFile zip, String partName) throws IOException, XMLStreamException
+	{
+		ZipEntry entry = zip.getEntry(partName);
+		if (entry == null)
+		{
+			throw new IOException("Part " + partName + " not found in " + zip.getName());
+		}
+
+		InputStream in = zip.getInputStream(entry);
+		return XML_INPUT_FACTORY.createXMLStreamReader(in, "UTF-8");
+	}
+
+
+	private static void close(XMLStreamReader xml)
+	{
+		try
+		{
+			xml.close();
+		}
+		catch (XMLStreamException e)
+		{
+			// Nothing left to read, the zip file is closed by the caller
+		}
+	}
+
+
+	private static XMLInputFactory newXmlInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+}
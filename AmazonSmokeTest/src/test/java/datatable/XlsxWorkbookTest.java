@@ -0,0 +1,192 @@
+package datatable;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XlsxWorkbookTest
+{
+	private static final String WORKBOOK = "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+			+ " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>"
+			+ "<sheet name=\"Test Cases\" sheetId=\"1\" r:id=\"rId1\"/>"
+			+ "<sheet name=\"Data\" sheetId=\"2\" r:id=\"rId2\"/>"
+			+ "</sheets></workbook>";
+
+	private static final String RELATIONSHIPS = "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+			+ "<Relationship Id=\"rId1\" Target=\"worksheets/sheet1.xml\"/>"
+			+ "<Relationship Id=\"rId2\" Target=\"/xl/worksheets/sheet2.xml\"/>"
+			+ "</Relationships>";
+
+	private static final String SHARED_STRINGS = "<sst><si><t>TCID</t></si><si><t>Runmode</t></si>"
+			+ "<si><r><t>Add </t></r><r><t>to cart</t></r></si><si><t>Y</t><rPh><t>ignored</t></rPh></si></sst>";
+
+	// Style 1 is a built-in date format
+	private static final String STYLES = "<styleSheet><cellXfs><xf numFmtId=\"0\"/><xf numFmtId=\"14\"/></cellXfs></styleSheet>";
+
+	private static final String TEST_CASES = "<worksheet><sheetData>"
+			+ "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"s\"><v>1</v></c><c r=\"C1\" t=\"inlineStr\"><is><t>When</t></is></c></row>"
+			+ "<row r=\"2\"><c r=\"A2\" t=\"s\"><v>2</v></c><c r=\"B2\" t=\"s\"><v>3</v></c><c r=\"C2\" s=\"1\"><v>45292</v></c></row>"
+			+ "<row r=\"4\"><c r=\"A4\"><v>3.0</v></c><c r=\"C4\" t=\"b\"><v>1</v></c></row>"
+			+ "</sheetData></worksheet>";
+
+	private static final String DATA = "<worksheet><sheetData>"
+			+ "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>Key</t></is></c></row>"
+			+ "<row r=\"2\"><c r=\"A2\"><v>1</v></c></row>"
+			+ "<row r=\"3\"><c r=\"A3\"><v>2</v></c></row>"
+			+ "<row r=\"4\"><c r=\"A4\"><v>3</v></c></row>"
+			+ "</sheetData></worksheet>";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void readsSheetNamesAndCellsTheWayJxlDoes() throws Exception
+	{
+		XlsxWorkbook workbook = new XlsxWorkbook(writeWorkbook(DATA));
+
+		assertArrayEquals(new String[] { "Test Cases", "Data" }, workbook.getSheetNames());
+		assertNull(workbook.readSheet("Missing"));
+
+		SheetSnapshot sheet = workbook.readSheet("Test Cases");
+		assertEquals(4, sheet.getRowCount());
+		assertEquals("When", sheet.getCellData(2, 0));
+		assertEquals("Add to cart", sheet.getCellData("TCID", 1));
+		assertEquals("Y", sheet.getCellData("Runmode", 1));
+		assertEquals("2024-01-01", sheet.getCellData("When", 1));
+
+		// Row 3 is missing from the sheet part, row 4 has no Runmode cell
+		assertEquals("", sheet.getCellData("TCID", 2));
+		assertEquals("3", sheet.getCellData("TCID", 3));
+		assertEquals("", sheet.getCellData("Runmode", 3));
+		assertEquals("TRUE", sheet.getCellData("When", 3));
+	}
+
+
+	@Test
+	public void streamsTheSameRowsAsTheSnapshot() throws Exception
+	{
+		XlsxWorkbook workbook = new XlsxWorkbook(writeWorkbook(DATA));
+		SheetSnapshot sheet = workbook.readSheet("Test Cases");
+
+		int rowNum = 1;
+		Rows rows = workbook.streamRows("Test Cases");
+		try
+		{
+			for (Row row : rows)
+			{
+				assertEquals(rowNum, row.getRowNum());
+				for (int c = 0; c < sheet.getColumnCount(); c++)
+				{
+					assertEquals(sheet.getCellData(c, rowNum), row.get(c));
+				}
+				rowNum++;
+			}
+		}
+		finally
+		{
+			rows.close();
+		}
+		assertEquals(sheet.getRowCount(), rowNum);
+		assertNull(workbook.streamRows("Missing"));
+	}
+
+
+	@Test
+	public void closingRowsReleasesTheFileOfAnUnfinishedIteration() throws Exception
+	{
+		assumeTrue(new File("/proc/self/fd").isDirectory());
+		XlsxWorkbook workbook = new XlsxWorkbook(writeWorkbook(DATA));
+		int openFiles = openFiles();
+
+		try (Rows rows = workbook.streamRows("Data"))
+		{
+			Iterator<Row> iterator = rows.iterator();
+			assertEquals("1", iterator.next().get("Key"));
+			assertTrue(openFiles() > openFiles);
+		}
+		assertEquals(openFiles, openFiles());
+
+		// An iteration run to the end closes the file by itself
+		Rows rows = workbook.streamRows("Data");
+		for (Row row : rows)
+		{
+			assertFalse(row.get("Key").isEmpty());
+		}
+		assertEquals(openFiles, openFiles());
+	}
+
+
+	@Test
+	public void aParseErrorReleasesTheFile() throws Exception
+	{
+		assumeTrue(new File("/proc/self/fd").isDirectory());
+		XlsxWorkbook workbook = new XlsxWorkbook(writeWorkbook("<worksheet><sheetData><row r=\"1\"><c><v>Key</v></c></row><row r=\"x\">"));
+		int openFiles = openFiles();
+
+		Iterator<Row> rows = workbook.streamRows("Data").iterator();
+		try
+		{
+			rows.next();
+			fail("The malformed row was read");
+		}
+		catch (NumberFormatException expected)
+		{
+		}
+		assertEquals(openFiles, openFiles());
+		assertFalse(rows.hasNext());
+	}
+
+
+	// Writes a workbook whose "Data" sheet part is dataSheet
+	private File writeWorkbook(String dataSheet) throws Exception
+	{
+		File file = folder.newFile("controller.xlsx");
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+		try
+		{
+			addPart(zip, "xl/workbook.xml", WORKBOOK);
+			addPart(zip, "xl/_rels/workbook.xml.rels", RELATIONSHIPS);
+			addPart(zip, "xl/sharedStrings.xml", SHARED_STRINGS);
+			addPart(zip, "xl/styles.xml", STYLES);
+			addPart(zip, "xl/worksheets/sheet1.xml", TEST_CASES);
+			addPart(zip, "xl/worksheets/sheet2.xml", dataSheet);
+		}
+		finally
+		{
+			zip.close();
+		}
+		return file;
+	}
+
+
+	private static void addPart(ZipOutputStream zip, String name, String xml) throws Exception
+	{
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(xml.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+
+
+	private static int openFiles()
+	{
+		return new File("/proc/self/fd").list().length;
+	}
+
+}
@@ -10,35 +10,44 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.util.List;
 
 import testscripts.DriverScript;
+import testscripts.ExecutionContext;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
 import util.TestUtil;
 
 public class ReportUtil extends DriverScript {
-    public static int scriptNumber = 1;
     public static String indexResultFilename;
     public static String currentDir;
-    public static String currentSuiteName;
-    public static int tcid;
     // public static String currentSuitePath;
 
     public static double passNumber;
     public static double failNumber;
-    public static boolean newTest = true;
-    public static ArrayList<String> description = new ArrayList<String>();;
-    public static ArrayList<String> keyword = new ArrayList<String>();;
-    public static ArrayList<String> teststatus = new ArrayList<String>();;
-    public static ArrayList<String> screenShotPath = new ArrayList<String>();;
+
+    // Step results of a test case are collected in its ExecutionContext; the
+    // index file and the numbering of the report below are shared, so they
+    // are only touched by the synchronized methods
+    private static int scriptNumber = 1;
+    private static String currentSuiteName;
+    private static int tcid;
 
     public static void startTesting(String filename, String testStartTime, String env, String rel, String browser,
 	    String testSiteUrl) {
+	startTesting(filename, testStartTime, env, rel, browser, testSiteUrl, true);
+    }
+
+    // A resumed run keeps the files of the report folder (screenshots,
+    // checkpoint) and only writes the index anew
+    public static synchronized void startTesting(String filename, String testStartTime, String env, String rel,
+	    String browser, String testSiteUrl, boolean clearReportFolder) {
 	indexResultFilename = filename;
 	currentDir = indexResultFilename.substring(0, indexResultFilename.lastIndexOf("/"));
 
 	// Clear Test Report folder
 	File dir = new File(currentDir);
-	File[] allFiles = dir.listFiles();
+	File[] allFiles = clearReportFolder ? dir.listFiles() : new File[0];
 	for (int i = 0; i < allFiles.length; i++) {
 	    allFiles[i].delete();
 	}
@@ -154,7 +163,7 @@ public class ReportUtil extends DriverScript {
 	}
     }
 
-    public static void startSuite(String suiteName) {
+    public static synchronized void startSuite(String suiteName) {
 
 	FileWriter fstream = null;
 	BufferedWriter out = null;
@@ -199,7 +208,7 @@ public class ReportUtil extends DriverScript {
 	}
     }
 
-    public static void endSuite() {
+    public static synchronized void endSuite() {
 	FileWriter fstream = null;
 	BufferedWriter out = null;
 
@@ -218,19 +227,38 @@ public class ReportUtil extends DriverScript {
 
     }
 
-    public static void addTestCase(String testCaseName, String testCaseStartTime, String testCaseEndTime,
-	    String status) {
+    // Reports a test case with the step results collected in the execution
+    // context of the current thread
+    public static synchronized void addTestCase(String testCaseName, String testCaseStartTime,
+	    String testCaseEndTime, String status) {
+
+	List<StepResult> stepResults = ExecutionContext.current().getStepResults();
+	addTestCase(testCaseName, testCaseStartTime, testCaseEndTime, status, stepResults);
+	stepResults.clear();
+    }
+
+    // Reports a test case finished by any thread, e.g. by a worker of a parallel
+    // run
+    public static synchronized void addTestCase(TestCaseResult result) {
+
+	addTestCase(result.getTestCaseName(), result.getStartTime(), result.getEndTime(), result.getStatus(),
+		result.getStepResults());
+    }
+
+    private static void addTestCase(String testCaseName, String testCaseStartTime, String testCaseEndTime,
+	    String status, List<StepResult> stepResults) {
 
-	newTest = true;
 	FileWriter fstream = null;
 	BufferedWriter out = null;
 
+	// A skipped test case has a keywords page only if it has steps, e.g. the
+	// reason it was skipped for
+	boolean skipped = status.equalsIgnoreCase("Skipped") || status.equalsIgnoreCase("Skip");
+	boolean detailPage = !skipped || (stepResults != null && !stepResults.isEmpty());
+
 	try {
-	    newTest = true;
 	    // build the keywords page
-	    if (status.equalsIgnoreCase("Skipped") || status.equalsIgnoreCase("Skip")) {
-
-	    } else {
+	    if (detailPage) {
 		File f = new File(currentDir + "//" + currentSuiteName + "_TC" + tcid + "_"
 			+ testCaseName.replaceAll(" ", "_") + ".html");
 		f.createNewFile();
@@ -259,34 +287,39 @@ public class ReportUtil extends DriverScript {
 		out.write(
 			"<td align=center width=15% align=center bgcolor=#153E7E><FONT COLOR=#E0E0E0 FACE=Arial SIZE=2><b>Screen Shot</b></td>");
 		out.write("</tr>");
-		if (description != null) {
-		    for (int i = 0; i < description.size(); i++) {
+		if (stepResults != null) {
+		    for (int i = 0; i < stepResults.size(); i++) {
+			StepResult stepResult = stepResults.get(i);
 			out.write("<tr> ");
 
 			out.write("<td align=center width=10%><FONT COLOR=#153E7E FACE=Arial SIZE=1><b>TS" + (i + 1)
 				+ "</b></td>");
 			out.write("<td align=center width=50%><FONT COLOR=#153E7E FACE=Arial SIZE=1><b>"
-				+ description.get(i) + "</b></td>");
+				+ stepResult.getDescription() + "</b></td>");
 			out.write("<td align=center width=10%><FONT COLOR=#153E7E FACE=Arial SIZE=1><b>"
-				+ keyword.get(i) + "</b></td>");
-			if (teststatus.get(i).startsWith("Pass"))
+				+ stepResult.getKeyword() + "</b></td>");
+			if (stepResult.getStatus().startsWith("Pass"))
 			    out.write(
 				    "<td width=20% align= center  bgcolor=#BCE954><FONT COLOR=#153E7E FACE=Arial SIZE=2><b>"
-					    + teststatus.get(i) + "</b></td>\n");
-			else if (teststatus.get(i).startsWith("Fail"))
+					    + stepResult.getStatus() + "</b></td>\n");
+			else if (stepResult.getStatus().startsWith("Fail"))
 			    out.write(
 				    "<td width=20% align= center  bgcolor=Red><FONT COLOR=#153E7E FACE= Arial  SIZE=2><b>"
-					    + teststatus.get(i) + "</b></td>\n");
+					    + stepResult.getStatus() + "</b></td>\n");
+			else if (stepResult.getStatus().startsWith("Skip"))
+			    out.write(
+				    "<td width=20% align= center  bgcolor=yellow><FONT COLOR=#153E7E FACE=Arial SIZE=2><b>"
+					    + stepResult.getStatus() + "</b></td>\n");
 
 			// out.write("<td align=center width=20%><FONT
 			// COLOR=#153E7E FACE=Arial
-			// SIZE=1><b>"+teststatus.get(i)+"</b></td>");
-			if (screenShotPath.get(i) != null)
+			// SIZE=1><b>"+stepResult.getStatus()+"</b></td>");
+			if (stepResult.getScreenShotPath() != null)
 			    out.write("<td align=center width=20%><FONT COLOR=#153E7E FACE=Arial SIZE=1><b><a href="
-				    + screenShotPath.get(i) + " target=_blank>Screen Shot</a></b></td>");
+				    + stepResult.getScreenShotPath() + " target=_blank>Screen Shot</a></b></td>");
 			// out.write("<td align=center width=20%><FONT
 			// COLOR=#153E7E FACE=Arial SIZE=1><b><a
-			// href=file///"+screenShotPath.get(i)+"
+			// href=file///"+stepResult.getScreenShotPath()+"
 			// target=_blank>Screen Shot</a></b></td>");
 			else
 			    out.write(
@@ -312,7 +345,7 @@ public class ReportUtil extends DriverScript {
 		    + "</b></td>\n");
 	    // System.out.println(currentDir + "//" + currentSuiteName + "_TC" +
 	    // tcid + "_" + testCaseName.replaceAll(" ", "_") + ".html");
-	    if (status.equalsIgnoreCase("Skipped") || status.equalsIgnoreCase("Skip"))
+	    if (!detailPage)
 		out.write("<td width=40% align= center ><FONT COLOR=#153E7E FACE= Arial  SIZE=2><b>" + testCaseName
 			+ "</b></td>\n");
 	    else
@@ -327,7 +360,7 @@ public class ReportUtil extends DriverScript {
 	    else if (status.startsWith("Fail"))
 		out.write("<td width=10% align= center  bgcolor=Red><FONT COLOR=#153E7E FACE= Arial  SIZE=2><b>"
 			+ status + "</b></td>\n");
-	    else if (status.equalsIgnoreCase("Skipped") || status.equalsIgnoreCase("Skip"))
+	    else if (skipped)
 		out.write("<td width=10% align= center  bgcolor=yellow><FONT COLOR=153E7E FACE=Arial SIZE=2><b>"
 			+ status + "</b></td>\n");
 
@@ -349,24 +382,15 @@ public class ReportUtil extends DriverScript {
 		e.printStackTrace();
 	    }
 	}
-
-	description = new ArrayList<String>();
-	keyword = new ArrayList<String>();
-	teststatus = new ArrayList<String>();
-	screenShotPath = new ArrayList<String>();
-	newTest = false;
     }
 
     public static void addKeyword(String desc, String key, String stat, String path) {
 
-	description.add(desc);
-	keyword.add(key);
-	teststatus.add(stat);
-	screenShotPath.add(path);
+	ExecutionContext.current().addStepResult(new StepResult(desc, key, stat, path));
 
     }
 
-    public static void updateEndTime(String endTime) {
+    public static synchronized void updateEndTime(String endTime) {
 	StringBuffer buf = new StringBuffer();
 	try {
 	    // Open the file that is the first
@@ -27,16 +27,33 @@ public class AmazonTest extends DriverScript {
     public static By locatorProductName = By.xpath(
 	    "//a[@class=\"a-link-normal sc-product-link\"]/span[contains(text(),\"Lancer Men's Black Formal Shoes-10 UK/India\")]");
 
-    public static Boolean ProductPageShot;
-    public static Boolean CartPageShot;
-
-    // Navigate to the App, search for a product, add to cart, take screenshot
+    // Navigate to the App, search for a product, add to cart, take screenshot.
+    // A data-driven run takes the product from the SearchTerm, ProductImage,
+    // Size and ProductName columns of its data row, the Lancer shoes are
+    // used for the columns it does not have
     public static String navigateToAmazonSearchForLancerShoesAddToCartAndTakeScreenshot()
 	    throws SQLException, InterruptedException, IOException {
 
 	APPLICATION_LOGS.debug(
 		"Executing test case : Navigate To Amazon, Search For Lancer Shoes, Add To Cart And Take a Screenshot");
 
+	String methodReturnResult = null;
+	boolean productPageShot = false;
+	boolean cartPageShot = false;
+
+	// Product of the data row
+	String searchTerm = getDataValue("SearchTerm", "Lancer Men's Formal Shoes");
+	String size = getDataValue("Size", "10 UK/India (44 EU)");
+	String productImage = getDataValue("ProductImage", "");
+	By locatorProduct = productImage.isEmpty() ? locatorLancerShoe
+		: By.xpath("//*[contains(@src,'" + productImage + "')]");
+	String productName = getDataValue("ProductName", "");
+	By locatorCartProduct = productName.isEmpty() ? locatorProductName
+		: By.xpath("//a[@class=\"a-link-normal sc-product-link\"]/span[contains(text(),\"" + productName + "\")]");
+
+	// Screenshots of every run of the test case are kept apart
+	String screenshotSuffix = "_TC" + context().getTcid() + "_" + context().getTestRepeat() + ".jpg";
+
 	// Navigate to the App
 	methodReturnResult = AmazonLibrary.navigateToAppWebsite();
 	if (methodReturnResult.contains(failTest)) {
@@ -46,8 +63,7 @@ public class AmazonTest extends DriverScript {
 	FunctionLibrary.waitForElementToLoad(locatorSearchField);
 
 	// input product name
-	methodReturnResult = FunctionLibrary.clearAndInput(locatorSearchField, "Search Field",
-		"Lancer Men's Formal Shoes");
+	methodReturnResult = FunctionLibrary.clearAndInput(locatorSearchField, "Search Field", searchTerm);
 	if (methodReturnResult.contains(failTest)) {
 	    return methodReturnResult;
 	}
@@ -59,37 +75,37 @@ public class AmazonTest extends DriverScript {
 	}
 
 	// assert page title
-	methodReturnResult = FunctionLibrary.assertTitle("Amazon.in: Lancer Men's Formal Shoes");
+	methodReturnResult = FunctionLibrary.assertTitle("Amazon.in: " + searchTerm);
 	if (methodReturnResult.contains(failTest)) {
 	    return methodReturnResult;
 	}
 
-	FunctionLibrary.waitForElementToLoad(locatorLancerShoe);
+	FunctionLibrary.waitForElementToLoad(locatorProduct);
 
 	// verify if element displayed
-	if (FunctionLibrary.isElementDisplayed(locatorLancerShoe, "Lancer Shoe")) {
-	    methodReturnResult = FunctionLibrary.clickAndWait(locatorLancerShoe, "Lancer Shoe");
+	if (FunctionLibrary.isElementDisplayed(locatorProduct, "Product")) {
+	    methodReturnResult = FunctionLibrary.clickAndWait(locatorProduct, "Product");
 	    if (methodReturnResult.contains(failTest)) {
 		return methodReturnResult;
 	    }
 	}
 
 	// switch tab
-	ArrayList<String> tabs2 = new ArrayList<String>(driver.getWindowHandles());
-	driver.switchTo().window(tabs2.get(1));
+	ArrayList<String> tabs2 = new ArrayList<String>(driver().getWindowHandles());
+	driver().switchTo().window(tabs2.get(1));
+	context().setCurrentWindowHandle(tabs2.get(1));
 
 	// take screenshot of product page
 	if (FunctionLibrary.isElementDisplayed(locatorShowSizeDropdown, "Shoe Size Dropdown")) {
 	    // Take screenshot of product page
-	    String fileName = "LancerMenFormalShoeProductPage.jpg";
+	    String fileName = "ProductPage" + screenshotSuffix;
 	    String path = screenshotPath + fileName;
 	    TestUtil.takeScreenShot(path);
-	    ProductPageShot = true;
+	    productPageShot = true;
 	}
 
 	// choose show size
-	methodReturnResult = FunctionLibrary.selectValueByVisibleText(locatorShowSizeDropdown, "10 UK/India (44 EU)",
-		"Shoe Size Dropdown");
+	methodReturnResult = FunctionLibrary.selectValueByVisibleText(locatorShowSizeDropdown, size, "Shoe Size Dropdown");
 	if (methodReturnResult.contains(failTest)) {
 	    return methodReturnResult;
 	}
@@ -121,12 +137,12 @@ public class AmazonTest extends DriverScript {
 	}
 
 	// take screenshot of product
-	if (FunctionLibrary.isElementDisplayed(locatorProductName, "Product")) {
+	if (FunctionLibrary.isElementDisplayed(locatorCartProduct, "Product")) {
 	    // Take screenshot of product page
-	    String fileName = "Cart.jpg";
+	    String fileName = "Cart" + screenshotSuffix;
 	    String path = screenshotPath + fileName;
 	    TestUtil.takeScreenShot(path);
-	    CartPageShot = true;
+	    cartPageShot = true;
 	}
 
 	Thread.sleep(5000);
@@ -135,7 +151,7 @@ public class AmazonTest extends DriverScript {
 	FunctionLibrary.closeDriver();
 
 	// verify if screenshots taken
-	if (ProductPageShot == true && CartPageShot == true) {
+	if (productPageShot && cartPageShot) {
 	    return "Pass: Product Screenshots can be found in reports folder";
 	}
 
@@ -1,26 +1,13 @@
 package testscripts;
 
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.concurrent.TimeUnit;
 
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxProfile;
-import org.openqa.selenium.firefox.internal.ProfilesIni;
-import org.openqa.selenium.ie.InternetExplorerDriver;
-import org.openqa.selenium.remote.DesiredCapabilities;
-import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 
 public class AmazonLibrary extends DriverScript {
 
-    // Stores current window handle
-    public static String currentWindowHandle;
-
-    // Store method return result
-    public static String methodReturnResult = null;
-
     // Site name
     public static String testSiteName = "Amazon.in";
 
@@ -42,81 +29,13 @@ public class AmazonLibrary extends DriverScript {
 	// Disable log messages
 	java.util.logging.Logger.getLogger("org.apache.http.impl.client").setLevel(java.util.logging.Level.WARNING);
 
-	if (wbdv == null) {
+	if (wbdv() == null) {
 
 	    try {
 
-		if (CONFIG.getProperty("is_remote").equals("true")) {
-
-		    // Generate Remote address
-		    String remote_address = "http://" + CONFIG.getProperty("remote_ip") + ":4444/wd/hub";
-		    remote_url = new URL(remote_address);
-
-		    if (CONFIG.getProperty("test_browser").contains("Internet Explorer")) {
-
-			dc = DesiredCapabilities.internetExplorer();
-			dc.setCapability("silent", true);
-
-		    }
-
-		    else {
-
-			ProfilesIni allProfiles = new ProfilesIni();
-			// FirefoxProfile profile =
-			// allProfiles.getProfile("default");
-			// profile.setPreference("plugins.hide_infobar_for_missing_plugin",
-			// true);
-			dc = DesiredCapabilities.firefox();
-			// dc.setCapability(FirefoxDriver.PROFILE, profile);
-			// dc.setJavascriptEnabled(true);
-
-		    }
-
-		    wbdv = new RemoteWebDriver(remote_url, dc);
-		    driver = new EventFiringWebDriver(wbdv);
-		    driver.manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
-
-		}
-
-		else {
-
-		    if (CONFIG.getProperty("test_browser").toLowerCase().contains("internet explorer")
-			    || CONFIG.getProperty("test_browser").toLowerCase().contains("ie")) {
-			dc = DesiredCapabilities.internetExplorer();
-			dc.setCapability("silent", true);
-			dc.setCapability(InternetExplorerDriver.INTRODUCE_FLAKINESS_BY_IGNORING_SECURITY_DOMAINS, true);
-			wbdv = new InternetExplorerDriver(dc);
-			driver = new EventFiringWebDriver(wbdv);
-		    }
-
-		    else if (CONFIG.getProperty("test_browser").toLowerCase().contains("firefox")
-			    || CONFIG.getProperty("test_browser").toLowerCase().contains("ff")) {
-
-			ProfilesIni allProfiles = new ProfilesIni();
-			FirefoxProfile profile = allProfiles.getProfile("default");
-			profile.setAcceptUntrustedCertificates(true);
-			profile.setAssumeUntrustedCertificateIssuer(false);
-			wbdv = new FirefoxDriver(profile);
-			driver = new EventFiringWebDriver(wbdv);
-
-		    }
-
-		    else if (CONFIG.getProperty("test_browser").toLowerCase().contains("safari")) {
-
-			dc = DesiredCapabilities.safari();
-
-		    }
-
-		    else if (CONFIG.getProperty("test_browser").toLowerCase().contains("chrome")) {
-			// Edit the path to your chrome driver in your system below!
-			System.setProperty("chromedriver", "D:\\AllAutomationSetup\\BrowserDrivers\\chromedriver.exe");
-			dc = DesiredCapabilities.chrome();
-			wbdv = new ChromeDriver(dc);
-			driver = new EventFiringWebDriver(wbdv);
-
-		    }
-
-		}
+		// Take a warm session from the pool, launching one if none is left
+		WebDriver wbdv = SessionPool.acquire();
+		context().setDriver(wbdv, new EventFiringWebDriver(wbdv));
 
 	    }
 
@@ -137,13 +56,13 @@ public class AmazonLibrary extends DriverScript {
 	try {
 
 	    // Implicitly wait for 30 seconds for browser to open
-	    driver.manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
+	    driver().manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
 
 	    // Delete all browser cookies
-	    driver.manage().deleteAllCookies();
+	    driver().manage().deleteAllCookies();
 
 	    // Navigate to Curaspan application
-	    driver.navigate().to(CONFIG.getProperty("testSiteURL"));
+	    driver().navigate().to(CONFIG.getProperty("testSiteURL"));
 
 	    // Maximize browser window
 	    // driver.manage().window().maximize();
@@ -151,19 +70,17 @@ public class AmazonLibrary extends DriverScript {
 	    // Handle certificate error
 	    if (CONFIG.getProperty("test_browser").contains("Internet Explorer")) {
 
-		if (driver.getTitle().contains(navigationBlockedTitle)) {
+		if (driver().getTitle().contains(navigationBlockedTitle)) {
 
-		    driver.navigate().to("javaScript:document.getElementById('overridelink').click()");
+		    driver().navigate().to("javaScript:document.getElementById('overridelink').click()");
 
 		    FunctionLibrary.waitForPageToLoad();
 
 		}
 	    }
 
-	    // Maximize browser window
-	    APPLICATION_LOGS.debug("Maximizing Browser window...");
-	    driver.manage().window().maximize();
-	    APPLICATION_LOGS.debug("Browser window is maximized");
+	    // Browser window is maximized once, when the browser is launched
+	    // (see SessionPool.createBrowser())
 	    //
 	    // if (CONFIG.getProperty("test_browser").contains("Firefox")) {
 	    // WebElement html = driver.findElement(By.tagName("html"));
@@ -181,8 +98,8 @@ public class AmazonLibrary extends DriverScript {
 	Thread.sleep(3000L);
 
 	// Verify Login page appears
-	expectedTitle = appLoginPageTitle;
-	methodReturnResult = FunctionLibrary.assertTitle(expectedTitle);
+	String expectedTitle = appLoginPageTitle;
+	String methodReturnResult = FunctionLibrary.assertTitle(expectedTitle);
 	if (methodReturnResult.contains(failTest)) {
 
 	    // Log result
@@ -192,6 +109,9 @@ public class AmazonLibrary extends DriverScript {
 
 	}
 
+	// Stores current window handle
+	context().setCurrentWindowHandle(driver().getWindowHandle());
+
 	APPLICATION_LOGS.debug("Navigated to the test site - " + testSiteName);
 	return "Pass : Navigated to the test site - " + testSiteName;
 
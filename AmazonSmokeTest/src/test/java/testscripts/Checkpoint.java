@@ -0,0 +1,207 @@
+package testscripts;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import datatable.Row;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+/*
+ * Checkpoint is an append-only file in the Report folder recording every
+ * test case of the suite once all its runs are finished, with their step
+ * results, in the lines of the ShardProtocol :
+ *
+ * CASE   <controller row> <TCID>
+ * STEP   ...  and  RESULT ...  of each run of the test case
+ * DONE   <controller row> <milliseconds>
+ *
+ * A resumed run (--resume or -Dresume=true) reads it back, reports the
+ * completed test cases from it and runs only the others. A test case
+ * without its DONE line, e.g. cut by a crash, counts as not run; so does one
+ * whose controller row now holds another TCID. Test cases skipped because
+ * the suite was aborted are not recorded, the resumed run runs them.
+ */
+
+public class Checkpoint {
+
+    public static final String CASE = "CASE";
+
+    // Results of the completed test cases by controller row
+    private final Map<Integer, List<TestCaseResult>> completed = new HashMap<Integer, List<TestCaseResult>>();
+    private final Map<Integer, String> completedTcids = new HashMap<Integer, String>();
+
+    private final Writer out;
+
+    private Checkpoint(Writer out) {
+	this.out = out;
+    }
+
+    /*
+     * public static Checkpoint open(String path, boolean resume) method
+     * specification :-
+     *
+     * 1) Opens the checkpoint file at path for appending 2) With resume, first
+     * reads the test cases completed by the interrupted run 3) Without,
+     * starts an empty checkpoint
+     *
+     * @param : Path of the checkpoint file, true to resume the run recorded in
+     * it
+     *
+     * @return : The open checkpoint
+     */
+
+    public static Checkpoint open(String path, boolean resume) throws IOException {
+
+	File file = new File(path);
+	Map<Integer, List<TestCaseResult>> previous = new HashMap<Integer, List<TestCaseResult>>();
+	Map<Integer, String> previousTcids = new HashMap<Integer, String>();
+
+	if (resume && file.isFile()) {
+	    read(file, previous, previousTcids);
+	} else if (file.isFile() && !file.delete()) {
+	    throw new IOException("Cannot delete the checkpoint file " + path);
+	}
+
+	Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+	if (endsWithTornLine(file)) {
+	    out.write('\n');
+	}
+	Checkpoint checkpoint = new Checkpoint(out);
+	checkpoint.completed.putAll(previous);
+	checkpoint.completedTcids.putAll(previousTcids);
+	return checkpoint;
+    }
+
+    // Results of the test case if the checkpoint has it completed, null
+    // otherwise
+    public synchronized List<TestCaseResult> getCompleted(Row testCase) {
+
+	String tcid = completedTcids.get(testCase.getRowNum());
+	if (tcid == null || !tcid.equals(testCase.get("TCID").trim())) {
+	    return null;
+	}
+	return completed.get(testCase.getRowNum());
+    }
+
+    /*
+     * public synchronized void record(Row testCase, long durationMillis,
+     * List<TestCaseResult> results) method specification :-
+     *
+     * 1) Appends the test case and the step results of its runs to the file
+     * and flushes it 2) The lines of one test case are written together, test
+     * cases finished by several threads do not interleave
+     *
+     * @param : Row of the test case in the controller, time its runs took,
+     * results of its runs
+     */
+
+    public synchronized void record(Row testCase, long durationMillis, List<TestCaseResult> results)
+	    throws IOException {
+
+	String rowNum = String.valueOf(testCase.getRowNum());
+	ShardProtocol.send(out, CASE, rowNum, testCase.get("TCID").trim());
+
+	for (TestCaseResult result : results) {
+	    for (StepResult step : result.getStepResults()) {
+		ShardProtocol.send(out, ShardProtocol.STEP, step.getDescription(), step.getKeyword(), step.getStatus(),
+			step.getScreenShotPath());
+	    }
+	    ShardProtocol.send(out, ShardProtocol.RESULT, result.getTestCaseName(), result.getStartTime(),
+		    result.getEndTime(), result.getStatus());
+	}
+
+	ShardProtocol.send(out, ShardProtocol.DONE, rowNum, String.valueOf(durationMillis));
+
+	completed.put(testCase.getRowNum(), new ArrayList<TestCaseResult>(results));
+	completedTcids.put(testCase.getRowNum(), testCase.get("TCID").trim());
+    }
+
+    public synchronized void close() throws IOException {
+	out.close();
+    }
+
+    // true if the last line of the file was cut, the next line must not be
+    // appended to it
+    private static boolean endsWithTornLine(File file) throws IOException {
+
+	RandomAccessFile checkpointFile = new RandomAccessFile(file, "r");
+	try {
+	    long length = checkpointFile.length();
+	    if (length == 0) {
+		return false;
+	    }
+	    checkpointFile.seek(length - 1);
+	    return checkpointFile.read() != '\n';
+	} finally {
+	    checkpointFile.close();
+	}
+    }
+
+    // Reads the completed test cases of the file
+    private static void read(File file, Map<Integer, List<TestCaseResult>> completed,
+	    Map<Integer, String> completedTcids) throws IOException {
+
+	BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+
+	try {
+	    String row = null;
+	    String tcid = null;
+	    List<StepResult> steps = new ArrayList<StepResult>();
+	    List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+	    String line;
+
+	    while ((line = in.readLine()) != null) {
+
+		List<String> message = ShardProtocol.parse(line);
+		String type = message.get(0);
+
+		if (type.equals(CASE) && message.size() == 3) {
+		    row = message.get(1);
+		    tcid = message.get(2);
+		    steps = new ArrayList<StepResult>();
+		    results = new ArrayList<TestCaseResult>();
+		}
+
+		else if (type.equals(ShardProtocol.STEP) && message.size() == 5) {
+		    String screenShotPath = message.get(4).isEmpty() ? null : message.get(4);
+		    steps.add(new StepResult(message.get(1), message.get(2), message.get(3), screenShotPath));
+		}
+
+		else if (type.equals(ShardProtocol.RESULT) && message.size() == 5) {
+		    results.add(new TestCaseResult(message.get(1), message.get(2), message.get(3), message.get(4),
+			    steps));
+		    steps = new ArrayList<StepResult>();
+		}
+
+		// Only a complete DONE line of the test case being read
+		// completes it
+		else if (type.equals(ShardProtocol.DONE) && message.size() == 3 && message.get(1).equals(row)) {
+		    completed.put(Integer.valueOf(row), results);
+		    completedTcids.put(Integer.valueOf(row), tcid);
+		    row = null;
+		}
+	    }
+	}
+
+	finally {
+	    in.close();
+	}
+    }
+
+}
@@ -0,0 +1,181 @@
+package testscripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import datatable.DataSources;
+import datatable.Row;
+import datatable.Rows;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // No. of controllers written by plan()
+    private int controllers = 0;
+
+    @Test
+    public void aResumedRunGetsTheCompletedTestCasesBack() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search");
+	String path = new File(folder.getRoot(), "checkpoint.txt").getPath();
+
+	Checkpoint checkpoint = Checkpoint.open(path, false);
+	checkpoint.record(plan.get(0), 1200, Arrays.asList(result("Login", "Pass", "Open\tthe site", null),
+		result("Login - Users row 2", "Fail", "Log in", "Suite1_TC1_TS2.jpg")));
+	checkpoint.close();
+
+	Checkpoint resumed = Checkpoint.open(path, true);
+	List<TestCaseResult> completed = resumed.getCompleted(plan.get(0));
+	resumed.close();
+
+	assertEquals(2, completed.size());
+	assertEquals("Login - Users row 2", completed.get(1).getTestCaseName());
+	assertEquals("Fail", completed.get(1).getStatus());
+	assertEquals("Open\tthe site", completed.get(0).getStepResults().get(0).getDescription());
+	assertNull(completed.get(0).getStepResults().get(0).getScreenShotPath());
+	assertEquals("Suite1_TC1_TS2.jpg", completed.get(1).getStepResults().get(0).getScreenShotPath());
+	assertNull(resumed.getCompleted(plan.get(1)));
+    }
+
+    @Test
+    public void aTestCaseCutBeforeItsDoneLineIsRunAgain() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search");
+	File file = new File(folder.getRoot(), "checkpoint.txt");
+
+	Checkpoint checkpoint = Checkpoint.open(file.getPath(), false);
+	checkpoint.record(plan.get(0), 1200, Arrays.asList(result("Login", "Pass", "Open the site", null)));
+	checkpoint.close();
+
+	// The run crashed while writing the first line of the second test case
+	append(file, "CASE\t2\tSea");
+
+	Checkpoint resumed = Checkpoint.open(file.getPath(), true);
+	assertEquals(1, resumed.getCompleted(plan.get(0)).size());
+	assertNull(resumed.getCompleted(plan.get(1)));
+
+	// The next line does not end up in the torn one
+	resumed.record(plan.get(1), 800, Arrays.asList(result("Search", "Pass", "Search", null)));
+	resumed.close();
+
+	Checkpoint again = Checkpoint.open(file.getPath(), true);
+	again.close();
+	assertEquals("Pass", again.getCompleted(plan.get(1)).get(0).getStatus());
+	assertEquals(1, again.getCompleted(plan.get(0)).size());
+    }
+
+    @Test
+    public void testCasesSkippedByAnAbortedSuiteAreRunAgain() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login", "Help,", "Orders,Help", "Logout,",
+		"Cart,Logout");
+	String path = new File(folder.getRoot(), "checkpoint.txt").getPath();
+	DependencyGraph graph = DependencyGraph.build(plan);
+	graph.start(plan);
+	Map<Row, List<TestCaseResult>> finished = new HashMap<Row, List<TestCaseResult>>();
+
+	DriverScript.history = TestHistory.load(new File(folder.getRoot(), "history.properties").getPath());
+	DriverScript.checkpoint = Checkpoint.open(path, false);
+	try {
+	    graph.pollReady();
+	    graph.pollReady();
+	    graph.finish(plan.get(0), Arrays.asList(result("Login", "Fail", "Log in", null)));
+	    DriverScript.takeSkipped(graph, finished);
+
+	    // Help aborts the suite while Orders waits for it
+	    graph.skipPending("Suite aborted, Help failed");
+	    DriverScript.takeSkipped(graph, finished);
+	} finally {
+	    DriverScript.checkpoint.close();
+	    DriverScript.checkpoint = null;
+	    DriverScript.history = null;
+	}
+	assertEquals(4, finished.size());
+
+	Checkpoint resumed = Checkpoint.open(path, true);
+	resumed.close();
+	assertEquals("Skip", resumed.getCompleted(plan.get(1)).get(0).getStatus());
+	assertNull(resumed.getCompleted(plan.get(3)));
+	assertNull(resumed.getCompleted(plan.get(4)));
+	assertNull(resumed.getCompleted(plan.get(5)));
+    }
+
+    @Test
+    public void aRowHoldingAnotherTestCaseIsNotCompleted() throws Exception {
+
+	String path = new File(folder.getRoot(), "checkpoint.txt").getPath();
+
+	Checkpoint checkpoint = Checkpoint.open(path, false);
+	checkpoint.record(plan("TCID", "Login").get(0), 1200, Arrays.asList(result("Login", "Pass", "Open", null)));
+	checkpoint.close();
+
+	// The controller was edited between the runs
+	Checkpoint resumed = Checkpoint.open(path, true);
+	resumed.close();
+	assertNull(resumed.getCompleted(plan("TCID", "Logout").get(0)));
+    }
+
+    @Test
+    public void aRunNotResumedStartsAnEmptyCheckpoint() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login");
+	String path = new File(folder.getRoot(), "checkpoint.txt").getPath();
+
+	Checkpoint checkpoint = Checkpoint.open(path, false);
+	checkpoint.record(plan.get(0), 1200, Arrays.asList(result("Login", "Pass", "Open", null)));
+	checkpoint.close();
+
+	Checkpoint fresh = Checkpoint.open(path, false);
+	fresh.close();
+	assertNull(fresh.getCompleted(plan.get(0)));
+	assertNull(Checkpoint.open(path, true).getCompleted(plan.get(0)));
+    }
+
+    // Rows of a controller sheet, a header line and one line per test case
+    private List<Row> plan(String... lines) throws Exception {
+
+	String sheetName = "controller" + (++controllers);
+	File controller = new File(folder.getRoot(), sheetName + ".csv");
+	Files.write(controller.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = DataSources.open(controller.getPath(), 0).rows(sheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+	    }
+	}
+	return plan;
+    }
+
+    private static TestCaseResult result(String name, String status, String step, String screenShotPath) {
+
+	List<StepResult> steps = new ArrayList<StepResult>();
+	steps.add(new StepResult(step, "keyword", status + " : " + step, screenShotPath));
+	return new TestCaseResult(name, "start", "end", status, steps);
+    }
+
+    private static void append(File file, String lines) throws Exception {
+	Files.write(file.toPath(), lines.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+}
@@ -0,0 +1,485 @@
+package testscripts;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import datatable.DataSource;
+import datatable.Row;
+import datatable.Rows;
+import datatable.XlsReader;
+import reports.ReportUtil;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+import util.TestUtil;
+
+//All Hail Automation !
+
+/*
+ * Coordinator runs the test plan on several worker JVMs of this host, for
+ * packs too big for the threads of one JVM.
+ *
+ * 1) The Runmode=Y test cases are split into shard_workers shards, by hash
+ * of their TCID (the same split every run) or balanced by the durations of
+ * past runs (shard_policy in config.properties) 2) Every shard is run by a
+ * ShardWorker JVM, which streams its results back over a local socket (see
+ * ShardProtocol) and starts them in the order of schedule_policy (see
+ * TestScheduler) 3) The coordinator writes the one HTML report, in plan
+ * order, and keeps the durations and outcomes in the TestHistory 4) The
+ * Excel cell updates of the workers are forwarded to the coordinator, the
+ * only process writing the workbooks
+ *
+ * With is_remote=true the browsers of the workers are launched on the
+ * Selenium grid at remote_ip, the workers themselves run on this host.
+ *
+ * A run cut short can be resumed (--resume) : the test cases in its
+ * checkpoint are reported from it, only the others are sharded again.
+ *
+ * Test cases linked by DependsOn (see DependencyGraph) are put in the same
+ * shard, its worker runs them in dependency order. Those whose prerequisite
+ * is not run or was completed without passing are skipped up front. A
+ * test case with OnFail AbortSuite aborts the shard it runs in, the other
+ * workers go on.
+ *
+ * Run from the AmazonSmokeTest folder : java testscripts.Coordinator
+ * [--resume]
+ */
+
+public class Coordinator extends DriverScript {
+
+    // Time a worker that exited is given to deliver its last results
+    public static final long WORKER_DRAIN_SECONDS = 10;
+
+    // Results of every Runmode=Y test case by controller row, complete once
+    // its worker is done with it
+    private static final Map<Integer, CompletableFuture<List<TestCaseResult>>> pending = new HashMap<Integer, CompletableFuture<List<TestCaseResult>>>();
+
+    // Test cases of the plan by controller row
+    private static final Map<Integer, Row> planRows = new HashMap<Integer, Row>();
+
+    // Shards being run by number
+    private static final Map<Integer, Shard> shards = new ConcurrentHashMap<Integer, Shard>();
+
+    public static void main(String[] args) throws Exception {
+
+	resume = Arrays.asList(args).contains("--resume");
+	loadConfig();
+	openDataSources();
+	firstSheetName = controller.getFirstSheetname();
+
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = controller.rows(firstSheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+		planRows.put(testCase.getRowNum(), testCase);
+	    }
+	}
+
+	// Reject unknown keywords, dependencies and OnFail policies before any
+	// worker is started
+	keywords.validate(controller, plan);
+	DependencyGraph.validate(plan);
+	for (Row testCase : plan) {
+	    onFail(testCase);
+	}
+
+	startReport();
+	checkpoint = Checkpoint.open(checkpointPath(), resume);
+
+	// Test cases to run, those the checkpoint has completed are only
+	// reported
+	DependencyGraph graph = DependencyGraph.build(plan);
+	List<Row> runnable = new ArrayList<Row>();
+	for (Row testCase : plan) {
+	    if (testCase.get("Runmode").equals("Y")) {
+		List<TestCaseResult> completed = checkpoint.getCompleted(testCase);
+		if (completed != null) {
+		    pending.put(testCase.getRowNum(), CompletableFuture.completedFuture(completed));
+		    graph.finish(testCase, completed);
+		} else {
+		    runnable.add(testCase);
+		    pending.put(testCase.getRowNum(), new CompletableFuture<List<TestCaseResult>>());
+		}
+	    } else {
+		graph.finish(testCase, new ArrayList<TestCaseResult>());
+	    }
+	}
+
+	// Dependents of test cases not run or not passed are not sharded
+	graph.start(runnable);
+	for (Map.Entry<Row, List<TestCaseResult>> skipped : graph.takeSkipped().entrySet()) {
+	    runnable.remove(skipped.getKey());
+	    checkpoint.record(skipped.getKey(), 0, skipped.getValue());
+	    pending.get(skipped.getKey().getRowNum()).complete(skipped.getValue());
+	}
+
+	int workers = Math.max(1, Integer.parseInt(CONFIG.getProperty("shard_workers", "2").trim()));
+	String policy = CONFIG.getProperty("shard_policy", "hash").trim();
+
+	List<List<Row>> split;
+	if (policy.equalsIgnoreCase("hash")) {
+	    split = shardByHash(runnable, workers);
+	} else if (policy.equalsIgnoreCase("duration")) {
+	    split = shardByDuration(runnable, workers, history);
+	} else {
+	    throw new IllegalArgumentException("Unknown shard_policy '" + policy + "', expected hash or duration");
+	}
+
+	ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	acceptWorkers(server);
+
+	for (int i = 0; i < split.size(); i++) {
+	    if (!split.get(i).isEmpty()) {
+		// Each worker starts its test cases in schedule order
+		Shard shard = new Shard(i + 1, TestScheduler.schedule(split.get(i), schedulePolicy, history));
+		shards.put(shard.number, shard);
+		startWorker(server.getLocalPort(), shard);
+	    }
+	}
+	APPLICATION_LOGS.debug("Running " + runnable.size() + " test cases on " + shards.size() + " workers");
+
+	// Report in plan order, waiting for the workers
+	ReportUtil.startSuite(firstSheetName);
+	for (Row testCase : plan) {
+
+	    String currentTest = testCase.get("TCID").trim();
+	    CompletableFuture<List<TestCaseResult>> results = pending.get(testCase.getRowNum());
+
+	    if (results == null) {
+		APPLICATION_LOGS.debug("Skipping the test : " + currentTest);
+		ReportUtil.addTestCase(new TestCaseResult(currentTest, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"),
+			TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), "Skip", new ArrayList<StepResult>()));
+		continue;
+	    }
+
+	    for (TestCaseResult result : results.get()) {
+		ReportUtil.addTestCase(result);
+	    }
+	}
+	ReportUtil.endSuite();
+	checkpoint.close();
+
+	// Also writes the history
+	endScript();
+	server.close();
+	System.exit(0);
+    }
+
+    /*
+     * public static List<List<Row>> shardByHash(List<Row> testCases, int
+     * workers) method specification :-
+     *
+     * 1) Puts every test case into shard (hash of its TCID) mod workers, test
+     * cases linked by DependsOn into the shard of the first of them 2) A test
+     * case stays in the same shard from run to run, whatever the other test
+     * cases
+     *
+     * @param : Test cases to split, no. of shards
+     *
+     * @return : The shards, test cases in plan order
+     */
+
+    public static List<List<Row>> shardByHash(List<Row> testCases, int workers) {
+
+	List<List<Row>> split = emptyShards(workers);
+	for (List<Row> linked : DependencyGraph.build(testCases).components()) {
+	    split.get(Math.floorMod(linked.get(0).get("TCID").trim().hashCode(), workers)).addAll(linked);
+	}
+
+	// In plan order
+	for (List<Row> shard : split) {
+	    sortByRow(shard);
+	}
+	return split;
+    }
+
+    /*
+     * public static List<List<Row>> shardByDuration(List<Row> testCases, int
+     * workers, TestHistory history) method specification :-
+     *
+     * 1) Hands out the test cases longest first, each to the shard with the
+     * least work so far 2) Test cases linked by DependsOn go together, as
+     * long as their durations added up 3) A test case that never ran counts
+     * as long as the average of those that did
+     *
+     * @param : Test cases to split, no. of shards, durations of past runs
+     *
+     * @return : The shards, test cases in plan order
+     */
+
+    public static List<List<Row>> shardByDuration(List<Row> testCases, int workers, TestHistory history) {
+
+	Map<Row, Long> durations = TestScheduler.estimateDurations(testCases, history);
+
+	// Duration of every set of linked test cases
+	List<List<Row>> longestFirst = DependencyGraph.build(testCases).components();
+	final Map<List<Row>, Long> linkedDurations = new HashMap<List<Row>, Long>();
+	for (List<Row> linked : longestFirst) {
+	    long duration = 0;
+	    for (Row testCase : linked) {
+		duration += durations.get(testCase);
+	    }
+	    linkedDurations.put(linked, duration);
+	}
+	Collections.sort(longestFirst, new Comparator<List<Row>>() {
+	    public int compare(List<Row> a, List<Row> b) {
+		return Long.compare(linkedDurations.get(b), linkedDurations.get(a));
+	    }
+	});
+
+	List<List<Row>> split = emptyShards(workers);
+	long[] load = new long[workers];
+	for (List<Row> linked : longestFirst) {
+	    int least = 0;
+	    for (int i = 1; i < workers; i++) {
+		if (load[i] < load[least]) {
+		    least = i;
+		}
+	    }
+	    split.get(least).addAll(linked);
+	    load[least] += linkedDurations.get(linked);
+	}
+
+	// In plan order, until scheduled
+	for (List<Row> shard : split) {
+	    sortByRow(shard);
+	}
+	return split;
+    }
+
+    private static void sortByRow(List<Row> testCases) {
+
+	Collections.sort(testCases, new Comparator<Row>() {
+	    public int compare(Row a, Row b) {
+		return Integer.compare(a.getRowNum(), b.getRowNum());
+	    }
+	});
+    }
+
+    private static List<List<Row>> emptyShards(int workers) {
+
+	List<List<Row>> split = new ArrayList<List<Row>>();
+	for (int i = 0; i < workers; i++) {
+	    split.add(new ArrayList<Row>());
+	}
+	return split;
+    }
+
+    // Starts the worker JVM of the shard, with the class path of this one
+    private static void startWorker(int port, final Shard shard) throws IOException {
+
+	List<String> command = new ArrayList<String>();
+	command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+	for (String jvmArg : CONFIG.getProperty("shard_jvm_args", "").trim().split("\\s+")) {
+	    if (!jvmArg.isEmpty()) {
+		command.add(jvmArg);
+	    }
+	}
+	command.add("-cp");
+	command.add(System.getProperty("java.class.path"));
+	command.add(ShardWorker.class.getName());
+	command.add(String.valueOf(port));
+	command.add(String.valueOf(shard.number));
+	for (Row testCase : shard.rows) {
+	    command.add(String.valueOf(testCase.getRowNum()));
+	}
+
+	final Process process = new ProcessBuilder(command).directory(new File(System.getProperty("user.dir")))
+		.inheritIO().start();
+
+	// A worker that dies fails the test cases it did not finish
+	Thread monitor = new Thread(new Runnable() {
+	    public void run() {
+		try {
+		    int exitValue = process.waitFor();
+		    shard.closed.await(WORKER_DRAIN_SECONDS, TimeUnit.SECONDS);
+		    failUnfinished(shard, "Worker of shard " + shard.number + " exited (" + exitValue
+			    + ") before finishing the test case");
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	}, "shard-monitor-" + shard.number);
+	monitor.setDaemon(true);
+	monitor.start();
+    }
+
+    // Reads the results of every worker connecting to the server
+    private static void acceptWorkers(final ServerSocket server) {
+
+	Thread acceptor = new Thread(new Runnable() {
+	    public void run() {
+		while (!server.isClosed()) {
+		    try {
+			final Socket socket = server.accept();
+			Thread reader = new Thread(new Runnable() {
+			    public void run() {
+				readResults(socket);
+			    }
+			}, "shard-reader");
+			reader.setDaemon(true);
+			reader.start();
+		    } catch (IOException e) {
+			if (!server.isClosed()) {
+			    APPLICATION_LOGS.debug("Error came while accepting a worker : " + e.getMessage());
+			}
+		    }
+		}
+	    }
+	}, "shard-acceptor");
+	acceptor.setDaemon(true);
+	acceptor.start();
+    }
+
+    /*
+     * private static void readResults(Socket socket) method specification :-
+     *
+     * 1) Reads the messages of one worker until it disconnects 2) Collects the
+     * step and test case results of every controller row and completes the
+     * row on DONE 3) Fails the rows of the shard left unfinished when the
+     * worker disconnects
+     *
+     * @param : Connection of the worker
+     */
+
+    private static void readResults(Socket socket) {
+
+	Shard shard = null;
+
+	try {
+	    BufferedReader in = new BufferedReader(
+		    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+	    List<StepResult> steps = new ArrayList<StepResult>();
+	    List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+	    String line;
+
+	    while ((line = in.readLine()) != null) {
+
+		List<String> message = ShardProtocol.parse(line);
+		String type = message.get(0);
+
+		if (type.equals(ShardProtocol.HELLO)) {
+		    shard = shards.get(Integer.valueOf(message.get(1)));
+		}
+
+		else if (type.equals(ShardProtocol.STEP)) {
+		    String screenShotPath = message.get(4).isEmpty() ? null : message.get(4);
+		    steps.add(new StepResult(message.get(1), message.get(2), message.get(3), screenShotPath));
+		    APPLICATION_LOGS.debug("Shard " + (shard == null ? "?" : shard.number) + " : " + message.get(2)
+			    + " - " + message.get(3));
+		}
+
+		else if (type.equals(ShardProtocol.RESULT)) {
+		    results.add(new TestCaseResult(message.get(1), message.get(2), message.get(3), message.get(4),
+			    steps));
+		    steps = new ArrayList<StepResult>();
+		}
+
+		else if (type.equals(ShardProtocol.WRITE)) {
+		    writeCell(message);
+		}
+
+		else if (type.equals(ShardProtocol.DONE)) {
+		    int rowNum = Integer.parseInt(message.get(1));
+		    Row testCase = planRows.get(rowNum);
+		    long durationMillis = Long.parseLong(message.get(2));
+		    // A test case skipped by an aborted suite is left to the
+		    // resumed run
+		    if (message.size() < 4 || !message.get(3).equals(ShardProtocol.ABORTED)) {
+			history.recordRun(testCase.get("TCID").trim(), durationMillis, results);
+			checkpoint.record(testCase, durationMillis, results);
+		    }
+		    pending.get(rowNum).complete(results);
+		    results = new ArrayList<TestCaseResult>();
+		}
+	    }
+	}
+
+	catch (Throwable readException) {
+	    APPLICATION_LOGS.debug("Error came while reading the results of a worker : " + readException.getMessage());
+	}
+
+	finally {
+	    try {
+		socket.close();
+	    } catch (IOException e) {
+		// Already closed by the worker
+	    }
+	    if (shard != null) {
+		failUnfinished(shard, "Worker of shard " + shard.number + " disconnected before finishing the test case");
+		shard.closed.countDown();
+	    }
+	}
+    }
+
+    // Writes a cell update forwarded by a worker into the controller or
+    // testData, flushed like the updates of a run in one JVM
+    private static void writeCell(List<String> message) {
+
+	String path = message.get(1);
+	DataSource workbook = path.equals(controller.getPath()) ? controller
+		: path.equals(testData.getPath()) ? testData : null;
+
+	try {
+	    if (!(workbook instanceof XlsReader)) {
+		throw new IllegalArgumentException("no workbook of the run at " + path);
+	    }
+	    ((XlsReader) workbook).writeIntoExcel(message.get(2), Integer.parseInt(message.get(3)),
+		    Integer.parseInt(message.get(4)), message.get(5));
+	} catch (Exception writeException) {
+	    APPLICATION_LOGS.debug("Error came while writing a cell update of a worker : " + writeException.getMessage());
+	}
+    }
+
+    // Completes the test cases of the shard its worker did not finish as
+    // failed
+    private static void failUnfinished(Shard shard, String reason) {
+
+	for (Row testCase : shard.rows) {
+
+	    CompletableFuture<List<TestCaseResult>> results = pending.get(testCase.getRowNum());
+	    if (results.isDone()) {
+		continue;
+	    }
+
+	    List<StepResult> steps = new ArrayList<StepResult>();
+	    steps.add(new StepResult(reason, "-", "Fail : " + reason, null));
+	    String now = TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa");
+	    results.complete(Collections.singletonList(
+		    new TestCaseResult(testCase.get("TCID").trim(), now, now, "Fail", steps)));
+	}
+    }
+
+    // Test cases of one worker
+    private static class Shard {
+
+	final int number;
+	final List<Row> rows;
+
+	// Counted down once the connection of the worker is closed
+	final CountDownLatch closed = new CountDownLatch(1);
+
+	Shard(int number, List<Row> rows) {
+	    this.number = number;
+	    this.rows = rows;
+	}
+
+    }
+
+}
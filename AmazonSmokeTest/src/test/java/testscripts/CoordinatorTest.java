@@ -0,0 +1,136 @@
+package testscripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import datatable.DataSources;
+import datatable.Row;
+import datatable.Rows;
+
+//All Hail Automation !
+
+public class CoordinatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // No. of controllers written by plan()
+    private int controllers = 0;
+
+    @Test
+    public void hashShardsAreStableAndKeepLinkedTestCasesTogether() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login", "Checkout,Search", "Help,", "Logout,",
+		"Profile,", "Orders,");
+	List<List<Row>> shards = Coordinator.shardByHash(plan, 3);
+
+	assertEquals(3, shards.size());
+	assertEquals(plan.size(), size(shards));
+	List<Row> withLogin = shardOf(shards, "Login");
+	assertTrue(withLogin.contains(plan.get(1)) && withLogin.contains(plan.get(2)));
+	for (List<Row> shard : shards) {
+	    assertInPlanOrder(shard);
+	}
+
+	// A test case stays in its shard whatever the other test cases
+	List<Row> fewer = plan("TCID,DependsOn", "Orders,", "Help,");
+	List<List<Row>> fewerShards = Coordinator.shardByHash(fewer, 3);
+	assertEquals(shards.indexOf(shardOf(shards, "Orders")), fewerShards.indexOf(shardOf(fewerShards, "Orders")));
+	assertEquals(shards.indexOf(shardOf(shards, "Help")), fewerShards.indexOf(shardOf(fewerShards, "Help")));
+    }
+
+    @Test
+    public void durationShardsBalanceThePastRunTimes() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login", "Checkout,", "Help,", "Logout,");
+	File file = folder.newFile();
+	Files.write(file.toPath(), String.join("\n", "Login.duration=3000", "Search.duration=3000",
+		"Checkout.duration=4000", "Help.duration=1000", "Logout.duration=1000").getBytes(StandardCharsets.ISO_8859_1));
+
+	// Login and Search go together (6000), Checkout, Help and Logout make up the other one (6000)
+	List<List<Row>> shards = Coordinator.shardByDuration(plan, 2, TestHistory.load(file.getPath()));
+
+	assertEquals(Arrays.asList("Login", "Search"), tcids(shardOf(shards, "Login")));
+	assertEquals(Arrays.asList("Checkout", "Help", "Logout"), tcids(shardOf(shards, "Checkout")));
+    }
+
+    @Test
+    public void messagesKeepTheFieldsAsSent() throws Exception {
+
+	String[] fields = { ShardProtocol.STEP, "7", "Open\tthe site", "line 1\nline 2\r\n", "C:\\Report\\t.jpg", "" };
+	StringWriter out = new StringWriter();
+	ShardProtocol.send(out, fields);
+	ShardProtocol.send(out, ShardProtocol.DONE, null, "1");
+
+	String[] lines = out.toString().split("\n", -1);
+	assertEquals(3, lines.length);
+	assertEquals("", lines[2]);
+	assertEquals(Arrays.asList(fields), ShardProtocol.parse(lines[0]));
+	assertEquals(Arrays.asList(ShardProtocol.DONE, "", "1"), ShardProtocol.parse(lines[1]));
+    }
+
+    private static void assertInPlanOrder(List<Row> shard) {
+
+	for (int i = 1; i < shard.size(); i++) {
+	    assertTrue(shard.get(i - 1).getRowNum() < shard.get(i).getRowNum());
+	}
+    }
+
+    // Shard holding the test case
+    private static List<Row> shardOf(List<List<Row>> shards, String tcid) {
+
+	for (List<Row> shard : shards) {
+	    if (tcids(shard).contains(tcid)) {
+		return shard;
+	    }
+	}
+	throw new AssertionError(tcid + " is in no shard");
+    }
+
+    private static int size(List<List<Row>> shards) {
+
+	int size = 0;
+	for (List<Row> shard : shards) {
+	    size += shard.size();
+	}
+	return size;
+    }
+
+    private static List<String> tcids(List<Row> testCases) {
+
+	List<String> tcids = new ArrayList<String>();
+	for (Row testCase : testCases) {
+	    tcids.add(testCase.get("TCID"));
+	}
+	return tcids;
+    }
+
+    // Rows of a controller sheet, a header line and one line per test case
+    private List<Row> plan(String... lines) throws Exception {
+
+	String sheetName = "controller" + (++controllers);
+	File controller = new File(folder.getRoot(), sheetName + ".csv");
+	Files.write(controller.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = DataSources.open(controller.getPath(), 0).rows(sheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+	    }
+	}
+	return plan;
+    }
+
+}
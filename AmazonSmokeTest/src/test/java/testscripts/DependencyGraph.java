@@ -0,0 +1,406 @@
+package testscripts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import datatable.Row;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+import util.TestUtil;
+
+//All Hail Automation !
+
+/*
+ * DependencyGraph orders the test cases of the plan by the optional columns
+ * of the controller index sheet :
+ *
+ * DependsOn -> TCIDs or Group names, separated by commas, of the test cases
+ *              that must pass before this one starts (e.g. AddToCart depends
+ *              on Login)
+ * Group     -> Name of a set of test cases, a DependsOn on the group waits for
+ *              every one of them
+ *
+ * Test cases with no dependency between them may run at the same time, in
+ * any order. A test case starts once all its prerequisites passed ; if one
+ * of them failed or was skipped, it is skipped at once, and so are the test
+ * cases depending on it. Without the columns every test case is ready from
+ * the start, as before.
+ *
+ * 1) build() reads the graph and rejects dependency cycles 2) start() sets
+ * the test cases to run, in schedule order 3) pollReady() hands out the next
+ * test case whose prerequisites passed 4) finish() records the outcome of a
+ * test case, making its dependents ready or skipping them 5) takeSkipped()
+ * returns the Skip results of the test cases skipped meanwhile
+ */
+
+public class DependencyGraph {
+
+    // Test cases of the graph by controller row, in plan order
+    private final Map<Integer, Row> testCases = new LinkedHashMap<Integer, Row>();
+
+    private final Map<Integer, List<Integer>> prerequisites = new HashMap<Integer, List<Integer>>();
+    private final Map<Integer, List<Integer>> dependents = new HashMap<Integer, List<Integer>>();
+
+    // DependsOn entries naming no test case nor group of the graph
+    private final List<String> unknown = new ArrayList<String>();
+
+    // Position of the test cases to run in the schedule
+    private final Map<Integer, Integer> order = new HashMap<Integer, Integer>();
+
+    // Test cases to run still waiting for a prerequisite
+    private final Set<Integer> waiting = new HashSet<Integer>();
+
+    // Test cases ready to start, by position in the schedule
+    private final TreeMap<Integer, Row> ready = new TreeMap<Integer, Row>();
+
+    // Outcome of the finished test cases : true if passed
+    private final Map<Integer, Boolean> passed = new HashMap<Integer, Boolean>();
+
+    // Test cases skipped because the suite was aborted, directly or through a
+    // prerequisite
+    private final Set<Integer> aborted = new HashSet<Integer>();
+
+    // Skip results not taken yet, in the order the test cases were skipped
+    private final Map<Row, List<TestCaseResult>> skipped = new LinkedHashMap<Row, List<TestCaseResult>>();
+
+    private DependencyGraph() {
+    }
+
+    /*
+     * public static DependencyGraph build(Iterable<Row> plan) method
+     * specification :-
+     *
+     * 1) Reads the DependsOn and Group columns of the test cases, if any 2)
+     * Prerequisites that are not part of the plan are left out, e.g. the test
+     * cases not changed in a WatchRunner re-run 3) Throws
+     * IllegalStateException if the dependencies form a cycle
+     *
+     * @param : Rows of the test cases in the first sheet of the controller
+     *
+     * @return : Dependency graph of the test cases
+     */
+
+    public static DependencyGraph build(Iterable<Row> plan) {
+
+	DependencyGraph graph = new DependencyGraph();
+	Map<String, Integer> tcids = new HashMap<String, Integer>();
+	Map<String, List<Integer>> groups = new HashMap<String, List<Integer>>();
+
+	for (Row testCase : plan) {
+	    int rowNum = testCase.getRowNum();
+	    graph.testCases.put(rowNum, testCase);
+	    graph.prerequisites.put(rowNum, new ArrayList<Integer>());
+	    graph.dependents.put(rowNum, new ArrayList<Integer>());
+	    tcids.put(testCase.get("TCID").trim(), rowNum);
+
+	    String group = cell(testCase, "Group");
+	    if (!group.isEmpty()) {
+		if (!groups.containsKey(group)) {
+		    groups.put(group, new ArrayList<Integer>());
+		}
+		groups.get(group).add(rowNum);
+	    }
+	}
+
+	for (Row testCase : graph.testCases.values()) {
+	    for (String name : cell(testCase, "DependsOn").split(",")) {
+
+		name = name.trim();
+		if (name.isEmpty()) {
+		    continue;
+		}
+
+		List<Integer> resolved = new ArrayList<Integer>();
+		if (tcids.containsKey(name)) {
+		    resolved.add(tcids.get(name));
+		} else if (groups.containsKey(name)) {
+		    resolved.addAll(groups.get(name));
+		} else {
+		    graph.unknown.add(testCase.get("TCID").trim() + " : '" + name + "'");
+		}
+
+		for (Integer prerequisite : resolved) {
+		    if (!graph.prerequisites.get(testCase.getRowNum()).contains(prerequisite)) {
+			graph.prerequisites.get(testCase.getRowNum()).add(prerequisite);
+			graph.dependents.get(prerequisite).add(testCase.getRowNum());
+		    }
+		}
+	    }
+	}
+
+	List<Integer> cycle = graph.findCycle();
+	if (cycle != null) {
+	    StringBuilder path = new StringBuilder();
+	    for (Integer rowNum : cycle) {
+		path.append(path.length() == 0 ? "" : " -> ").append(graph.testCases.get(rowNum).get("TCID").trim());
+	    }
+	    throw new IllegalStateException("Dependency cycle in the test plan, DependsOn : " + path);
+	}
+	return graph;
+    }
+
+    /*
+     * public static void validate(Iterable<Row> plan) method specification :-
+     *
+     * 1) Checks the DependsOn and Group columns of the whole test plan up
+     * front, before any test case runs 2) Throws IllegalStateException for a
+     * DependsOn naming no TCID nor Group of the plan, or for a dependency
+     * cycle
+     *
+     * @param : Rows of the test cases in the first sheet of the controller
+     */
+
+    public static void validate(Iterable<Row> plan) {
+
+	DependencyGraph graph = build(plan);
+	if (!graph.unknown.isEmpty()) {
+	    throw new IllegalStateException(
+		    "Unknown test cases in DependsOn, no TCID nor Group of the test plan for : " + graph.unknown);
+	}
+    }
+
+    // Connected test cases, each set in plan order : test cases of different
+    // sets never wait for one another
+    public List<List<Row>> components() {
+
+	List<List<Row>> components = new ArrayList<List<Row>>();
+	Set<Integer> seen = new HashSet<Integer>();
+
+	for (Integer rowNum : testCases.keySet()) {
+	    if (seen.contains(rowNum)) {
+		continue;
+	    }
+
+	    // Test cases linked to this one either way
+	    Set<Integer> component = new HashSet<Integer>();
+	    List<Integer> toVisit = new ArrayList<Integer>();
+	    toVisit.add(rowNum);
+	    while (!toVisit.isEmpty()) {
+		Integer next = toVisit.remove(toVisit.size() - 1);
+		if (component.add(next)) {
+		    toVisit.addAll(prerequisites.get(next));
+		    toVisit.addAll(dependents.get(next));
+		}
+	    }
+	    seen.addAll(component);
+
+	    List<Row> members = new ArrayList<Row>();
+	    for (Map.Entry<Integer, Row> testCase : testCases.entrySet()) {
+		if (component.contains(testCase.getKey())) {
+		    members.add(testCase.getValue());
+		}
+	    }
+	    components.add(members);
+	}
+	return components;
+    }
+
+    /*
+     * public synchronized void start(List<Row> schedule) method specification
+     * :-
+     *
+     * 1) Sets the test cases to run, in the order they should start when
+     * ready 2) Those whose prerequisites all passed already are ready, those
+     * with a prerequisite that did not pass nor will run are skipped
+     *
+     * @param : Test cases of the graph to run, in schedule order
+     */
+
+    public synchronized void start(List<Row> schedule) {
+
+	for (int i = 0; i < schedule.size(); i++) {
+	    order.put(schedule.get(i).getRowNum(), i);
+	    waiting.add(schedule.get(i).getRowNum());
+	}
+	for (Row testCase : schedule) {
+	    if (waiting.contains(testCase.getRowNum())) {
+		update(testCase.getRowNum());
+	    }
+	}
+    }
+
+    // Next ready test case in schedule order, null if none is ready
+    public synchronized Row pollReady() {
+
+	Map.Entry<Integer, Row> next = ready.pollFirstEntry();
+	return next == null ? null : next.getValue();
+    }
+
+    /*
+     * public synchronized void finish(Row testCase, List<TestCaseResult>
+     * results) method specification :-
+     *
+     * 1) Records the outcome of the test case : passed if none of its results
+     * failed and at least one passed 2) Its dependents whose prerequisites all
+     * passed become ready 3) If it did not pass, its dependents are skipped,
+     * and theirs in turn
+     *
+     * @param : Finished test case, its results (one per data row)
+     */
+
+    public synchronized void finish(Row testCase, List<TestCaseResult> results) {
+
+	boolean testPassed = false;
+	for (TestCaseResult result : results) {
+	    if (result.getStatus().startsWith("Fail")) {
+		testPassed = false;
+		break;
+	    }
+	    testPassed = testPassed || result.getStatus().startsWith("Pass");
+	}
+
+	int rowNum = testCase.getRowNum();
+	waiting.remove(rowNum);
+	passed.put(rowNum, testPassed);
+
+	for (Integer dependent : dependents.get(rowNum)) {
+	    if (waiting.contains(dependent)) {
+		update(dependent);
+	    }
+	}
+    }
+
+    // Skips every test case to run not started yet, e.g. once the suite is
+    // aborted
+    public synchronized void skipPending(String reason) {
+
+	TreeMap<Integer, Integer> pending = new TreeMap<Integer, Integer>();
+	for (Integer rowNum : waiting) {
+	    pending.put(order.get(rowNum), rowNum);
+	}
+	for (Row testCase : ready.values()) {
+	    pending.put(order.get(testCase.getRowNum()), testCase.getRowNum());
+	}
+	ready.clear();
+
+	for (Integer rowNum : pending.values()) {
+	    // Dependents are skipped along with their prerequisite
+	    if (!passed.containsKey(rowNum)) {
+		aborted.add(rowNum);
+		skip(rowNum, reason);
+	    }
+	}
+    }
+
+    // Skip results of the test cases skipped since the last call, in order
+    public synchronized Map<Row, List<TestCaseResult>> takeSkipped() {
+
+	Map<Row, List<TestCaseResult>> taken = new LinkedHashMap<Row, List<TestCaseResult>>(skipped);
+	skipped.clear();
+	return taken;
+    }
+
+    // true if the test case was skipped because the suite was aborted rather
+    // than because a prerequisite failed : the skip is no outcome of the test
+    // case, a resumed run runs it
+    public synchronized boolean isAborted(Row testCase) {
+	return aborted.contains(testCase.getRowNum());
+    }
+
+    // true while a test case to run is waiting or ready
+    public synchronized boolean hasPending() {
+	return !waiting.isEmpty() || !ready.isEmpty();
+    }
+
+    // Makes a waiting test case ready or skips it, once its prerequisites
+    // allow
+    private void update(Integer rowNum) {
+
+	for (Integer prerequisite : prerequisites.get(rowNum)) {
+
+	    Boolean prerequisitePassed = passed.get(prerequisite);
+	    String tcid = testCases.get(prerequisite).get("TCID").trim();
+
+	    if (prerequisitePassed == null && !order.containsKey(prerequisite)) {
+		skip(rowNum, "Prerequisite '" + tcid + "' is not run");
+		return;
+	    }
+	    if (prerequisitePassed != null && !prerequisitePassed) {
+		if (aborted.contains(prerequisite)) {
+		    aborted.add(rowNum);
+		}
+		skip(rowNum, "Prerequisite '" + tcid + "' did not pass");
+		return;
+	    }
+	}
+
+	for (Integer prerequisite : prerequisites.get(rowNum)) {
+	    if (passed.get(prerequisite) == null) {
+		return;
+	    }
+	}
+
+	waiting.remove(rowNum);
+	ready.put(order.get(rowNum), testCases.get(rowNum));
+    }
+
+    // Skips a waiting test case with a Skip result, and its dependents in
+    // turn
+    private void skip(Integer rowNum, String reason) {
+
+	Row testCase = testCases.get(rowNum);
+	DriverScript.APPLICATION_LOGS.debug("Skipping the test : " + testCase.get("TCID").trim() + ", " + reason);
+
+	List<StepResult> steps = new ArrayList<StepResult>();
+	steps.add(new StepResult(reason, "DependsOn", "Skip : " + reason, null));
+	String now = TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa");
+	List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+	results.add(new TestCaseResult(testCase.get("TCID").trim(), now, now, "Skip", steps));
+	skipped.put(testCase, results);
+
+	finish(testCase, results);
+    }
+
+    // A dependency cycle as the TCIDs along it, first one repeated at the
+    // end, null if there is none
+    private List<Integer> findCycle() {
+
+	// Test cases whose prerequisites are all checked
+	Set<Integer> done = new HashSet<Integer>();
+
+	for (Integer rowNum : testCases.keySet()) {
+	    List<Integer> path = new ArrayList<Integer>();
+	    List<Integer> cycle = findCycle(rowNum, path, done);
+	    if (cycle != null) {
+		return cycle;
+	    }
+	}
+	return null;
+    }
+
+    private List<Integer> findCycle(Integer rowNum, List<Integer> path, Set<Integer> done) {
+
+	if (done.contains(rowNum)) {
+	    return null;
+	}
+	int onPath = path.indexOf(rowNum);
+	if (onPath >= 0) {
+	    List<Integer> cycle = new ArrayList<Integer>(path.subList(onPath, path.size()));
+	    cycle.add(rowNum);
+	    return cycle;
+	}
+
+	path.add(rowNum);
+	for (Integer prerequisite : prerequisites.get(rowNum)) {
+	    List<Integer> cycle = findCycle(prerequisite, path, done);
+	    if (cycle != null) {
+		return cycle;
+	    }
+	}
+	path.remove(path.size() - 1);
+	done.add(rowNum);
+	return null;
+    }
+
+    // Value of an optional column, "" if the controller has no such column
+    private static String cell(Row testCase, String colName) {
+	return testCase.hasColumn(colName) ? testCase.get(colName).trim() : "";
+    }
+
+}
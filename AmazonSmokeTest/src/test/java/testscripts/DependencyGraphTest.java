@@ -0,0 +1,178 @@
+package testscripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import datatable.DataSources;
+import datatable.Row;
+import datatable.Rows;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+public class DependencyGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // No. of controllers written by plan()
+    private int controllers = 0;
+
+    @Test
+    public void aCycleIsRejectedWithItsPath() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,Checkout", "Search,Login", "Checkout,Search", "Logout,");
+	try {
+	    DependencyGraph.build(plan);
+	    fail("The cycle was not found");
+	} catch (IllegalStateException expected) {
+	    assertEquals("Dependency cycle in the test plan, DependsOn : Login -> Checkout -> Search -> Login",
+		    expected.getMessage());
+	}
+
+	try {
+	    DependencyGraph.build(plan("TCID,DependsOn", "Login,Login"));
+	    fail("The test case depending on itself was not rejected");
+	} catch (IllegalStateException expected) {
+	    assertTrue(expected.getMessage(), expected.getMessage().endsWith("Login -> Login"));
+	}
+    }
+
+    @Test
+    public void validateRejectsADependsOnNamingNoTestCase() throws Exception {
+
+	DependencyGraph.validate(plan("TCID,Group,DependsOn", "Login,Session,", "Search,,Session"));
+	try {
+	    DependencyGraph.validate(plan("TCID,DependsOn", "Login,", "Search,Logn"));
+	    fail("The unknown prerequisite was not rejected");
+	} catch (IllegalStateException expected) {
+	    assertTrue(expected.getMessage(), expected.getMessage().contains("Search : 'Logn'"));
+	}
+    }
+
+    @Test
+    public void aTestCaseStartsOnceItsPrerequisitesPassed() throws Exception {
+
+	List<Row> plan = plan("TCID,Group,DependsOn", "Login,Session,", "Profile,Session,", "Search,,Session",
+		"Help,,");
+	DependencyGraph graph = DependencyGraph.build(plan);
+	graph.start(plan);
+
+	assertEquals("Login", tcid(graph.pollReady()));
+	assertEquals("Profile", tcid(graph.pollReady()));
+	assertEquals("Help", tcid(graph.pollReady()));
+	assertNull(graph.pollReady());
+
+	// Search waits for the whole group
+	graph.finish(plan.get(0), results("Pass"));
+	assertNull(graph.pollReady());
+	graph.finish(plan.get(1), results("Pass", "Pass"));
+	assertEquals("Search", tcid(graph.pollReady()));
+	assertTrue(graph.takeSkipped().isEmpty());
+    }
+
+    @Test
+    public void aFailureSkipsTheDependentsAndTheirsInTurn() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login", "Checkout,\"Search, Login\"", "Help,");
+	DependencyGraph graph = DependencyGraph.build(plan);
+	graph.start(plan);
+	graph.pollReady();
+
+	// One failed data row fails the test case
+	graph.finish(plan.get(0), results("Pass", "Fail"));
+
+	Map<Row, List<TestCaseResult>> skipped = graph.takeSkipped();
+	assertEquals(Arrays.asList(plan.get(1), plan.get(2)), new ArrayList<Row>(skipped.keySet()));
+	assertSkipped(skipped.get(plan.get(1)), "Search", "Skip : Prerequisite 'Login' did not pass");
+	assertSkipped(skipped.get(plan.get(2)), "Checkout", "Skip : Prerequisite 'Search' did not pass");
+
+	assertEquals("Help", tcid(graph.pollReady()));
+	assertTrue(graph.takeSkipped().isEmpty());
+    }
+
+    @Test
+    public void aPrerequisiteNotRunSkipsItsDependents() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login");
+	DependencyGraph graph = DependencyGraph.build(plan);
+
+	// Only Search is run, e.g. a WatchRunner re-run of the changed test case
+	graph.start(plan.subList(1, 2));
+
+	assertNull(graph.pollReady());
+	assertSkipped(graph.takeSkipped().get(plan.get(1)), "Search", "Skip : Prerequisite 'Login' is not run");
+    }
+
+    @Test
+    public void skipPendingSkipsWhatIsNotStartedInScheduleOrder() throws Exception {
+
+	List<Row> plan = plan("TCID,DependsOn", "Login,", "Search,Login", "Help,");
+	DependencyGraph graph = DependencyGraph.build(plan);
+	graph.start(Arrays.asList(plan.get(2), plan.get(0), plan.get(1)));
+	assertEquals("Help", tcid(graph.pollReady()));
+
+	graph.skipPending("Suite aborted");
+
+	Map<Row, List<TestCaseResult>> skipped = graph.takeSkipped();
+	assertEquals(Arrays.asList(plan.get(0), plan.get(1)), new ArrayList<Row>(skipped.keySet()));
+	assertSkipped(skipped.get(plan.get(0)), "Login", "Skip : Suite aborted");
+	assertSkipped(skipped.get(plan.get(1)), "Search", "Skip : Prerequisite 'Login' did not pass");
+	assertFalse(graph.hasPending());
+    }
+
+    private static void assertSkipped(List<TestCaseResult> results, String tcid, String step) {
+
+	assertEquals(1, results.size());
+	assertEquals(tcid, results.get(0).getTestCaseName());
+	assertEquals("Skip", results.get(0).getStatus());
+	assertEquals(step, results.get(0).getStepResults().get(0).getStatus());
+    }
+
+    private static String tcid(Row testCase) {
+	return testCase == null ? null : testCase.get("TCID");
+    }
+
+    // Results of the runs of a test case, one per status
+    private static List<TestCaseResult> results(String... statuses) {
+
+	List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+	for (String status : statuses) {
+	    results.add(new TestCaseResult("run", "start", "end", status, new ArrayList<StepResult>()));
+	}
+	return results;
+    }
+
+    // Rows of a controller sheet, a header line and one line per test case
+    private List<Row> plan(String... lines) throws Exception {
+
+	String sheetName = "controller" + (++controllers);
+	File controller = new File(folder.getRoot(), sheetName + ".csv");
+	Files.write(controller.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = DataSources.open(controller.getPath(), 0).rows(sheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+	    }
+	}
+	return plan;
+    }
+
+}
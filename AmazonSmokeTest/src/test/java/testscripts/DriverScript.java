@@ -2,11 +2,20 @@ package testscripts;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.sql.Connection;
-import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.junit.AfterClass;
@@ -14,13 +23,17 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 
+import datatable.DataSource;
+import datatable.DataSources;
+import datatable.Row;
+import datatable.Rows;
 import datatable.XlsReader;
 import jxl.JXLException;
 import jxl.read.biff.BiffException;
 import reports.ReportUtil;
+import testscripts.ExecutionContext.TestCaseResult;
 import util.TestUtil;
 
 public class DriverScript {
@@ -31,39 +44,56 @@ public class DriverScript {
     public static Properties OR;
     public static Properties APPTEXT;
     public static Properties LOG;
-    public static XlsReader controller;
-    public static XlsReader testData;
-    public static WebDriver wbdv = null;
-    public static EventFiringWebDriver driver = null;
+    public static DataSource controller;
+    public static DataSource testData;
     public static String navigationBlockedTitle = "Certificate Error: Navigation Blocked";
-    public static WebDriver wbdv2 = null;
-    // public static EventFiringWebDriver driver = null;
-    public static EventFiringWebDriver driver2 = null;
     public static Logger APPLICATION_LOGS = Logger.getLogger("devpinoyLogger");
-    public static String currentTest;
-    public static int testRepeat;
-    public static String object;
-    public static int Data_Row_No;
-    public static String keyword;
-    public static String currentTSID;
-    public static String stepDescription;
-    // public static String proceedOnFail;
-    public static String testStatus;
-    public static DesiredCapabilities dc = null;
-    public static URL remote_url = null;
-    public static java.sql.Statement stmt;
-    public static ResultSet rs;
-    public static Connection con;
-    public static String defaultWindow;
     public static String firstSheetName;
     public static String failTest = "Fail";
-    public static String methodReturnResult = null;
-    public static Boolean booleanReturnResult = null;
-    public static String currentSystemDate = null;
-    public static Boolean checkStatus = null;
-    public static Boolean checkAlertPresent = false;
     public static Boolean highlightElement = true;
-    public static String expectedTitle = null;
+
+    // No. of test cases run at the same time, each in browser sessions of its
+    // own
+    public static int parallelSessions = 1;
+
+    // No. of data rows of a data-driven test case run at the same time, each
+    // in browser sessions of its own
+    public static int dataRowWorkers = 1;
+
+    // Whether the browsers of the session pool were launched
+    private static boolean sessionsPrelaunched = false;
+
+    // How long a browser session stays with a test case
+    public static SessionPool.Lifetime sessionLifetime = SessionPool.Lifetime.STEP;
+
+    // Deadline of every keyword in seconds, 0 for none (see StepWatchdog)
+    public static int stepTimeoutSeconds = 0;
+
+    // What a failed step does to the rest of a test case whose OnFail cell
+    // is empty
+    public static OnFail onFailDefault = OnFail.CONTINUE;
+
+    // Test case and step whose failure aborted the suite, null while it runs
+    public static volatile String suiteAbortedBy = null;
+
+    // Order the test cases are started in (see TestScheduler)
+    public static String schedulePolicy = TestScheduler.PLAN;
+
+    // Durations and outcomes of past runs
+    public static TestHistory history;
+
+    // Resume the interrupted run recorded in the checkpoint instead of
+    // starting over (--resume or -Dresume=true)
+    public static boolean resume = false;
+
+    // Completed test cases of the suite being run, null outside of testApp()
+    public static Checkpoint checkpoint;
+
+    // Keywords of the test plan, resolved once
+    public static KeywordRegistry keywords = new KeywordRegistry(Keyword.class);
+
+    // Browser sessions, the test case and step being run and their results
+    // live in the ExecutionContext of the running thread (see context())
 
     // public static String RUN_DATE = TestUtil.now("ddMMyyhhmmss").toString();
 
@@ -77,9 +107,60 @@ public class DriverScript {
     public static String dbUsername = null;
     public static String dbPassword = null;
 
+    // Execution context of the current thread
+    public static ExecutionContext context() {
+	return ExecutionContext.current();
+    }
+
+    // Browser session of the current execution context
+    public static EventFiringWebDriver driver() {
+	return context().getDriver();
+    }
+
+    public static WebDriver wbdv() {
+	return context().getWbdv();
+    }
+
+    public static EventFiringWebDriver driver2() {
+	return context().getDriver2();
+    }
+
+    public static WebDriver wbdv2() {
+	return context().getWbdv2();
+    }
+
+    // Runs the suite outside of JUnit : java testscripts.DriverScript
+    // [--resume]
+    public static void main(String[] args) throws Exception {
+
+	resume = Arrays.asList(args).contains("--resume");
+	initialize();
+	new DriverScript().databaseConnectivity();
+	new DriverScript().testApp();
+	endScript();
+	System.exit(0);
+    }
+
     @BeforeClass
     public static void initialize() throws IOException {
 
+	loadConfig();
+
+	// Launch the browsers in the background while the workbooks are read
+	// and the report is set up ; endScript() quits them if the plan is
+	// rejected
+	prelaunchSessions();
+
+	openDataSources();
+
+	// Start the process of HTML report generation
+	startReport();
+
+    }
+
+    // Loads config.properties and the run settings read from it
+    public static void loadConfig() throws IOException {
+
 	// Override default J2SE built-in workable logger built-in
 	System.setProperty("org.apache.commons.logging.Log", "org.apache.commons.logging.impl.Jdk14Logger");
 
@@ -89,16 +170,63 @@ public class DriverScript {
 		System.getProperty("user.dir") + "/src/test/java/config/config.properties");
 	CONFIG.load(fs);
 
-	// Locates controller sheet
-	controller = new XlsReader(System.getProperty("user.dir") + "/src/test/java/config/controller.xls");
+	// Also asked for with -Dresume=true, e.g. by mvn test
+	resume = resume || Boolean.getBoolean("resume");
 
-	// Locates testData sheet
-	testData = new XlsReader(System.getProperty("user.dir") + "/src/test/java/config/testData.xls");
+	// No. of test cases run in parallel
+	parallelSessions = Math.max(1, Integer.parseInt(CONFIG.getProperty("parallel_sessions", "1").trim()));
+
+	// No. of data rows of a data-driven test case run in parallel
+	dataRowWorkers = Math.max(1, Integer.parseInt(CONFIG.getProperty("data_row_workers", "1").trim()));
+
+	// Release browser sessions after every step, test case or the suite
+	sessionLifetime = SessionPool.Lifetime.parse(CONFIG.getProperty("session_lifetime", "step"));
+
+	// Fail a keyword still running after that many seconds
+	stepTimeoutSeconds = Math.max(0, Integer.parseInt(CONFIG.getProperty("step_timeout_seconds", "0").trim()));
+
+	// Abort the test case, continue or abort the suite after a failed step
+	onFailDefault = OnFail.parse(CONFIG.getProperty("on_fail", "continue"));
+
+	// Start test cases in plan order, longest first or failed first
+	schedulePolicy = CONFIG.getProperty("schedule_policy", TestScheduler.PLAN).trim();
+	history = TestHistory.load();
+    }
+
+    // Starts the browsers of the session pool on background threads, once
+    public static synchronized void prelaunchSessions() {
+
+	if (sessionsPrelaunched) {
+	    return;
+	}
+	sessionsPrelaunched = true;
+	SessionPool.prelaunch(Integer.parseInt(
+		CONFIG.getProperty("session_pool_size", String.valueOf(parallelSessions * dataRowWorkers)).trim()));
+    }
+
+    // Opens the controller and testData named in the config
+    public static void openDataSources() throws IOException {
+
+	// No. of pending Excel cell updates after which they are written into the workbook
+	int excelFlushThreshold = Integer.parseInt(CONFIG.getProperty("excel_flush_threshold",
+		String.valueOf(XlsReader.DEFAULT_FLUSH_THRESHOLD)));
+
+	// Locates controller sheet (.xls, .xlsx, .csv or .jsonl)
+	controller = DataSources.open(System.getProperty("user.dir") + "/src/test/java/config/"
+		+ CONFIG.getProperty("controller_file", "controller.xls"), excelFlushThreshold);
+
+	// Locates testData sheet (.xls, .xlsx, .csv or .jsonl)
+	testData = DataSources.open(System.getProperty("user.dir") + "/src/test/java/config/"
+		+ CONFIG.getProperty("testdata_file", "testData.xls"), excelFlushThreshold);
+    }
+
+    // Creates a new HTML report under the Report folder, wiping the previous
+    // one unless the run is resumed (its screenshots and checkpoint are kept)
+    public static void startReport() {
 
-	// Start the process of HTML report generation
 	ReportUtil.startTesting(System.getProperty("user.dir") + "/Report/index.html",
 		TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), CONFIG.getProperty("env"), CONFIG.getProperty("version"),
-		CONFIG.getProperty("test_browser"), CONFIG.getProperty("dischargeCentralURL"));
+		CONFIG.getProperty("test_browser"), CONFIG.getProperty("dischargeCentralURL"), !resume);
 
     }
 
@@ -145,117 +273,715 @@ public class DriverScript {
     @Test
     public void testApp() throws NumberFormatException, BiffException, JXLException, IOException {
 
-	String startTime = null;
-
-	// Get the first sheet name under 'controller.xls'
+	// Get the first sheet name of the controller
 
 	firstSheetName = controller.getFirstSheetname();
 
-	ReportUtil.startSuite(firstSheetName);
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = controller.rows(firstSheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+	    }
+	}
+
+	// Reject unknown keywords, dependencies and OnFail policies before any
+	// test case runs
+	keywords.validate(controller, plan);
+	DependencyGraph.validate(plan);
+	for (Row testCase : plan) {
+	    onFail(testCase);
+	}
+
+	// Record the completed test cases, a resumed run skips them
+	checkpoint = Checkpoint.open(checkpointPath(), resume);
 
-	for (int tcid = 1; tcid < controller.getRowCount(firstSheetName); tcid++) {
+	try {
+	    ReportUtil.startSuite(firstSheetName);
 
-	    // Stores the current sub-module
-	    currentTest = controller.getCellData(firstSheetName, "TCID", tcid).trim();
+	    executeTestCases(plan);
 
-	    // Runs the respective sub-module if Runmode for the
-	    // sub-module is
-	    // 'Y'
-	    if (controller.getCellData(firstSheetName, "Runmode", tcid).equals("Y")) {
+	    // End test reporting
+	    ReportUtil.endSuite();
+	}
 
-		APPLICATION_LOGS.debug("Executing test : " + currentTest);
+	finally {
+	    checkpoint.close();
+	    checkpoint = null;
+	}
+    }
 
-		// Initialize start time of test
-		startTime = TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa");
+    // Checkpoint file of the run, in the Report folder
+    public static String checkpointPath() {
+	return System.getProperty("user.dir") + "/Report/checkpoint.log";
+    }
 
-		// Implement keyword
-		for (int tsid = 1; tsid < controller.getRowCount(currentTest); tsid++) {
+    /*
+     * public static void executeTestCases(Iterable<Row> testCases) method
+     * specification :-
+     *
+     * 1) Executes the test cases of the controller rows and reports them in
+     * the order of the rows 2) With parallel_sessions above 1, that many test
+     * cases run at the same time, each on a worker thread with an execution
+     * context and browser sessions of its own 3) Test cases are started in
+     * the order of schedule_policy once their DependsOn prerequisites passed
+     * (see DependencyGraph) ; one is reported once it and every test case
+     * before it in the plan are finished 4) Test cases whose prerequisite
+     * failed or was skipped are skipped at once 5) Once a test case with
+     * OnFail AbortSuite fails, the test cases not started yet are skipped 6)
+     * The duration and outcome of every test case run are kept in the
+     * history 7) Test cases the checkpoint has completed are reported from
+     * it and not run again
+     *
+     * @param : Rows of the test cases in the first sheet of the controller
+     */
+
+    public static void executeTestCases(Iterable<Row> testCases) throws BiffException, JXLException, IOException {
+
+	List<Row> plan = new ArrayList<Row>();
+	for (Row testCase : testCases) {
+	    plan.add(testCase);
+	}
+	DependencyGraph graph = DependencyGraph.build(plan);
+	suiteAbortedBy = null;
+
+	List<Row> toRun = new ArrayList<Row>();
+	Map<Row, List<TestCaseResult>> finished = new HashMap<Row, List<TestCaseResult>>();
+
+	for (Row testCase : plan) {
+	    List<TestCaseResult> completed = checkpoint == null ? null : checkpoint.getCompleted(testCase);
+	    if (completed != null) {
+		finished.put(testCase, new ArrayList<TestCaseResult>(completed));
+		graph.finish(testCase, completed);
+	    } else {
+		toRun.add(testCase);
+	    }
+	}
+	if (!finished.isEmpty()) {
+	    APPLICATION_LOGS.debug("Resuming the run : " + finished.size() + " test cases are completed already");
+	}
+	graph.start(TestScheduler.schedule(toRun, schedulePolicy, history));
 
-		    // values from xls
-		    // Stores the current keyword
-		    keyword = controller.getCellData(currentTest, "Keyword", tsid).trim();
+	if (parallelSessions <= 1) {
+	    int reported = 0;
 
-		    // Stores the current TSID
-		    currentTSID = controller.getCellData(currentTest, "TSID", tsid).trim();
+	    try {
+		while (true) {
+		    skipIfAborted(graph);
+		    takeSkipped(graph, finished);
+		    reported = reportFinished(plan, finished, reported);
 
-		    // Stores the current description
-		    stepDescription = controller.getCellData(currentTest, "Description", tsid).trim();
+		    Row testCase = graph.pollReady();
+		    if (testCase == null) {
+			break;
+		    }
 
-		    try {
+		    long start = System.currentTimeMillis();
+		    executeTestCase(testCase);
+
+		    // Context of the thread at the end of the test case, a fork
+		    // if one of its steps timed out
+		    ExecutionContext context = context();
+		    List<TestCaseResult> results = new ArrayList<TestCaseResult>(context.getResults());
+		    context.getResults().clear();
+		    recordRun(testCase, System.currentTimeMillis() - start, results);
+		    finished.put(testCase, results);
+		    graph.finish(testCase, results);
+		}
+	    }
+
+	    finally {
+		closeSessions();
+	    }
+	    return;
+	}
 
-			Method method = Keyword.class.getMethod(keyword);
-			String result = (String) method.invoke(method);
-			APPLICATION_LOGS.debug("Result of test case execution - " + result);
+	APPLICATION_LOGS.debug("Running the test cases on " + parallelSessions + " parallel sessions");
+	ExecutorService workers = Executors.newFixedThreadPool(parallelSessions);
+	CompletionService<ExecutionContext> done = new ExecutorCompletionService<ExecutionContext>(workers);
+	Map<Future<ExecutionContext>, Row> running = new HashMap<Future<ExecutionContext>, Row>();
+	int reported = 0;
 
-			if (!result.startsWith("Fail")) {
-			    ReportUtil.addKeyword(stepDescription, keyword, result, null);
+	try {
+	    while (true) {
+
+		// Start test cases whose prerequisites passed on the free
+		// sessions, report in plan order what is finished ; the others
+		// wait in the graph, where an aborted suite can still skip them
+		skipIfAborted(graph);
+		takeSkipped(graph, finished);
+		while (running.size() < parallelSessions) {
+		    final Row testCase = graph.pollReady();
+		    if (testCase == null) {
+			break;
+		    }
+		    running.put(done.submit(new Callable<ExecutionContext>() {
+			public ExecutionContext call() {
+			    return runInOwnContext(testCase);
 			}
+		    }), testCase);
+		}
+		reported = reportFinished(plan, finished, reported);
 
-			// Take screenshot - only on
-			// error
-			if (result.startsWith("Fail")) {
+		if (running.isEmpty()) {
+		    break;
+		}
 
-			    testStatus = "Fail";
+		// Wait for the next test case to finish
+		Future<ExecutionContext> run;
+		try {
+		    run = done.take();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    APPLICATION_LOGS.debug("Error came : interrupted while waiting for the test cases");
+		    break;
+		}
 
-			    // Give a fileName for
-			    // the screenshot and
-			    // store
-			    String fileName = "Suite1_TC" + tcid + "_TS" + tsid + "_" + keyword + testRepeat + ".jpg";
-			    String path = screenshotPath + fileName;
-			    TestUtil.takeScreenShot(path);
-			    APPLICATION_LOGS.debug("SCREENSHOT taken under : " + path);
+		Row testCase = running.remove(run);
+		List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+		try {
+		    results.addAll(run.get().getResults());
+		} catch (ExecutionException e) {
+		    APPLICATION_LOGS.debug("Error came : " + e.getCause().getMessage());
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+		finished.put(testCase, results);
+		graph.finish(testCase, results);
+	    }
+	}
 
-			    // Write the test result
-			    // to HTML report
-			    ReportUtil.addKeyword(stepDescription, keyword, result, fileName);
+	finally {
+	    workers.shutdownNow();
+	}
+    }
 
-			    /*
-			     * if (proceedOnFail.equalsIgnoreCase("N")) { break; }
-			     */
+    // Skips the test cases not started yet once the suite is aborted
+    static void skipIfAborted(DependencyGraph graph) {
 
-			}
+	if (suiteAbortedBy != null) {
+	    graph.skipPending("Suite aborted, " + suiteAbortedBy + " failed");
+	}
+    }
 
-			if (wbdv != null) {
-			    FunctionLibrary.closeDriver();
-			}
-			if (wbdv2 != null) {
-			    FunctionLibrary.driver2CloseDriver();
+    // Moves the test cases the graph skipped to the finished ones, keeping
+    // them in the checkpoint unless the suite was aborted (a resumed run runs
+    // those)
+    static void takeSkipped(DependencyGraph graph, Map<Row, List<TestCaseResult>> finished) {
+
+	for (Map.Entry<Row, List<TestCaseResult>> skipped : graph.takeSkipped().entrySet()) {
+	    if (!graph.isAborted(skipped.getKey())) {
+		recordRun(skipped.getKey(), 0, skipped.getValue());
+	    }
+	    finished.put(skipped.getKey(), skipped.getValue());
+	}
+    }
+
+    // Runs one test case on a worker thread, in an execution context of its
+    // own
+    private static ExecutionContext runInOwnContext(Row testCase) {
+
+	ExecutionContext context = new ExecutionContext();
+	ExecutionContext.bind(context);
+	long start = System.currentTimeMillis();
+
+	try {
+	    executeTestCase(testCase);
+	    recordRun(testCase, System.currentTimeMillis() - start, context().getResults());
+	} catch (Throwable testException) {
+	    APPLICATION_LOGS.debug("Error came : " + testException.getMessage());
+	}
+
+	finally {
+	    // Browser sessions kept for the suite or left open by a failing
+	    // keyword
+	    closeSessions();
+
+	    // A fork of the context if a step timed out
+	    context = context();
+	    ExecutionContext.unbind();
+	}
+	return context;
+    }
+
+    // Reports the finished test cases up to the first one of the plan still
+    // to run, returns the no. of test cases of the plan reported so far
+    private static int reportFinished(List<Row> plan, Map<Row, List<TestCaseResult>> finished, int reported) {
+
+	while (reported < plan.size() && finished.containsKey(plan.get(reported))) {
+	    reportResults(finished.remove(plan.get(reported++)));
+	}
+	return reported;
+    }
+
+    // Keeps a finished test case in the history and the checkpoint
+    private static void recordRun(Row testCase, long durationMillis, List<TestCaseResult> results) {
+
+	history.recordRun(testCase.get("TCID").trim(), durationMillis, results);
+
+	if (checkpoint != null) {
+	    try {
+		checkpoint.record(testCase, durationMillis, results);
+	    } catch (IOException e) {
+		APPLICATION_LOGS.debug("Error came while writing the checkpoint : " + e.getMessage());
+	    }
+	}
+    }
+
+    // Adds the finished test cases to the HTML report
+    private static void reportResults(List<TestCaseResult> results) {
+
+	for (TestCaseResult result : results) {
+	    ReportUtil.addTestCase(result);
+	}
+	results.clear();
+    }
+
+    /*
+     * public static void executeTestCase(Row testCase) method specification :-
+     *
+     * 1) Runs the test case of a controller row in the execution context of
+     * the current thread if its Runmode is 'Y', once per data row for a
+     * data-driven test case (see runDataRows()) 2) Records it as skipped
+     * otherwise 3) The results are recorded in the execution context, see
+     * executeTestCases() for reporting them ; a step that timed out leaves
+     * them to a fork of the context (see StepWatchdog) 4) A test case stopped
+     * by an exception, e.g. a missing sheet, is recorded as failed with the
+     * exception as its step, on the sequential and the parallel path alike
+     *
+     * @param : Row of the test case in the first sheet of the controller
+     */
+
+    public static void executeTestCase(Row testCase) throws BiffException, JXLException, IOException {
+
+	int tcid = testCase.getRowNum();
+
+	// Stores the current sub-module
+	String currentTest = testCase.get("TCID").trim();
+	context().setCurrentTest(currentTest);
+	context().setTcid(tcid);
+	context().setOnFail(onFail(testCase));
+
+	// Runs the respective sub-module if Runmode for the
+	// sub-module is
+	// 'Y'
+	if (testCase.get("Runmode").equals("Y")) {
+	    String startTime = TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa");
+
+	    try {
+
+		// Data-driven test case : runs once per row of its testData sheet
+		String dataSheet = testCase.hasColumn("DataSheet") ? testCase.get("DataSheet").trim() : "";
+
+		if (dataSheet.isEmpty()) {
+		    context().setDataRow(null);
+		    context().setTestRepeat(0);
+		    runTestCase(currentTest, tcid);
+		}
+
+		else {
+
+		    // Rows whose Runmode is not 'Y' are left out
+		    List<Row> dataRows = new ArrayList<Row>();
+		    try (Rows rows = testData.rows(dataSheet)) {
+			for (Row data : rows) {
+			    if (!data.hasColumn("Runmode") || data.get("Runmode").trim().equals("Y")) {
+				dataRows.add(data);
+			    }
 			}
 		    }
+		    runDataRows(currentTest + " - " + dataSheet, tcid, dataRows);
+		}
+	    }
+
+	    // e.g. a missing DataSheet : the test case fails, with the exception
+	    // as its step
+	    catch (Throwable testException) {
+		recordException(currentTest, testException);
+		context().finishTestCase(currentTest, startTime, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), failTest);
+	    }
+	}
+
+	else {
+	    APPLICATION_LOGS.debug("Skipping the test : " + currentTest);
+
+	    // Record skipped
+	    context().finishTestCase(currentTest, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"),
+		    TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), "Skip");
+
+	}
+	context().setTestStatus(null);
+    }
+
+    /*
+     * private static void runDataRows(String testName, int tcid, List<Row>
+     * dataRows) method specification :-
+     *
+     * 1) Runs the test case of the current execution context once per data
+     * row, each run named testName + " row " + its row no. 2) With
+     * data_row_workers above 1, that many rows run at the same time, each on
+     * a worker thread in a fork of the context with browser sessions of its
+     * own 3) The results are added to the current context in the order of
+     * the rows
+     *
+     * @param : Name of the data-driven test case in the report, row no. of
+     * the test case in the controller, data rows to run
+     */
+
+    private static void runDataRows(String testName, final int tcid, List<Row> dataRows)
+	    throws BiffException, JXLException, IOException {
+
+	int workers = Math.min(dataRowWorkers, dataRows.size());
+	int testRepeat = 0;
+
+	if (workers <= 1) {
+	    for (Row data : dataRows) {
+		context().setDataRow(data);
+		context().setTestRepeat(++testRepeat);
+		runTestCase(testName + " row " + data.getRowNum(), tcid);
+	    }
+	    context().setDataRow(null);
+	    return;
+	}
+
+	APPLICATION_LOGS.debug("Running the data rows of " + testName + " on " + workers + " workers");
+	ExecutionContext context = context();
+	ExecutorService pool = Executors.newFixedThreadPool(workers);
+	List<Future<ExecutionContext>> runs = new ArrayList<Future<ExecutionContext>>();
+
+	try {
+	    for (Row data : dataRows) {
+		final ExecutionContext rowContext = context.fork();
+		rowContext.getResults().clear();
+		rowContext.setDataRow(data);
+		rowContext.setTestRepeat(++testRepeat);
+		final String testCaseName = testName + " row " + data.getRowNum();
+
+		runs.add(pool.submit(new Callable<ExecutionContext>() {
+		    public ExecutionContext call() throws Exception {
+			return runDataRow(rowContext, testCaseName, tcid);
+		    }
+		}));
+	    }
+
+	    // Collect the results in the order of the rows
+	    for (Future<ExecutionContext> run : runs) {
+		try {
+		    context.getResults().addAll(run.get().getResults());
+		} catch (ExecutionException e) {
+		    APPLICATION_LOGS.debug("Error came : " + e.getCause().getMessage());
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    APPLICATION_LOGS.debug("Error came : interrupted while waiting for the data rows of " + testName);
+	}
+
+	finally {
+	    pool.shutdownNow();
+	}
+    }
+
+    // Runs one data row on a worker thread, in the fork of the test case
+    // context bound to it
+    private static ExecutionContext runDataRow(ExecutionContext rowContext, String testCaseName, int tcid)
+	    throws BiffException, JXLException, IOException {
+
+	ExecutionContext.bind(rowContext);
+
+	try {
+	    runTestCase(testCaseName, tcid);
+	}
+
+	finally {
+	    // Browser sessions kept for the suite or left open by a failing
+	    // keyword
+	    closeSessions();
+
+	    // A fork of the context if a step timed out
+	    rowContext = context();
+	    ExecutionContext.unbind();
+	}
+	return rowContext;
+    }
+
+    /*
+     * public static void runTestCase(String testCaseName, int tcid) method
+     * specification :-
+     *
+     * 1) Executes every keyword of the test case of the current execution
+     * context in order and records the result as testCaseName 2) A data-driven
+     * run is bound to its data row beforehand and starts in a browser session
+     * of its own 3) After a failed step, the OnFail policy of the test case
+     * either runs the remaining keywords (Continue) or records them as
+     * skipped (Abort) ; AbortSuite also skips the test cases not started yet
+     *
+     * @param : Name of the test case in the report, row no. of the test case
+     * in the controller
+     */
+
+    public static void runTestCase(String testCaseName, int tcid) throws BiffException, JXLException, IOException {
+
+	ExecutionContext context = context();
+	APPLICATION_LOGS.debug("Executing test : " + testCaseName);
+
+	// Initialize start time of test
+	String startTime = TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa");
+
+	// TSID of the failed step that aborted the run, null while it goes on
+	String abortedBy = null;
+
+	// Implement keyword
+	try (Rows steps = controller.rows(context.getCurrentTest())) {
+	    for (Row step : steps) {
+
+		int tsid = step.getRowNum();
+
+		// values from xls
+		// Stores the current keyword
+		String keyword = step.get("Keyword").trim();
+
+		// Stores the current description
+		String stepDescription = step.get("Description").trim();
+
+		// Stores the current TSID, description and keyword
+		context.setStep(step.get("TSID").trim(), stepDescription, keyword);
+
+		// Record the steps after an aborting failure as skipped
+		if (abortedBy != null) {
+		    ReportUtil.addKeyword(stepDescription, keyword, "Skip : Not run, step " + abortedBy + " failed", null);
+		    continue;
+		}
+
+		// Give a fileName for
+		// the screenshot, taken on error
+		String fileName = "Suite1_TC" + tcid + "_TS" + tsid + "_" + keyword + context.getTestRepeat() + ".jpg";
+		String path = screenshotPath + fileName;
+
+		// Run the keyword under the step deadline, a timed out step
+		// has its screenshot taken by the watchdog and leaves the test
+		// case to a fork of the context ; a keyword that throws fails its
+		// step like a "Fail" result
+		String result;
+		try {
+		    result = StepWatchdog.invoke(keyword, path);
+		} catch (Throwable testException) {
+		    APPLICATION_LOGS.debug("Error came : " + testException.getMessage());
+		    result = failTest + " : " + testException;
+		}
+		boolean timedOut = context() != context;
+		context = context();
+		APPLICATION_LOGS.debug("Result of test case execution - " + result);
+
+		if (!result.startsWith("Fail")) {
+		    ReportUtil.addKeyword(stepDescription, keyword, result, null);
+		}
+
+		// Take screenshot - only on
+		// error
+		if (result.startsWith("Fail")) {
+
+		    context.setTestStatus("Fail");
+
+		    if (!timedOut) {
+			TestUtil.takeScreenShot(path);
+			APPLICATION_LOGS.debug("SCREENSHOT taken under : " + path);
+		    }
 
-		    catch (Throwable testException) {
-			APPLICATION_LOGS.debug("Error came : " + testException.getMessage());
+		    // Write the test result
+		    // to HTML report
+		    ReportUtil.addKeyword(stepDescription, keyword, result, fileName);
+
+		    // Stop the test case, and the suite, as its OnFail says
+		    if (context.getOnFail() != OnFail.CONTINUE) {
+			abortedBy = context.getCurrentTSID();
+			APPLICATION_LOGS.debug("Aborting the test : " + testCaseName + " after step " + abortedBy);
+		    }
+		    if (context.getOnFail() == OnFail.ABORT_SUITE && suiteAbortedBy == null) {
+			suiteAbortedBy = testCaseName + " step " + abortedBy;
 		    }
 
-		} // keywords -inner for loop
+		}
 
-		// Report pass or fail
-		if (testStatus == null) {
-		    testStatus = "Pass";
+		if (sessionLifetime == SessionPool.Lifetime.STEP) {
+		    closeSessions();
 		}
-		APPLICATION_LOGS.debug("Result of the '" + currentTest + "' test suite execution - " + testStatus);
-		ReportUtil.addTestCase(currentTest, startTime, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), testStatus);
+
+	    } // keywords -inner for loop
+	}
+
+	// e.g. a missing keyword sheet : the test case fails, with the
+	// exception as its last step
+	catch (Throwable testException) {
+	    context = context();
+	    recordException(testCaseName, testException);
+	}
+
+	// Sessions living for the test case end with it, sessions living for
+	// the suite are reset for the next test case, however the test case
+	// ended
+	finally {
+	    if (sessionLifetime == SessionPool.Lifetime.TEST_CASE) {
+		closeSessions();
+	    } else if (sessionLifetime == SessionPool.Lifetime.SUITE && wbdv() != null) {
+		FunctionLibrary.resetDriver();
 	    }
+	}
+
+	// Record pass or fail
+	String testStatus = context.getTestStatus() == null ? "Pass" : context.getTestStatus();
+	APPLICATION_LOGS.debug("Result of the '" + testCaseName + "' test suite execution - " + testStatus);
+	context.finishTestCase(testCaseName, startTime, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), testStatus);
 
-	    else {
-		APPLICATION_LOGS.debug("Skipping the test : " + currentTest);
-		testStatus = "Skip";
+	// Write back the Excel cell updates made by the test case
+	flushWorkbooks();
+    }
 
-		// Report skipped
-		ReportUtil.addTestCase(currentTest, TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"),
-			TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"), testStatus);
+    // Records the exception that stopped a test case as a failed step of it
+    private static void recordException(String testCaseName, Throwable testException) {
 
+	APPLICATION_LOGS.debug("Error came while running " + testCaseName + " : " + testException.getMessage());
+	context().setTestStatus(failTest);
+	ReportUtil.addKeyword("Test case stopped by an exception", context().getKeyword(),
+		failTest + " : " + testException, null);
+    }
+
+    // OnFail policy of a test case, on_fail of the config if its cell is
+    // empty or the controller has no such column
+    public static OnFail onFail(Row testCase) {
+
+	String onFail = testCase.hasColumn("OnFail") ? testCase.get("OnFail").trim() : "";
+	return onFail.isEmpty() ? onFailDefault : OnFail.parse(onFail);
+    }
+
+    // What a failed step does to the rest of the test case
+    public enum OnFail {
+
+	// Record the remaining steps of the run as skipped
+	ABORT,
+
+	// Run the remaining steps all the same
+	CONTINUE,
+
+	// Abort the test case and skip the test cases not started yet
+	ABORT_SUITE;
+
+	// Parses Abort, Continue or AbortSuite, case and underscores ignored
+	public static OnFail parse(String onFail) {
+
+	    String policy = onFail.trim().replace("_", "");
+	    for (OnFail value : values()) {
+		if (value.name().replace("_", "").equalsIgnoreCase(policy)) {
+		    return value;
+		}
 	    }
-	    testStatus = null;
+	    throw new IllegalArgumentException("Unknown OnFail '" + onFail + "', expected Abort, Continue or AbortSuite");
 	}
+    }
+
+    // Releases the browser sessions of the current execution context
+    public static void closeSessions() {
 
-	// End test reporting
-	ReportUtil.endSuite();
+	try {
+	    if (wbdv() != null) {
+		FunctionLibrary.releaseDriver();
+	    }
+	    if (wbdv2() != null) {
+		FunctionLibrary.driver2CloseDriver();
+	    }
+	} catch (Throwable closeException) {
+	    APPLICATION_LOGS.debug("Error came while closing the browser : " + closeException.getMessage());
+	}
+    }
+
+    /*
+     * public static String getDataValue(String colName, String defaultValue)
+     * method specification :-
+     *
+     * 1) Returns the value of colName in the testData row the current run is
+     * bound to 2) Returns defaultValue outside of a data-driven run or if the
+     * data sheet has no such column
+     *
+     * @param : Column name in the data sheet, value to use otherwise
+     *
+     * @return : Value of the column for the current data row
+     */
+
+    public static String getDataValue(String colName, String defaultValue) {
+
+	Row dataRow = context().getDataRow();
+	if (dataRow == null || !dataRow.hasColumn(colName)) {
+	    return defaultValue;
+	}
+	return dataRow.get(colName);
+    }
+
+    /*
+     * public static int getDataInt(String colName, int defaultValue) method
+     * specification :-
+     *
+     * 1) Returns the value of colName in the current testData row as an int,
+     * read from the native number cell where there is one (see
+     * XlsReader.getInt) 2) Returns defaultValue as getDataValue() does 3)
+     * getDataDate() below does the same for a date cell
+     *
+     * @param : Column name in the data sheet, value to use otherwise
+     *
+     * @return : Value of the column for the current data row
+     */
+
+    public static int getDataInt(String colName, int defaultValue) {
+
+	Row dataRow = context().getDataRow();
+	if (dataRow == null || !dataRow.hasColumn(colName)) {
+	    return defaultValue;
+	}
+	try {
+	    return testData.getInt(dataRow.getSheetName(), colName, dataRow.getRowNum());
+	} catch (JXLException e) {
+	    throw new IllegalStateException("Unable to read " + colName + " of the test data : " + e.getMessage(), e);
+	} catch (IOException e) {
+	    throw new IllegalStateException("Unable to read " + colName + " of the test data : " + e.getMessage(), e);
+	}
+    }
+
+    public static LocalDate getDataDate(String colName, LocalDate defaultValue) {
+
+	Row dataRow = context().getDataRow();
+	if (dataRow == null || !dataRow.hasColumn(colName)) {
+	    return defaultValue;
+	}
+	try {
+	    return testData.getLocalDate(dataRow.getSheetName(), colName, dataRow.getRowNum());
+	} catch (JXLException e) {
+	    throw new IllegalStateException("Unable to read " + colName + " of the test data : " + e.getMessage(), e);
+	} catch (IOException e) {
+	    throw new IllegalStateException("Unable to read " + colName + " of the test data : " + e.getMessage(), e);
+	}
     }
 
     @AfterClass
     public static void endScript() throws BiffException, IOException {
 
+	// Write back the Excel cell updates still pending
+	flushWorkbooks();
+
+	// Keep the durations and outcomes for the next runs, if the config was
+	// loaded
+	if (history != null) {
+	    try {
+		history.save();
+	    } catch (IOException e) {
+		APPLICATION_LOGS.debug("Error came while writing the test history : " + e.getMessage());
+	    }
+	}
+
+	// Quit the browsers kept warm
+	try {
+	    SessionPool.shutdown();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+
 	// Update test end time under HTML test report
 	ReportUtil.updateEndTime(TestUtil.now("dd.MMMMM.yyyy hh.mm.ss aaa"));
 
@@ -263,4 +989,19 @@ public class DriverScript {
 
     }
 
+    // Writes the journaled cell updates of the controller and testData into
+    // their files
+    public static void flushWorkbooks() {
+
+	try {
+	    controller.flush();
+	    testData.flush();
+	}
+
+	catch (Exception flushException) {
+	    APPLICATION_LOGS.debug("Error came while writing into the Excel workbooks : " + flushException.getMessage());
+	}
+
+    }
+
 }
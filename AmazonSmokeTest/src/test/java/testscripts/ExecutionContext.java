@@ -0,0 +1,405 @@
+package testscripts;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import datatable.Row;
+
+//All Hail Automation !
+
+/*
+ * ExecutionContext holds the state of one run of a test case : its browser
+ * sessions, the test case and step being executed and the step results
+ * collected for the report.
+ *
+ * The context is bound to the thread running the test case and keywords reach
+ * it through ExecutionContext.current() (or the DriverScript shortcuts
+ * driver(), wbdv() ...), so test cases bound to different contexts can run on
+ * separate threads of one JVM. Configuration, data sources and logs stay
+ * shared in DriverScript.
+ *
+ * A Listener set with setListener() is told about every step and test case
+ * finished in any context, e.g. to stream results out of a ShardWorker.
+ *
+ * A test case whose step timed out goes on in a fork() of its context, the
+ * original is left to the stuck step thread (see StepWatchdog).
+ */
+
+public class ExecutionContext {
+
+    private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<ExecutionContext>();
+
+    // Told about the results of every context, null if none
+    private static volatile Listener listener;
+
+    // Browser sessions
+    private WebDriver wbdv = null;
+    private EventFiringWebDriver driver = null;
+    private WebDriver wbdv2 = null;
+    private EventFiringWebDriver driver2 = null;
+    private String defaultWindow;
+    private String currentWindowHandle;
+
+    // Test case being run
+    private String currentTest;
+    private int tcid;
+    private Row dataRow = null;
+    private int dataRowNo;
+    private int testRepeat;
+
+    // What a failed step does to the rest of the test case
+    private DriverScript.OnFail onFail = DriverScript.OnFail.CONTINUE;
+
+    // Step being run
+    private String keyword;
+    private String currentTSID;
+    private String stepDescription;
+
+    // Result of the test case so far : null while no step failed
+    private String testStatus;
+
+    // Step results for the detailed report of the test case
+    private final List<StepResult> stepResults = new ArrayList<StepResult>();
+
+    // Test cases finished in this context, in order
+    private final List<TestCaseResult> results = new ArrayList<TestCaseResult>();
+
+    // Database connection of the run, if any
+    private Connection con;
+
+    /*
+     * public static ExecutionContext current() method specification :-
+     *
+     * 1) Returns the context bound to the current thread 2) A thread without a
+     * bound context gets a fresh one, so single-threaded runs need no set-up
+     *
+     * @return : Context of the current thread
+     */
+
+    public static ExecutionContext current() {
+
+	ExecutionContext context = CURRENT.get();
+	if (context == null) {
+	    context = new ExecutionContext();
+	    CURRENT.set(context);
+	}
+	return context;
+    }
+
+    // Binds a context to the current thread, until unbind()
+    public static void bind(ExecutionContext context) {
+	CURRENT.set(context);
+    }
+
+    public static void unbind() {
+	CURRENT.remove();
+    }
+
+    // Sets the listener told about the results of every context, null for
+    // none
+    public static void setListener(Listener resultListener) {
+	listener = resultListener;
+    }
+
+    public WebDriver getWbdv() {
+	return wbdv;
+    }
+
+    public EventFiringWebDriver getDriver() {
+	return driver;
+    }
+
+    // Sets the browser session of the run, wbdv being the driver wrapped by
+    // driver
+    public void setDriver(WebDriver wbdv, EventFiringWebDriver driver) {
+	this.wbdv = wbdv;
+	this.driver = driver;
+    }
+
+    public WebDriver getWbdv2() {
+	return wbdv2;
+    }
+
+    public EventFiringWebDriver getDriver2() {
+	return driver2;
+    }
+
+    public void setDriver2(WebDriver wbdv2, EventFiringWebDriver driver2) {
+	this.wbdv2 = wbdv2;
+	this.driver2 = driver2;
+    }
+
+    public String getDefaultWindow() {
+	return defaultWindow;
+    }
+
+    public void setDefaultWindow(String defaultWindow) {
+	this.defaultWindow = defaultWindow;
+    }
+
+    // Window of the browser session the test case is working in
+    public String getCurrentWindowHandle() {
+	return currentWindowHandle;
+    }
+
+    public void setCurrentWindowHandle(String currentWindowHandle) {
+	this.currentWindowHandle = currentWindowHandle;
+    }
+
+    public String getCurrentTest() {
+	return currentTest;
+    }
+
+    public void setCurrentTest(String currentTest) {
+	this.currentTest = currentTest;
+    }
+
+    // Row no. of the test case in the controller
+    public int getTcid() {
+	return tcid;
+    }
+
+    public void setTcid(int tcid) {
+	this.tcid = tcid;
+    }
+
+    // testData row a data-driven run is bound to, null otherwise
+    public Row getDataRow() {
+	return dataRow;
+    }
+
+    public int getDataRowNo() {
+	return dataRowNo;
+    }
+
+    public void setDataRow(Row dataRow) {
+	this.dataRow = dataRow;
+	this.dataRowNo = dataRow == null ? 0 : dataRow.getRowNum();
+    }
+
+    public int getTestRepeat() {
+	return testRepeat;
+    }
+
+    public void setTestRepeat(int testRepeat) {
+	this.testRepeat = testRepeat;
+    }
+
+    public DriverScript.OnFail getOnFail() {
+	return onFail;
+    }
+
+    public void setOnFail(DriverScript.OnFail onFail) {
+	this.onFail = onFail;
+    }
+
+    public String getKeyword() {
+	return keyword;
+    }
+
+    public String getCurrentTSID() {
+	return currentTSID;
+    }
+
+    public String getStepDescription() {
+	return stepDescription;
+    }
+
+    // Sets the step being run
+    public void setStep(String currentTSID, String stepDescription, String keyword) {
+	this.currentTSID = currentTSID;
+	this.stepDescription = stepDescription;
+	this.keyword = keyword;
+    }
+
+    public String getTestStatus() {
+	return testStatus;
+    }
+
+    public void setTestStatus(String testStatus) {
+	this.testStatus = testStatus;
+    }
+
+    public List<StepResult> getStepResults() {
+	return stepResults;
+    }
+
+    // Adds the result of the step to the test case being run
+    public void addStepResult(StepResult stepResult) {
+
+	stepResults.add(stepResult);
+	Listener resultListener = listener;
+	if (resultListener != null) {
+	    resultListener.stepFinished(stepResult);
+	}
+    }
+
+    /*
+     * public TestCaseResult finishTestCase(String testCaseName, String
+     * startTime, String endTime, String status) method specification :-
+     *
+     * 1) Records the result of the test case along with the step results
+     * collected so far 2) Clears the step results and the test status for the
+     * next test case run in this context
+     *
+     * @param : Name of the test case in the report, start and end time, status
+     *
+     * @return : The recorded result
+     */
+
+    public TestCaseResult finishTestCase(String testCaseName, String startTime, String endTime, String status) {
+
+	TestCaseResult result = new TestCaseResult(testCaseName, startTime, endTime, status,
+		new ArrayList<StepResult>(stepResults));
+	results.add(result);
+	stepResults.clear();
+	testStatus = null;
+
+	Listener resultListener = listener;
+	if (resultListener != null) {
+	    resultListener.testCaseFinished(result);
+	}
+	return result;
+    }
+
+    public List<TestCaseResult> getResults() {
+	return results;
+    }
+
+    /*
+     * public ExecutionContext fork() method specification :-
+     *
+     * 1) Returns a copy of the context with the test case and step being run,
+     * their results so far and the database connection 2) The copy has no
+     * browser sessions and does not share its result lists with this context
+     *
+     * @return : Fork of the context
+     */
+
+    public ExecutionContext fork() {
+
+	ExecutionContext fork = new ExecutionContext();
+	fork.currentTest = currentTest;
+	fork.tcid = tcid;
+	fork.dataRow = dataRow;
+	fork.dataRowNo = dataRowNo;
+	fork.testRepeat = testRepeat;
+	fork.onFail = onFail;
+	fork.keyword = keyword;
+	fork.currentTSID = currentTSID;
+	fork.stepDescription = stepDescription;
+	fork.testStatus = testStatus;
+	fork.stepResults.addAll(stepResults);
+	fork.results.addAll(results);
+	fork.con = con;
+	return fork;
+    }
+
+    public Connection getConnection() {
+	return con;
+    }
+
+    public void setConnection(Connection con) {
+	this.con = con;
+    }
+
+    /*
+     * Listener is told about the results as they come, on the thread of the
+     * context they belong to
+     */
+
+    public interface Listener {
+
+	void stepFinished(StepResult stepResult);
+
+	void testCaseFinished(TestCaseResult result);
+
+    }
+
+    /*
+     * StepResult is the outcome of one keyword, as shown in the detailed report
+     * of a test case
+     */
+
+    public static class StepResult {
+
+	private final String description;
+	private final String keyword;
+	private final String status;
+	private final String screenShotPath;
+
+	public StepResult(String description, String keyword, String status, String screenShotPath) {
+	    this.description = description;
+	    this.keyword = keyword;
+	    this.status = status;
+	    this.screenShotPath = screenShotPath;
+	}
+
+	public String getDescription() {
+	    return description;
+	}
+
+	public String getKeyword() {
+	    return keyword;
+	}
+
+	public String getStatus() {
+	    return status;
+	}
+
+	// null if no screenshot was taken
+	public String getScreenShotPath() {
+	    return screenShotPath;
+	}
+
+    }
+
+    /*
+     * TestCaseResult is the outcome of one run of a test case, as shown in the
+     * index of the report
+     */
+
+    public static class TestCaseResult {
+
+	private final String testCaseName;
+	private final String startTime;
+	private final String endTime;
+	private final String status;
+	private final List<StepResult> stepResults;
+
+	public TestCaseResult(String testCaseName, String startTime, String endTime, String status,
+		List<StepResult> stepResults) {
+	    this.testCaseName = testCaseName;
+	    this.startTime = startTime;
+	    this.endTime = endTime;
+	    this.status = status;
+	    this.stepResults = stepResults;
+	}
+
+	public String getTestCaseName() {
+	    return testCaseName;
+	}
+
+	public String getStartTime() {
+	    return startTime;
+	}
+
+	public String getEndTime() {
+	    return endTime;
+	}
+
+	public String getStatus() {
+	    return status;
+	}
+
+	public List<StepResult> getStepResults() {
+	    return stepResults;
+	}
+
+    }
+
+}
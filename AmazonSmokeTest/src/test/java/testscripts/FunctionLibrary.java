@@ -17,6 +17,9 @@ import java.awt.Robot;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -83,14 +86,14 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Highlight check-box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Wait for check-box to appear on the page
 	    waitForElementToLoad(locator);
 
 	    // UnCheck check-box if already checked
-	    if (driver.findElement(locator).isSelected()) {
-		driver.findElement(locator).click();
+	    if (driver().findElement(locator).isSelected()) {
+		driver().findElement(locator).click();
 	    }
 
 	    // Log the result
@@ -129,7 +132,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Verify page source contains expected text
-	    Assert.assertTrue(driver.getPageSource().contains(expText));
+	    Assert.assertTrue(driver().getPageSource().contains(expText));
 
 	    // Log result
 	    APPLICATION_LOGS.debug("'" + expText + "' present in the Page Source");
@@ -173,10 +176,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight link
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Click on the link
-	    driver.findElement(locator).click();
+	    driver().findElement(locator).click();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Clicked on : " + elemName);
@@ -221,10 +224,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(parentLoc);
 
 	    // Highlight element
-	    FunctionLibrary.highlightElement(driver, childLoc);
+	    FunctionLibrary.highlightElement(driver(), childLoc);
 
 	    // Click on the child element which is under parent element
-	    driver.findElement(parentLoc).findElement(childLoc).click();
+	    driver().findElement(parentLoc).findElement(childLoc).click();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Clicked on : " + elemName);
@@ -267,14 +270,14 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the input-box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Clear the input-box
-	    driver.findElement(locator).clear();
+	    driver().findElement(locator).clear();
 
 	    // Check whether input-box has been cleared or not
-	    if (!driver.findElement(locator).getAttribute("value").isEmpty()) {
-		driver.findElement(locator).clear();
+	    if (!driver().findElement(locator).getAttribute("value").isEmpty()) {
+		driver().findElement(locator).clear();
 	    }
 
 	    // Log result
@@ -322,10 +325,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the input box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Send values to the input box
-	    driver.findElement(locator).sendKeys(Value);
+	    driver().findElement(locator).sendKeys(Value);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Inputted '" + Value + "' text into : '" + elemName + "'");
@@ -372,14 +375,14 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the input box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Clear the input field before sending values
 	    FunctionLibrary.clearField(locator, elemName);
 
 	    // Send values to the input box
 	    APPLICATION_LOGS.debug("Sending Values in : " + elemName);
-	    driver.findElement(locator).sendKeys(Value);
+	    driver().findElement(locator).sendKeys(Value);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Inputted '" + Value + "' text into : '" + elemName + "'");
@@ -427,10 +430,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight input box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Send values in chord to the input box
-	    driver.findElement(locator).sendKeys(Keys.chord(Value));
+	    driver().findElement(locator).sendKeys(Keys.chord(Value));
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Inputted '" + Value + "' text into : '" + elemName + "'");
@@ -605,10 +608,10 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Close current window pointed by webdriver
-	    driver.close();
+	    driver().close();
 
 	    // Switch back to the main window
-	    driver.switchTo().window(defaultWindow);
+	    driver().switchTo().window(context().getDefaultWindow());
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Closed pop-up window");
@@ -647,7 +650,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Switch to main window
-	    driver.switchTo().window(defaultWindow);
+	    driver().switchTo().window(context().getDefaultWindow());
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Switched to default window");
@@ -690,13 +693,13 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Save current window handle for future reference
-	    defaultWindow = driver.getWindowHandle();
+	    context().setDefaultWindow(driver().getWindowHandle());
 
 	    // Get all the window handles one by one
-	    for (String windowHandle : driver.getWindowHandles()) {
+	    for (String windowHandle : driver().getWindowHandles()) {
 
 		// Save new window handle
-		if (!windowHandle.equals(defaultWindow)) {
+		if (!windowHandle.equals(context().getDefaultWindow())) {
 
 		    popUpWindowHandle = windowHandle;
 
@@ -705,10 +708,10 @@ public class FunctionLibrary extends DriverScript {
 	    }
 
 	    // Switches to pop-up window
-	    driver.switchTo().window(popUpWindowHandle);
+	    driver().switchTo().window(popUpWindowHandle);
 
 	    // Maximize browser window
-	    driver.manage().window().maximize();
+	    driver().manage().window().maximize();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Switched to pop-up window");
@@ -732,7 +735,9 @@ public class FunctionLibrary extends DriverScript {
     /*
      * public static String closeDriver() method specification :-
      *
-     * 1) Closes the web driver 2) driver.close() -> Closes the webdriver
+     * 1) Closes the web driver, see releaseDriver() 2) A session living longer
+     * than a keyword (session_lifetime test_case or suite) is only reset, the
+     * DriverScript releases it when its lifetime is over
      *
      * @param : no parameters
      *
@@ -741,19 +746,76 @@ public class FunctionLibrary extends DriverScript {
 
     public static String closeDriver() throws InterruptedException {
 
+	if (sessionLifetime != SessionPool.Lifetime.STEP) {
+	    return resetDriver();
+	}
+	return releaseDriver();
+    }
+
+    /*
+     * public static String resetDriver() method specification :-
+     *
+     * 1) Resets the web driver for the next keyword or test case 2) Closes the
+     * extra windows, deletes cookies and web storage and opens about:blank
+     *
+     * @param : no parameters
+     *
+     * @return : Result of execution - Pass or fail (with cause)
+     */
+
+    public static String resetDriver() {
+
+	APPLICATION_LOGS.debug("Resetting the driver ...");
+
+	try {
+
+	    SessionPool.resetState(wbdv());
+
+	    // Log result
+	    APPLICATION_LOGS.debug("Reset the driver");
+
+	    return "Pass : Reset the driver";
+
+	}
+
+	catch (Throwable resetDriverException) {
+
+	    // Log error
+	    APPLICATION_LOGS.debug("Error came while resetting driver : " + resetDriverException.getMessage());
+
+	    return "Fail : Error came while resetting driver : " + resetDriverException.getMessage();
+
+	}
+
+    }
+
+    /*
+     * public static String releaseDriver() method specification :-
+     *
+     * 1) Closes the web driver 2) The session goes back to the SessionPool,
+     * which keeps it warm or quits it
+     *
+     * @param : no parameters
+     *
+     * @return : Result of execution - Pass or fail (with cause)
+     */
+
+    public static String releaseDriver() throws InterruptedException {
+
 	APPLICATION_LOGS.debug("Closing the driver ...");
 
 	try {
 
-	    // Close the driver
+	    // Return the driver to the session pool, which clears its cookies
+	    // and storage for the next test, or quits it
 	    // driver.close();
-	    driver.quit();
+	    boolean recycled = SessionPool.release(wbdv());
 
 	    // Make driver to point to null
-	    wbdv = null;
+	    context().setDriver(null, null);
 
-	    // Close IEDriverServer processes if browser is IE
-	    if (CONFIG.getProperty("test_browser").equals("InternetExplorer")) {
+	    // Close IEDriverServer processes if browser is IE and was quit
+	    if (!recycled && CONFIG.getProperty("test_browser").equals("InternetExplorer")) {
 
 		APPLICATION_LOGS.debug("Killing IEDriverServer process");
 
@@ -832,10 +894,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(Locator);
 
 	    // Highlight the drop-down
-	    FunctionLibrary.highlightElement(driver, Locator);
+	    FunctionLibrary.highlightElement(driver(), Locator);
 
 	    // Locate drop-down field
-	    Select select = new Select(driver.findElement(Locator));
+	    Select select = new Select(driver().findElement(Locator));
 
 	    // Select value from drop-down
 	    select.selectByVisibleText(Option);
@@ -884,10 +946,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(Locator);
 
 	    // Highlight the drop-down
-	    FunctionLibrary.highlightElement(driver, Locator);
+	    FunctionLibrary.highlightElement(driver(), Locator);
 
 	    // Locate drop-down field
-	    Select select = new Select(driver.findElement(Locator));
+	    Select select = new Select(driver().findElement(Locator));
 
 	    // Select value from drop-down
 	    select.selectByIndex(index);
@@ -937,10 +999,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the web element
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Retrieve text from web element
-	    retrievedText = driver.findElement(locator).getText().trim();
+	    retrievedText = driver().findElement(locator).getText().trim();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Retrieved text : " + retrievedText);
@@ -984,10 +1046,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the web element
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Get attribute value for the web element
-	    attributeValue = driver.findElement(locator).getAttribute(value);
+	    attributeValue = driver().findElement(locator).getAttribute(value);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Got Attribute '" + value + "'  Value from : " + elemName + " : " + attributeValue);
@@ -1030,7 +1092,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Find the list of web elements
-	    list = driver.findElements(locator);
+	    list = driver().findElements(locator);
 
 	    // Log result
 	    APPLICATION_LOGS
@@ -1076,10 +1138,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(parentLoc);
 
 	    // Highlight parent web element
-	    FunctionLibrary.highlightElement(driver, parentLoc);
+	    FunctionLibrary.highlightElement(driver(), parentLoc);
 
 	    // Find all the child web elements under parent web element
-	    list = driver.findElement(parentLoc).findElements(childLoc);
+	    list = driver().findElement(parentLoc).findElements(childLoc);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Created WebList for : " + elemName);
@@ -1118,7 +1180,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    WebDriverWait wait = new WebDriverWait(driver, 60);
+	    WebDriverWait wait = new WebDriverWait(driver(), 60);
 
 	    // Wait until expected condition (Window count increases) met
 	    wait.until(new ExpectedCondition<Boolean>() {
@@ -1158,7 +1220,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    WebDriverWait wait = new WebDriverWait(driver, 60);
+	    WebDriverWait wait = new WebDriverWait(driver(), 60);
 	    // Wait until expected condition (All documents present on the page
 	    // get ready) met
 	    wait.until(new ExpectedCondition<Boolean>() {
@@ -1211,7 +1273,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    Wait<WebDriver> wait = new WebDriverWait(driver, 60);
+	    Wait<WebDriver> wait = new WebDriverWait(driver(), 60);
 
 	    // Wait until the element is located on the page
 	    @SuppressWarnings("unused")
@@ -1291,7 +1353,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    Wait<WebDriver> wait = new WebDriverWait(driver, 60);
+	    Wait<WebDriver> wait = new WebDriverWait(driver(), 60);
 
 	    // Wait until the element get disappeared
 	    @SuppressWarnings("unused")
@@ -1409,7 +1471,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Create a new alert object
-	    Alert alert = driver.switchTo().alert();
+	    Alert alert = driver().switchTo().alert();
 
 	    // Accept the alert
 	    alert.accept();
@@ -1450,7 +1512,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Click on the web element targeted by locator
-	    methodReturnResult = FunctionLibrary.clickLink(locator, elemName);
+	    String methodReturnResult = FunctionLibrary.clickLink(locator, elemName);
 	    if (methodReturnResult.contains(failTest)) {
 		return methodReturnResult;
 	    }
@@ -1460,10 +1522,10 @@ public class FunctionLibrary extends DriverScript {
 
 	    // Log result
 	    APPLICATION_LOGS.debug(
-		    "Clicked on the element : " + elemName + " and new page loaded with title : " + driver.getTitle());
+		    "Clicked on the element : " + elemName + " and new page loaded with title : " + driver().getTitle());
 
 	    return "Pass : Clicked on the element : " + elemName + " and new page loaded with title : "
-		    + driver.getTitle();
+		    + driver().getTitle();
 
 	}
 
@@ -1501,7 +1563,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Fetch actual title of the webpage
-	    actualTitle = driver.getTitle();
+	    actualTitle = driver().getTitle();
 
 	    // Asserts whether actual title matches with expected one
 	    Assert.assertEquals(expectedTitle.trim(), actualTitle.trim());
@@ -1550,7 +1612,7 @@ public class FunctionLibrary extends DriverScript {
 	    Thread.sleep(3000L);
 
 	    // Switch control to alert
-	    alert = driver.switchTo().alert();
+	    alert = driver().switchTo().alert();
 
 	    // Get the actual alert message
 	    actualAlertText = alert.getText();
@@ -1620,12 +1682,12 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the element
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Select the element if not selected already
-	    if (!driver.findElement(locator).isSelected()) {
+	    if (!driver().findElement(locator).isSelected()) {
 
-		driver.findElement(locator).click();
+		driver().findElement(locator).click();
 
 		APPLICATION_LOGS.debug("Checked " + elemName);
 		return "Pass : Checked " + elemName;
@@ -1718,7 +1780,7 @@ public class FunctionLibrary extends DriverScript {
 
 	    waitForElementToLoad(locator);
 	    String Value1 = Integer.toString(Value);
-	    driver.findElement(locator).sendKeys(Value1);
+	    driver().findElement(locator).sendKeys(Value1);
 
 	}
 
@@ -1771,7 +1833,7 @@ public class FunctionLibrary extends DriverScript {
 
 	try {
 
-	    driver.manage().window().maximize();
+	    driver().manage().window().maximize();
 	    APPLICATION_LOGS.debug("Browser window successfully maximized");
 
 	}
@@ -1796,7 +1858,7 @@ public class FunctionLibrary extends DriverScript {
 
 	try {
 
-	    driver.navigate().to(driver.getCurrentUrl());
+	    driver().navigate().to(driver().getCurrentUrl());
 	    APPLICATION_LOGS.debug("Page successfully refreshed");
 
 	}
@@ -1817,8 +1879,8 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    waitForElementToLoad(Locator);
-	    FunctionLibrary.highlightElement(driver, Locator);
-	    Select select = new Select(driver.findElement(Locator));
+	    FunctionLibrary.highlightElement(driver(), Locator);
+	    Select select = new Select(driver().findElement(Locator));
 	    select.selectByVisibleText(Value);
 	}
 
@@ -1888,13 +1950,13 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Highlight check-box
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Wait for check-box to appear on the page
 	    waitForElementToLoad(locator);
 
 	    // Check whether web element is displayed or not
-	    isChecked = driver.findElement(locator).isSelected();
+	    isChecked = driver().findElement(locator).isSelected();
 
 	    if (isChecked) {
 		// Log the result
@@ -1924,7 +1986,7 @@ public class FunctionLibrary extends DriverScript {
 
 	// Scroll web page
 	try {
-	    (driver).executeScript("scroll(" + pixelToScrollHorizontally + "," + pixelToScrollVertically + ")");
+	    (driver()).executeScript("scroll(" + pixelToScrollHorizontally + "," + pixelToScrollVertically + ")");
 	}
 
 	catch (Throwable webPageScrollException) {
@@ -1979,7 +2041,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Scroll DIV towards right
-	    driver.executeScript("document.getElementById('" + ID + "').scrollLeft = 1000");
+	    driver().executeScript("document.getElementById('" + ID + "').scrollLeft = 1000");
 	    result = "Pass: " + "Scrolled successfully towards right";
 
 	}
@@ -2004,6 +2066,7 @@ public class FunctionLibrary extends DriverScript {
      *
      * 1) Returns date converted from a String format 2) SimpleDateFormat(
      * "MMMM dd, yyyy").parse(retrievedString) -> Converts String to Date format
+     * 3) For a date of the test data use convertDataToDate(), nothing is parsed
      *
      * @param : date in string format, date format
      *
@@ -2038,6 +2101,48 @@ public class FunctionLibrary extends DriverScript {
 
     }
 
+    /*
+     * public static Date convertDataToDate(String colName) method specification
+     * :-
+     *
+     * 1) Returns the date of colName in the current testData row 2)
+     * getDataDate(colName, null) -> Reads the native date cell, or the date
+     * parsed once per sheet, instead of parsing the text on every call
+     *
+     * @param : Column name in the data sheet
+     *
+     * @return : Date at the start of that day, null if there is none
+     */
+
+    public static Date convertDataToDate(String colName) {
+
+	Date date = null;
+
+	APPLICATION_LOGS.debug("Reading date of the test data ...");
+
+	try {
+
+	    LocalDate dataDate = getDataDate(colName, null);
+	    if (dataDate != null) {
+		date = Date.from(dataDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	    }
+
+	    // Log result
+	    APPLICATION_LOGS.debug("Date retrieved : " + date);
+
+	}
+
+	catch (Throwable convertDataToDateException) {
+
+	    // Log error
+	    APPLICATION_LOGS.debug("Error while reading date of the test data : " + convertDataToDateException.getMessage());
+
+	}
+
+	return date;
+
+    }
+
     /*
      * public static Boolean compareDates(Date date1, Date date2, String elemName)
      * method specification :-
@@ -2182,10 +2287,10 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Highlight the web element
-	    FunctionLibrary.highlightElement(driver, locator);
+	    FunctionLibrary.highlightElement(driver(), locator);
 
 	    // Get CSS value for the web element
-	    cssValue = driver.findElement(locator).getCssValue(value);
+	    cssValue = driver().findElement(locator).getCssValue(value);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Got Attribute '" + value + "'  Value from : " + elemName + " : " + cssValue);
@@ -2312,10 +2417,10 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Initialize Javascript executor
-	    JavascriptExecutor js = driver;
+	    JavascriptExecutor js = driver();
 
 	    // Store the webelement
-	    WebElement element = driver.findElement(locator);
+	    WebElement element = driver().findElement(locator);
 
 	    // Substituting/Adding an id for future reference
 	    js.executeScript("arguments[0].setAttribute('id', arguments[1]);", element, Id);
@@ -2361,14 +2466,14 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Initialize Javascript executor
-	    JavascriptExecutor js = driver;
+	    JavascriptExecutor js = driver();
 
 	    // Scroll inside web element vertically
-	    js.executeScript("arguments[0].scrollTop = arguments[1];", driver.findElement(locator),
+	    js.executeScript("arguments[0].scrollTop = arguments[1];", driver().findElement(locator),
 		    pixelToScrollVertically);
 
 	    // Scroll inside web element horizontally
-	    js.executeScript("arguments[0].scrollLeft = arguments[1];", driver.findElement(locator),
+	    js.executeScript("arguments[0].scrollLeft = arguments[1];", driver().findElement(locator),
 		    pixelToScrollHorizontally);
 
 	}
@@ -2406,7 +2511,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Initialize JavascriptExecutor
-	    js = driver;
+	    js = driver();
 
 	    // Get browser info
 	    browserInfo = (String) js.executeScript("return navigator.userAgent;");
@@ -2517,7 +2622,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Get page title
-	    pageTitle = driver.getTitle();
+	    pageTitle = driver().getTitle();
 
 	} catch (Throwable getPageTitleError) {
 
@@ -2548,7 +2653,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Get current url
-	    currentUrl = driver.getCurrentUrl();
+	    currentUrl = driver().getCurrentUrl();
 
 	} catch (Throwable getCurrentUrlError) {
 
@@ -2579,7 +2684,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Load url
-	    driver.navigate().to(url);
+	    driver().navigate().to(url);
 
 	} catch (Throwable loadingUrlError) {
 
@@ -2611,7 +2716,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Check whether web element is displayed or not
-	    driver.findElement(locator);
+	    driver().findElement(locator);
 
 	    APPLICATION_LOGS.debug(elemName + " is present on the page");
 	    return true;
@@ -2646,10 +2751,10 @@ public class FunctionLibrary extends DriverScript {
 
 	try {
 
-	    driver.manage().timeouts().implicitlyWait(2, TimeUnit.SECONDS);
+	    driver().manage().timeouts().implicitlyWait(2, TimeUnit.SECONDS);
 
 	    // Check whether web element is displayed or not
-	    isDisplayed = driver.findElement(locator).isDisplayed();
+	    isDisplayed = driver().findElement(locator).isDisplayed();
 
 	    if (isDisplayed) {
 		APPLICATION_LOGS.debug(elemName + " is displayed on the page");
@@ -2690,7 +2795,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Check whether web element is enabled or not
-	    isEnabled = driver.findElement(locator).isEnabled();
+	    isEnabled = driver().findElement(locator).isEnabled();
 
 	    if (isEnabled) {
 		APPLICATION_LOGS.debug(elemName + " is enabled on the page");
@@ -2731,7 +2836,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Check whether web element is selected or not
-	    isSelected = driver.findElement(locator).isSelected();
+	    isSelected = driver().findElement(locator).isSelected();
 
 	    if (isSelected) {
 		APPLICATION_LOGS.debug(elemName + " is selected on the page");
@@ -2866,7 +2971,8 @@ public class FunctionLibrary extends DriverScript {
     /**
      * Brief Description Of getNextOrPreviousDate(String startDate, int days, String
      * dateFormat) method Add no. of days to the current Date Deduct no. of days
-     * from the curent date
+     * from the curent date. For a start date of the test data use
+     * getNextOrPreviousDataDate()
      */
 
     public static String getNextOrPreviousDate(String startDate, int days, String dateFormat) throws ParseException {
@@ -2894,6 +3000,44 @@ public class FunctionLibrary extends DriverScript {
 
     }
 
+    /*
+     * public static String getNextOrPreviousDataDate(String colName, int days,
+     * String dateFormat) method specification :-
+     *
+     * 1) Adds days (negative to deduct them) to the date of colName in the
+     * current testData row 2) The date is read with getDataDate(), only the
+     * result is formatted
+     *
+     * @param : Column name in the data sheet, no. of days, format of the result
+     *
+     * @return : New date in dateFormat, null if the data row has no date
+     */
+
+    public static String getNextOrPreviousDataDate(String colName, int days, String dateFormat) {
+
+	String newDate = null;
+
+	try {
+
+	    LocalDate startDate = getDataDate(colName, null);
+	    if (startDate != null) {
+		newDate = startDate.plusDays(days).format(DateTimeFormatter.ofPattern(dateFormat));
+	    }
+
+	}
+
+	catch (Throwable dateException) {
+
+	    APPLICATION_LOGS.debug("Error came while getting next or previous date : " + dateException.getMessage());
+
+	}
+
+	APPLICATION_LOGS.debug("New date After addition or substarction of Days : " + newDate);
+
+	return newDate;
+
+    }
+
     /**
      * Move to web element. This function is useful to move view-port within web
      * element. Works for page scroll only.
@@ -2918,7 +3062,7 @@ public class FunctionLibrary extends DriverScript {
 	APPLICATION_LOGS.debug("Moving to : " + elemName + " ...");
 
 	// Initiate Actions class
-	Actions action = new Actions(driver);
+	Actions action = new Actions(driver());
 
 	try {
 
@@ -2926,7 +3070,7 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Move to element
-	    action.moveToElement(driver.findElement(locator)).build().perform();
+	    action.moveToElement(driver().findElement(locator)).build().perform();
 
 	    // Log the result
 	    APPLICATION_LOGS.debug("Moved to : " + elemName);
@@ -2952,7 +3096,7 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 	    // Switch to iframe
 	    APPLICATION_LOGS.debug("Switching to " + elemname + ": iframe ....");
-	    driver.switchTo().frame(driver.findElement(locator));
+	    driver().switchTo().frame(driver().findElement(locator));
 
 	    APPLICATION_LOGS.debug("Switched to " + elemname + ": iframe ....");
 	    return "Pass : switch to " + elemname + ": iframe ";
@@ -2969,7 +3113,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Switch to alert
-	    driver.switchTo().alert();
+	    driver().switchTo().alert();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Switched to Alert");
@@ -3006,7 +3150,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Create a new alert object
-	    Alert alert = driver.switchTo().alert();
+	    Alert alert = driver().switchTo().alert();
 
 	    // Dismiss the alert
 	    alert.dismiss();
@@ -3047,7 +3191,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Create a new alert object
-	    Alert alert = driver.switchTo().alert();
+	    Alert alert = driver().switchTo().alert();
 
 	    // Get alert text
 	    alertText = alert.getText();
@@ -3068,8 +3212,8 @@ public class FunctionLibrary extends DriverScript {
     public static String mouseOverWebElement(By locator, String elemName) {
 	try {
 
-	    Actions builder = new Actions(driver);
-	    builder.moveToElement(driver.findElement(locator)).build().perform();
+	    Actions builder = new Actions(driver());
+	    builder.moveToElement(driver().findElement(locator)).build().perform();
 	    System.out.println(elemName + " Mouse hovered");
 	    APPLICATION_LOGS.debug(elemName + " Mouse hovered");
 	    return "Pass";
@@ -3078,6 +3222,7 @@ public class FunctionLibrary extends DriverScript {
 	}
     }
 
+    // For a number of the test data use extractNumberFromData()
     public static int extractNumberFromString(String stringWithNumbers) {
 
 	int integerInString = 0;
@@ -3110,6 +3255,46 @@ public class FunctionLibrary extends DriverScript {
 
     }
 
+    /*
+     * public static int extractNumberFromData(String colName) method
+     * specification :-
+     *
+     * 1) Returns the number of colName in the current testData row 2)
+     * getDataInt(colName, 0) -> Reads the native number cell, or the number
+     * parsed once per sheet, instead of scanning the text for digits
+     *
+     * @param : Column name in the data sheet
+     *
+     * @return : Number of the column, 0 if there is none
+     */
+
+    public static int extractNumberFromData(String colName) {
+
+	int number = 0;
+
+	APPLICATION_LOGS.debug("Reading number of the test data ...");
+
+	try {
+
+	    number = getDataInt(colName, 0);
+
+	    // Log result
+	    APPLICATION_LOGS.debug("Integer retreived : " + number);
+
+	}
+
+	catch (Throwable extractNumberFromDataException) {
+
+	    // Log error
+	    APPLICATION_LOGS.debug(
+		    "Error while reading number of the test data : " + extractNumberFromDataException.getMessage());
+
+	}
+
+	return number;
+
+    }
+
     public static String[] extractAllTextFromWebTable(By locator) {
 
 	String[] rowTxt = null;
@@ -3119,7 +3304,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // get the rows of the table
-	    List<WebElement> tableRows = driver.findElements(locator);
+	    List<WebElement> tableRows = driver().findElements(locator);
 
 	    // get the Text from the table
 	    for (WebElement row : tableRows) {
@@ -3240,7 +3425,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    Wait<WebDriver> wait = new WebDriverWait(driver2, 60);
+	    Wait<WebDriver> wait = new WebDriverWait(driver2(), 60);
 
 	    // Wait until the element get disappeared
 	    @SuppressWarnings("unused")
@@ -3285,7 +3470,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Fetch actual title of the webpage
-	    actualTitle = driver2.getTitle();
+	    actualTitle = driver2().getTitle();
 
 	    // Asserts whether actual title matches with expected one
 	    Assert.assertEquals(expectedTitle.trim(), actualTitle.trim());
@@ -3327,7 +3512,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Get page title
-	    pageTitle = driver2.getTitle();
+	    pageTitle = driver2().getTitle();
 
 	} catch (Throwable getPageTitleError) {
 
@@ -3360,7 +3545,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    Wait<WebDriver> wait = new WebDriverWait(driver2, 60);
+	    Wait<WebDriver> wait = new WebDriverWait(driver2(), 60);
 
 	    // Wait until the element is located on the page
 	    @SuppressWarnings("unused")
@@ -3398,7 +3583,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    WebDriverWait wait = new WebDriverWait(driver2, 60);
+	    WebDriverWait wait = new WebDriverWait(driver2(), 60);
 	    // Wait until expected condition (All documents present on the page
 	    // get ready) met
 	    wait.until(new ExpectedCondition<Boolean>() {
@@ -3450,10 +3635,10 @@ public class FunctionLibrary extends DriverScript {
 
 	try {
 
-	    driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+	    driver().manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
 
 	    // Check whether web element is displayed or not
-	    isDisplayed = driver2.findElement(locator).isDisplayed();
+	    isDisplayed = driver2().findElement(locator).isDisplayed();
 
 	    if (isDisplayed) {
 		APPLICATION_LOGS.debug(elemName + " is displayed on the page");
@@ -3482,14 +3667,14 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(locator);
 
 	    // Highlight the input box
-	    FunctionLibrary.highlightElement(driver2, locator);
+	    FunctionLibrary.highlightElement(driver2(), locator);
 
 	    // Clear the input field before sending values
 	    FunctionLibrary.driver2ClearField(locator, elemName);
 
 	    // Send values to the input box
 	    APPLICATION_LOGS.debug("Sending Values in : " + elemName);
-	    driver2.findElement(locator).sendKeys(Value);
+	    driver2().findElement(locator).sendKeys(Value);
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Inputted '" + Value + "' text into : '" + elemName + "'");
@@ -3519,14 +3704,14 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(locator);
 
 	    // Highlight the input-box
-	    FunctionLibrary.highlightElement(driver2, locator);
+	    FunctionLibrary.highlightElement(driver2(), locator);
 
 	    // Clear the input-box
-	    driver2.findElement(locator).clear();
+	    driver2().findElement(locator).clear();
 
 	    // Check whether input-box has been cleared or not
-	    if (!driver2.findElement(locator).getAttribute("value").isEmpty()) {
-		driver2.findElement(locator).clear();
+	    if (!driver2().findElement(locator).getAttribute("value").isEmpty()) {
+		driver2().findElement(locator).clear();
 	    }
 
 	    // Log result
@@ -3552,7 +3737,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Click on the web element targeted by locator
-	    methodReturnResult = FunctionLibrary.driver2ClickLink(locator, elemName);
+	    String methodReturnResult = FunctionLibrary.driver2ClickLink(locator, elemName);
 	    if (methodReturnResult.contains(failTest)) {
 		return methodReturnResult;
 	    }
@@ -3562,10 +3747,10 @@ public class FunctionLibrary extends DriverScript {
 
 	    // Log result
 	    APPLICATION_LOGS.debug(
-		    "Clicked on the element : " + elemName + " and new page loaded with title : " + driver2.getTitle());
+		    "Clicked on the element : " + elemName + " and new page loaded with title : " + driver2().getTitle());
 
 	    return "Pass : Clicked on the element : " + elemName + " and new page loaded with title : "
-		    + driver2.getTitle();
+		    + driver2().getTitle();
 
 	}
 
@@ -3605,10 +3790,10 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(locator);
 
 	    // Highlight link
-	    FunctionLibrary.highlightElement(driver2, locator);
+	    FunctionLibrary.highlightElement(driver2(), locator);
 
 	    // Click on the link
-	    driver2.findElement(locator).click();
+	    driver2().findElement(locator).click();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Clicked on : " + elemName);
@@ -3653,10 +3838,10 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(locator);
 
 	    // Highlight the web element
-	    FunctionLibrary.highlightElement(driver2, locator);
+	    FunctionLibrary.highlightElement(driver2(), locator);
 
 	    // Retrieve text from web element
-	    retrievedText = driver2.findElement(locator).getText().trim();
+	    retrievedText = driver2().findElement(locator).getText().trim();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Retrieved text : " + retrievedText);
@@ -3699,10 +3884,10 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(Locator);
 
 	    // Highlight the drop-down
-	    FunctionLibrary.highlightElement(driver2, Locator);
+	    FunctionLibrary.highlightElement(driver2(), Locator);
 
 	    // Locate drop-down field
-	    Select select = new Select(driver2.findElement(Locator));
+	    Select select = new Select(driver2().findElement(Locator));
 
 	    // Select value from drop-down
 	    select.selectByIndex(index);
@@ -3751,10 +3936,10 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(Locator);
 
 	    // Highlight the drop-down
-	    FunctionLibrary.highlightElement(driver2, Locator);
+	    FunctionLibrary.highlightElement(driver2(), Locator);
 
 	    // Locate drop-down field
-	    Select select = new Select(driver2.findElement(Locator));
+	    Select select = new Select(driver2().findElement(Locator));
 
 	    // Select value from drop-down
 	    select.selectByVisibleText(Option);
@@ -3799,12 +3984,12 @@ public class FunctionLibrary extends DriverScript {
 	    driver2WaitForElementToLoad(locator);
 
 	    // Highlight the element
-	    FunctionLibrary.highlightElement(driver2, locator);
+	    FunctionLibrary.highlightElement(driver2(), locator);
 
 	    // Select the element if not selected already
-	    if (!driver2.findElement(locator).isSelected()) {
+	    if (!driver2().findElement(locator).isSelected()) {
 
-		driver2.findElement(locator).click();
+		driver2().findElement(locator).click();
 
 		APPLICATION_LOGS.debug("Checked " + elemName);
 		return "Pass : Checked " + elemName;
@@ -3850,7 +4035,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Waits for 60 seconds
-	    WebDriverWait wait = new WebDriverWait(driver2, 60);
+	    WebDriverWait wait = new WebDriverWait(driver2(), 60);
 
 	    // Wait until expected condition (Window count increases) met
 	    wait.until(new ExpectedCondition<Boolean>() {
@@ -3895,13 +4080,13 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Save current window handle for future reference
-	    defaultWindow = driver2.getWindowHandle();
+	    context().setDefaultWindow(driver2().getWindowHandle());
 
 	    // Get all the window handles one by one
-	    for (String windowHandle : driver2.getWindowHandles()) {
+	    for (String windowHandle : driver2().getWindowHandles()) {
 
 		// Save new window handle
-		if (!windowHandle.equals(defaultWindow)) {
+		if (!windowHandle.equals(context().getDefaultWindow())) {
 
 		    popUpWindowHandle = windowHandle;
 
@@ -3910,10 +4095,10 @@ public class FunctionLibrary extends DriverScript {
 	    }
 
 	    // Switches to pop-up window
-	    driver2.switchTo().window(popUpWindowHandle);
+	    driver2().switchTo().window(popUpWindowHandle);
 
 	    // Maximize browser window
-	    driver2.manage().window().maximize();
+	    driver2().manage().window().maximize();
 
 	    // Log result
 	    APPLICATION_LOGS.debug("Switched to pop-up window");
@@ -4043,7 +4228,7 @@ public class FunctionLibrary extends DriverScript {
 
     public static boolean isAlertPresent() {
 	try {
-	    driver.switchTo().alert();
+	    driver().switchTo().alert();
 	    return true;
 	} catch (NoAlertPresentException Ex) {
 	    return false;
@@ -4068,7 +4253,7 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Create a new alert object
-	    Alert alert = driver2.switchTo().alert();
+	    Alert alert = driver2().switchTo().alert();
 
 	    // Accept the alert
 	    alert.accept();
@@ -4120,14 +4305,14 @@ public class FunctionLibrary extends DriverScript {
 	try {
 
 	    // Initialize Javascript executor
-	    JavascriptExecutor js = driver2;
+	    JavascriptExecutor js = driver2();
 
 	    // Scroll inside web element vertically
-	    js.executeScript("arguments[0].scrollTop = arguments[1];", driver2.findElement(locator),
+	    js.executeScript("arguments[0].scrollTop = arguments[1];", driver2().findElement(locator),
 		    pixelToScrollVertically);
 
 	    // Scroll inside web element horizontally
-	    js.executeScript("arguments[0].scrollLeft = arguments[1];", driver2.findElement(locator),
+	    js.executeScript("arguments[0].scrollLeft = arguments[1];", driver2().findElement(locator),
 		    pixelToScrollHorizontally);
 
 	}
@@ -4153,7 +4338,7 @@ public class FunctionLibrary extends DriverScript {
      */
     public static void fluentWait(final String locator) {
 
-	Wait<WebDriver> wait = new FluentWait<WebDriver>(driver).withTimeout(30, TimeUnit.SECONDS)
+	Wait<WebDriver> wait = new FluentWait<WebDriver>(driver()).withTimeout(30, TimeUnit.SECONDS)
 		.pollingEvery(5, TimeUnit.SECONDS).ignoring(NoSuchElementException.class);
 	wait.until(new Function<WebDriver, WebElement>() {
 	    public WebElement apply(WebDriver driver) {
@@ -4181,10 +4366,10 @@ public class FunctionLibrary extends DriverScript {
 
 	    // Close the driver
 	    // driver.close();
-	    driver2.quit();
+	    driver2().quit();
 
 	    // Make driver to point to null
-	    wbdv2 = null;
+	    context().setDriver2(null, null);
 
 	    // Close IEDriverServer processes if browser is IE
 	    if (CONFIG.getProperty("test_browser").equals("InternetExplorer")) {
@@ -4268,7 +4453,7 @@ public class FunctionLibrary extends DriverScript {
 	APPLICATION_LOGS.debug("Moving to : " + elemName + " ...");
 
 	// Initiate Actions class
-	Actions action = new Actions(driver);
+	Actions action = new Actions(driver());
 
 	try {
 
@@ -4276,7 +4461,7 @@ public class FunctionLibrary extends DriverScript {
 	    waitForElementToLoad(locator);
 
 	    // Move to element
-	    action.moveToElement(driver.findElement(locator)).click().build().perform();
+	    action.moveToElement(driver().findElement(locator)).click().build().perform();
 
 	    // Log the result
 	    APPLICATION_LOGS.debug("Moved to : " + elemName);
@@ -4302,7 +4487,7 @@ public class FunctionLibrary extends DriverScript {
 	int count = 0;
 
 	try {
-	    count = driver.findElements(locator).size();
+	    count = driver().findElements(locator).size();
 	} catch (Throwable tableCountException) {
 	    APPLICATION_LOGS.debug("Unable to get the count of rows in table.");
 	    return failTest + " : Unable to get the count of rows in table.";
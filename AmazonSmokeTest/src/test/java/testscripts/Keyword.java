@@ -9,7 +9,6 @@ import jxl.write.biff.RowsExceededException;
 import testcases.AmazonTest;
 
 public class Keyword {
-    public static String methodReturnResult = null;
 
     /*****************************
      * DischargeComplete
@@ -0,0 +1,123 @@
+package testscripts;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import datatable.DataSource;
+import datatable.Row;
+import datatable.Rows;
+import jxl.JXLException;
+
+//All Hail Automation !
+
+/*
+ * KeywordRegistry resolves the keywords of the test plan to the methods of a
+ * keyword class, e.g. Keyword. A keyword is a public static method without
+ * parameters that returns the result of the step as a String.
+ *
+ * Every keyword is looked up once and kept as a MethodHandle, so running a
+ * step is a plain call. validate() checks the keywords of the test cases to
+ * run up front, before any browser is launched.
+ */
+
+public class KeywordRegistry {
+
+    private static final MethodType KEYWORD_TYPE = MethodType.methodType(String.class);
+
+    private final Class<?> keywordClass;
+
+    // Resolved keywords by name
+    private final ConcurrentMap<String, MethodHandle> handles = new ConcurrentHashMap<String, MethodHandle>();
+
+    public KeywordRegistry(Class<?> keywordClass) {
+	this.keywordClass = keywordClass;
+    }
+
+    /*
+     * public MethodHandle get(String keyword) method specification :-
+     *
+     * 1) Returns the MethodHandle of the keyword, of type ()String 2) Throws
+     * IllegalArgumentException if the keyword class has no such keyword
+     *
+     * @param : Name of the keyword
+     *
+     * @return : MethodHandle to run the keyword with invokeExact()
+     */
+
+    public MethodHandle get(String keyword) {
+
+	MethodHandle handle = handles.get(keyword);
+	if (handle == null) {
+	    try {
+		handle = MethodHandles.publicLookup().findStatic(keywordClass, keyword, KEYWORD_TYPE);
+	    } catch (ReflectiveOperationException e) {
+		throw new IllegalArgumentException("Unknown keyword '" + keyword + "' : " + keywordClass.getSimpleName()
+			+ " has no public static String " + keyword + "() method");
+	    }
+	    handles.put(keyword, handle);
+	}
+	return handle;
+    }
+
+    /*
+     * public String invoke(String keyword) method specification :-
+     *
+     * 1) Runs the keyword and returns its result 2) Exceptions thrown by the
+     * keyword are passed on as they are
+     *
+     * @param : Name of the keyword
+     *
+     * @return : Result of the keyword, starting with "Pass" or "Fail"
+     */
+
+    public String invoke(String keyword) throws Throwable {
+	return (String) get(keyword).invokeExact();
+    }
+
+    /*
+     * public void validate(DataSource controller, Iterable<Row> testCases)
+     * method specification :-
+     *
+     * 1) Resolves the keyword of every step of the test cases whose Runmode is
+     * 'Y' 2) Throws IllegalStateException listing every unknown keyword with
+     * its test case and TSID, if any
+     *
+     * @param : Controller, rows of the test cases in its first sheet
+     */
+
+    public void validate(DataSource controller, Iterable<Row> testCases) throws JXLException, IOException {
+
+	List<String> unknown = new ArrayList<String>();
+
+	for (Row testCase : testCases) {
+
+	    if (!testCase.get("Runmode").equals("Y")) {
+		continue;
+	    }
+
+	    String currentTest = testCase.get("TCID").trim();
+	    try (Rows steps = controller.rows(currentTest)) {
+		for (Row step : steps) {
+		    String keyword = step.get("Keyword").trim();
+		    try {
+			get(keyword);
+		    } catch (IllegalArgumentException e) {
+			unknown.add(currentTest + " " + step.get("TSID").trim() + " : '" + keyword + "'");
+		    }
+		}
+	    }
+	}
+
+	if (!unknown.isEmpty()) {
+	    throw new IllegalStateException("Unknown keywords in the test plan, " + keywordClass.getSimpleName()
+		    + " has no public static String method without parameters for : " + unknown);
+	}
+    }
+
+}
@@ -0,0 +1,371 @@
+package testscripts;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.firefox.internal.ProfilesIni;
+import org.openqa.selenium.ie.InternetExplorerDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+//All Hail Automation !
+
+/*
+ * SessionPool keeps browser sessions warm between test cases. Launching a
+ * browser takes seconds, clearing its cookies and storage does not.
+ *
+ * 1) prelaunch() starts browsers on background threads as soon as the config
+ * is loaded, while the workbooks are read and the report is set up 2)
+ * acquire() hands out an idle session, waiting for a launch in progress or
+ * launching one if there is none 3) release() resets the state of a session
+ * (see resetState()) and keeps it for the next acquire() ; sessions beyond
+ * the pool size are quit 4) shutdown() quits every idle session at the end of
+ * the run 5) abandon() gives up a session stuck in a call and launches a
+ * replacement
+ *
+ * The pool size is session_pool_size in config.properties (parallel_sessions
+ * x data_row_workers if not set). With a size of 0 nothing is pre-launched
+ * and released sessions are quit, as before.
+ *
+ * How long a test case keeps its session before releasing it is the Lifetime
+ * set by session_lifetime in config.properties.
+ */
+
+public class SessionPool extends DriverScript {
+
+    // How long a session stays with a test case before it is released
+    public enum Lifetime {
+
+	// Released after every keyword
+	STEP,
+
+	// Released after the test case (after each data row of a data-driven
+	// one), kept across its keywords
+	TEST_CASE,
+
+	// Kept by the worker for the whole suite, reset between test cases
+	SUITE;
+
+	// Parses step, test_case or suite
+	public static Lifetime parse(String lifetime) {
+
+	    for (Lifetime value : values()) {
+		if (value.name().equalsIgnoreCase(lifetime.trim())) {
+		    return value;
+		}
+	    }
+	    throw new IllegalArgumentException(
+		    "Unknown session_lifetime '" + lifetime + "', expected step, test_case or suite");
+	}
+    }
+
+    // Idle sessions, ready to be handed out
+    private static final LinkedBlockingQueue<WebDriver> idle = new LinkedBlockingQueue<WebDriver>();
+
+    // No. of browsers being launched in the background
+    private static final AtomicInteger launching = new AtomicInteger();
+
+    // No. of idle sessions kept by the pool
+    private static volatile int poolSize = 0;
+
+    /*
+     * public static void prelaunch(int sessions) method specification :-
+     *
+     * 1) Sets the pool size to sessions 2) Launches that many browsers on
+     * background threads and returns at once
+     *
+     * @param : No. of sessions to keep warm
+     */
+
+    public static void prelaunch(int sessions) {
+
+	poolSize = sessions;
+
+	for (int i = 1; i <= sessions; i++) {
+	    launchInBackground("session-prelaunch-" + i);
+	}
+
+	APPLICATION_LOGS.debug("Pre-launching " + sessions + " browser instances ...");
+    }
+
+    /*
+     * public static void abandon(WebDriver wbdv) method specification :-
+     *
+     * 1) Quits a session stuck in a WebDriver call on a background thread, the
+     * hung browser may not answer quit() either 2) Launches a replacement in
+     * the background, so the pool keeps its size
+     *
+     * @param : Browser session given up, null for none
+     */
+
+    public static void abandon(final WebDriver wbdv) {
+
+	if (wbdv == null) {
+	    return;
+	}
+
+	Thread quitter = new Thread(new Runnable() {
+	    public void run() {
+		quit(wbdv);
+	    }
+	}, "session-abandon");
+	quitter.setDaemon(true);
+	quitter.start();
+
+	if (poolSize > 0) {
+	    launchInBackground("session-replace");
+	}
+    }
+
+    // Launches a browser into the idle sessions on a daemon thread
+    private static void launchInBackground(String threadName) {
+
+	launching.incrementAndGet();
+	Thread launcher = new Thread(new Runnable() {
+	    public void run() {
+		try {
+		    idle.offer(createBrowser());
+		} catch (Throwable initBrowserException) {
+		    APPLICATION_LOGS
+			    .debug("Error came while pre-launching a browser instance : " + initBrowserException.getMessage());
+		} finally {
+		    launching.decrementAndGet();
+		}
+	    }
+	}, threadName);
+	launcher.setDaemon(true);
+	launcher.start();
+    }
+
+    /*
+     * public static WebDriver acquire() method specification :-
+     *
+     * 1) Returns an idle session of the pool 2) Waits for the browsers still
+     * being launched in the background if no session is idle 3) Launches a
+     * browser on the calling thread if none is idle nor being launched 4)
+     * Sessions whose browser died while idle are dropped
+     *
+     * @return : Browser session, with no cookies nor storage
+     */
+
+    public static WebDriver acquire() throws MalformedURLException, InterruptedException {
+
+	while (true) {
+
+	    boolean pending = launching.get() > 0;
+	    WebDriver wbdv = idle.poll(pending ? 1 : 0, TimeUnit.SECONDS);
+
+	    if (wbdv != null) {
+		if (isAlive(wbdv)) {
+		    return wbdv;
+		}
+		quit(wbdv);
+		continue;
+	    }
+
+	    if (!pending) {
+		return createBrowser();
+	    }
+	}
+    }
+
+    /*
+     * public static boolean release(WebDriver wbdv) method specification :-
+     *
+     * 1) Resets the state of the session and keeps it for the next acquire()
+     * 2) Quits the session instead if the pool is full or the session could
+     * not be reset
+     *
+     * @param : Browser session returned by acquire()
+     *
+     * @return : true if the session was kept, false if it was quit
+     */
+
+    public static boolean release(WebDriver wbdv) {
+
+	if (wbdv == null) {
+	    return false;
+	}
+
+	if (idle.size() < poolSize) {
+	    try {
+		resetState(wbdv);
+		idle.offer(wbdv);
+		return true;
+	    } catch (Throwable resetException) {
+		APPLICATION_LOGS.debug("Error came while clearing the browser session : " + resetException.getMessage());
+	    }
+	}
+
+	quit(wbdv);
+	return false;
+    }
+
+    /*
+     * public static void resetState(WebDriver wbdv) method specification :-
+     *
+     * 1) Closes every window of the session but the first one 2) Deletes the
+     * cookies, localStorage and sessionStorage of the site open in it 3)
+     * Navigates to about:blank, so the next test case starts from an empty
+     * page
+     *
+     * @param : Browser session
+     */
+
+    public static void resetState(WebDriver wbdv) {
+
+	// Pop-ups and other extra windows
+	Set<String> windowHandles = wbdv.getWindowHandles();
+	String firstWindow = windowHandles.iterator().next();
+	for (String windowHandle : windowHandles) {
+	    if (!windowHandle.equals(firstWindow)) {
+		wbdv.switchTo().window(windowHandle);
+		wbdv.close();
+	    }
+	}
+	wbdv.switchTo().window(firstWindow);
+
+	wbdv.manage().deleteAllCookies();
+
+	if (wbdv instanceof JavascriptExecutor) {
+	    // Pages without web storage (e.g. about:blank) throw on access
+	    ((JavascriptExecutor) wbdv).executeScript(
+		    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+	}
+
+	wbdv.navigate().to("about:blank");
+    }
+
+    /*
+     * public static void shutdown() method specification :-
+     *
+     * 1) Waits for the browsers still being launched 2) Quits every idle
+     * session
+     */
+
+    public static void shutdown() throws InterruptedException {
+
+	while (launching.get() > 0 || !idle.isEmpty()) {
+	    WebDriver wbdv = idle.poll(1, TimeUnit.SECONDS);
+	    if (wbdv != null) {
+		quit(wbdv);
+	    }
+	}
+    }
+
+    private static boolean isAlive(WebDriver wbdv) {
+
+	try {
+	    wbdv.getWindowHandles();
+	    return true;
+	} catch (Throwable deadBrowser) {
+	    return false;
+	}
+    }
+
+    private static void quit(WebDriver wbdv) {
+
+	try {
+	    wbdv.quit();
+	} catch (Throwable quitException) {
+	    APPLICATION_LOGS.debug("Error came while quitting the browser : " + quitException.getMessage());
+	}
+    }
+
+    /*
+     * public static WebDriver createBrowser() method specification :-
+     *
+     * 1) Launches a browser as set by test_browser in config.properties, on
+     * the Selenium grid at remote_ip if is_remote is true 2) Sets an implicit
+     * wait of 30 seconds and maximizes the window
+     *
+     * @return : New browser session
+     */
+
+    public static WebDriver createBrowser() throws MalformedURLException {
+
+	DesiredCapabilities dc = null;
+	WebDriver wbdv = null;
+
+	if (CONFIG.getProperty("is_remote").equals("true")) {
+
+	    // Generate Remote address
+	    String remote_address = "http://" + CONFIG.getProperty("remote_ip") + ":4444/wd/hub";
+	    URL remote_url = new URL(remote_address);
+
+	    if (CONFIG.getProperty("test_browser").contains("Internet Explorer")) {
+
+		dc = DesiredCapabilities.internetExplorer();
+		dc.setCapability("silent", true);
+
+	    }
+
+	    else {
+
+		// FirefoxProfile profile =
+		// allProfiles.getProfile("default");
+		// profile.setPreference("plugins.hide_infobar_for_missing_plugin",
+		// true);
+		dc = DesiredCapabilities.firefox();
+		// dc.setCapability(FirefoxDriver.PROFILE, profile);
+		// dc.setJavascriptEnabled(true);
+
+	    }
+
+	    wbdv = new RemoteWebDriver(remote_url, dc);
+
+	}
+
+	else {
+
+	    if (CONFIG.getProperty("test_browser").toLowerCase().contains("internet explorer")
+		    || CONFIG.getProperty("test_browser").toLowerCase().contains("ie")) {
+		dc = DesiredCapabilities.internetExplorer();
+		dc.setCapability("silent", true);
+		dc.setCapability(InternetExplorerDriver.INTRODUCE_FLAKINESS_BY_IGNORING_SECURITY_DOMAINS, true);
+		wbdv = new InternetExplorerDriver(dc);
+	    }
+
+	    else if (CONFIG.getProperty("test_browser").toLowerCase().contains("firefox")
+		    || CONFIG.getProperty("test_browser").toLowerCase().contains("ff")) {
+
+		ProfilesIni allProfiles = new ProfilesIni();
+		FirefoxProfile profile = allProfiles.getProfile("default");
+		profile.setAcceptUntrustedCertificates(true);
+		profile.setAssumeUntrustedCertificateIssuer(false);
+		wbdv = new FirefoxDriver(profile);
+
+	    }
+
+	    else if (CONFIG.getProperty("test_browser").toLowerCase().contains("chrome")) {
+		// Edit the path to your chrome driver in your system below!
+		System.setProperty("chromedriver", "D:\\AllAutomationSetup\\BrowserDrivers\\chromedriver.exe");
+		dc = DesiredCapabilities.chrome();
+		wbdv = new ChromeDriver(dc);
+
+	    }
+
+	}
+
+	if (wbdv == null) {
+	    throw new IllegalStateException("Unsupported test_browser : " + CONFIG.getProperty("test_browser"));
+	}
+
+	// Implicitly wait for 30 seconds for browser to open
+	wbdv.manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
+
+	// Maximize browser window, once for the life of the session
+	wbdv.manage().window().maximize();
+	return wbdv;
+    }
+
+}
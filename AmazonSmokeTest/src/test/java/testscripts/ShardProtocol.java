@@ -0,0 +1,105 @@
+package testscripts;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+//All Hail Automation !
+
+/*
+ * ShardProtocol is the line protocol a ShardWorker streams its results to the
+ * Coordinator with, over a local socket. One message per line, UTF-8, fields
+ * separated by tabs; tabs, line breaks and backslashes within a field are
+ * escaped as \t, \n, \r and \\.
+ *
+ * HELLO  <shard>                                    first message of a worker
+ * STEP   <description> <keyword> <status> <screenshot> a step finished ("" = no screenshot)
+ * RESULT <name> <start time> <end time> <status>    a test case finished, with the steps sent since the last RESULT
+ * DONE   <controller row> <milliseconds> [ABORTED] every run of the test case of that controller row is finished,
+ *                                                  ABORTED if it was skipped because the suite was aborted
+ * WRITE  <workbook path> <sheet> <column> <row> <text> an Excel cell update, written by the coordinator (see XlsReader.forwardWrites)
+ */
+
+public class ShardProtocol {
+
+    public static final String HELLO = "HELLO";
+    public static final String STEP = "STEP";
+    public static final String RESULT = "RESULT";
+    public static final String DONE = "DONE";
+    public static final String WRITE = "WRITE";
+    public static final String ABORTED = "ABORTED";
+
+    /*
+     * public static void send(Writer out, String... fields) method
+     * specification :-
+     *
+     * 1) Writes the fields as one message line and flushes it 2) Writes of
+     * several threads to the same Writer do not interleave
+     *
+     * @param : Connection to the coordinator, message type and fields
+     */
+
+    public static void send(Writer out, String... fields) throws IOException {
+
+	StringBuilder line = new StringBuilder();
+	for (int i = 0; i < fields.length; i++) {
+	    if (i > 0) {
+		line.append('\t');
+	    }
+	    escape(line, fields[i] == null ? "" : fields[i]);
+	}
+	line.append('\n');
+
+	synchronized (out) {
+	    out.write(line.toString());
+	    out.flush();
+	}
+    }
+
+    // Splits a message line into its fields, message type first
+    public static List<String> parse(String line) {
+
+	List<String> fields = new ArrayList<String>();
+	StringBuilder field = new StringBuilder();
+
+	for (int i = 0; i < line.length(); i++) {
+	    char c = line.charAt(i);
+	    if (c == '\t') {
+		fields.add(field.toString());
+		field.setLength(0);
+	    } else if (c == '\\' && i + 1 < line.length()) {
+		char escaped = line.charAt(++i);
+		field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+	    } else {
+		field.append(c);
+	    }
+	}
+	fields.add(field.toString());
+	return fields;
+    }
+
+    private static void escape(StringBuilder line, String field) {
+
+	for (int i = 0; i < field.length(); i++) {
+	    char c = field.charAt(i);
+	    switch (c) {
+	    case '\t':
+		line.append("\\t");
+		break;
+	    case '\n':
+		line.append("\\n");
+		break;
+	    case '\r':
+		line.append("\\r");
+		break;
+	    case '\\':
+		line.append("\\\\");
+		break;
+	    default:
+		line.append(c);
+	    }
+	}
+    }
+
+}
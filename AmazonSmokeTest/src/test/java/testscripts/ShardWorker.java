@@ -0,0 +1,175 @@
+package testscripts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import datatable.CellWriter;
+import datatable.DataSource;
+import datatable.Row;
+import datatable.Rows;
+import datatable.XlsReader;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+/*
+ * ShardWorker is a worker JVM started by the Coordinator. It runs the test
+ * cases of one shard, one after the other, in a browser session of its own
+ * and streams every step and test case result back to the coordinator (see
+ * ShardProtocol). The worker writes no report and no workbook, the
+ * coordinator does : Excel cell updates are forwarded to it as they are
+ * made, so workers cannot overwrite each other's updates.
+ *
+ * A shard holds every test case linked to its own by DependsOn (see
+ * DependencyGraph) ; the worker starts a test case once its prerequisites
+ * passed and skips it if one did not.
+ *
+ * Arguments : <coordinator port> <shard> <controller row>... (in the order
+ * to run them)
+ */
+
+public class ShardWorker extends DriverScript {
+
+    public static void main(String[] args) throws Exception {
+
+	int port = Integer.parseInt(args[0]);
+	String shard = args[1];
+
+	loadConfig();
+
+	// One test case at a time, parallelism comes from the workers
+	parallelSessions = 1;
+
+	// Steps are streamed as they come, so the data rows run one at a time
+	// too
+	dataRowWorkers = 1;
+	prelaunchSessions();
+	openDataSources();
+	firstSheetName = controller.getFirstSheetname();
+
+	Map<Integer, Row> plan = new HashMap<Integer, Row>();
+	try (Rows testCases = controller.rows(firstSheetName)) {
+	    for (Row testCase : testCases) {
+		plan.put(testCase.getRowNum(), testCase);
+	    }
+	}
+
+	Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+	final Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+	ShardProtocol.send(out, ShardProtocol.HELLO, shard);
+
+	// Stream the results as they come
+	ExecutionContext.setListener(new ExecutionContext.Listener() {
+
+	    public void stepFinished(StepResult stepResult) {
+		try {
+		    ShardProtocol.send(out, ShardProtocol.STEP, stepResult.getDescription(), stepResult.getKeyword(),
+			    stepResult.getStatus(), stepResult.getScreenShotPath());
+		} catch (IOException e) {
+		    APPLICATION_LOGS.debug("Error came while sending a step result : " + e.getMessage());
+		}
+	    }
+
+	    public void testCaseFinished(TestCaseResult result) {
+		try {
+		    ShardProtocol.send(out, ShardProtocol.RESULT, result.getTestCaseName(), result.getStartTime(),
+			    result.getEndTime(), result.getStatus());
+		} catch (IOException e) {
+		    APPLICATION_LOGS.debug("Error came while sending a test case result : " + e.getMessage());
+		}
+	    }
+	});
+
+	// Excel cell updates go to the coordinator, the one writer of the
+	// workbooks
+	forwardWrites(controller, out);
+	forwardWrites(testData, out);
+
+	// Test cases of the shard, in the order to start them
+	List<Row> testCases = new ArrayList<Row>();
+	for (int i = 2; i < args.length; i++) {
+	    testCases.add(plan.get(Integer.valueOf(args[i])));
+	}
+	DependencyGraph graph = DependencyGraph.build(testCases);
+	graph.start(testCases);
+
+	try {
+	    while (true) {
+
+		// Test cases whose prerequisite did not pass, or all those left
+		// once the suite is aborted
+		skipIfAborted(graph);
+		for (Map.Entry<Row, List<TestCaseResult>> skipped : graph.takeSkipped().entrySet()) {
+		    sendResults(out, skipped.getValue());
+		    String rowNum = String.valueOf(skipped.getKey().getRowNum());
+		    if (graph.isAborted(skipped.getKey())) {
+			ShardProtocol.send(out, ShardProtocol.DONE, rowNum, "0", ShardProtocol.ABORTED);
+		    } else {
+			ShardProtocol.send(out, ShardProtocol.DONE, rowNum, "0");
+		    }
+		}
+
+		Row testCase = graph.pollReady();
+		if (testCase == null) {
+		    break;
+		}
+
+		long start = System.currentTimeMillis();
+		executeTestCase(testCase);
+		List<TestCaseResult> results = new ArrayList<TestCaseResult>(context().getResults());
+		context().getResults().clear();
+		graph.finish(testCase, results);
+		ShardProtocol.send(out, ShardProtocol.DONE, String.valueOf(testCase.getRowNum()),
+			String.valueOf(System.currentTimeMillis() - start));
+	    }
+	}
+
+	finally {
+	    closeSessions();
+	    SessionPool.shutdown();
+	    socket.close();
+	}
+
+	APPLICATION_LOGS.debug("*** Shard " + shard + " finished ***");
+	System.exit(0);
+    }
+
+    // Forwards the cell updates of a workbook to the coordinator, the other
+    // data sources are read-only
+    private static void forwardWrites(DataSource dataSource, final Writer out) throws IOException {
+
+	if (dataSource instanceof XlsReader) {
+	    ((XlsReader) dataSource).forwardWrites(new CellWriter() {
+		public void writeCell(String path, String sheetName, int colNum, int rowNum, String text)
+			throws IOException {
+		    ShardProtocol.send(out, ShardProtocol.WRITE, path, sheetName, String.valueOf(colNum),
+			    String.valueOf(rowNum), text);
+		}
+	    });
+	}
+    }
+
+    // Sends test case results not run in this worker, with their steps
+    private static void sendResults(Writer out, List<TestCaseResult> results) throws IOException {
+
+	for (TestCaseResult result : results) {
+	    for (StepResult stepResult : result.getStepResults()) {
+		ShardProtocol.send(out, ShardProtocol.STEP, stepResult.getDescription(), stepResult.getKeyword(),
+			stepResult.getStatus(), stepResult.getScreenShotPath());
+	    }
+	    ShardProtocol.send(out, ShardProtocol.RESULT, result.getTestCaseName(), result.getStartTime(),
+		    result.getEndTime(), result.getStatus());
+	}
+    }
+
+}
@@ -0,0 +1,192 @@
+package testscripts;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import util.TestUtil;
+
+//All Hail Automation !
+
+/*
+ * StepWatchdog runs every keyword under a hard deadline, step_timeout_seconds
+ * in config.properties (0 for none). A WebDriver call that hangs, e.g. a
+ * switchTo().window() on a dead pop-up, would otherwise block the test case,
+ * and the worker running it, forever.
+ *
+ * The keyword runs on a step thread bound to the execution context of the
+ * test case. If it overruns the deadline :
+ *
+ * 1) A screenshot and the page source of the stuck browser are saved in the
+ * Report folder, if the browser still answers 2) The step thread is left
+ * behind with the stuck browser sessions and the context they are in ; the
+ * sessions are quit and the pool launches a replacement 3) The test case goes
+ * on in a fork of the context, with a fresh session from the pool if its
+ * sessions outlive the step 4) The step is recorded as failed, timed out
+ */
+
+public class StepWatchdog extends DriverScript {
+
+    // Longest wait for the screenshot and page source of a stuck browser
+    private static final int DIAGNOSTICS_SECONDS = 30;
+
+    private static final AtomicInteger stepThreads = new AtomicInteger();
+
+    // Step threads, a stuck one is left behind and replaced
+    private static final ExecutorService steps = Executors.newCachedThreadPool(new ThreadFactory() {
+	public Thread newThread(Runnable step) {
+	    Thread stepThread = new Thread(step, "keyword-step-" + stepThreads.incrementAndGet());
+	    stepThread.setDaemon(true);
+	    return stepThread;
+	}
+    });
+
+    /*
+     * public static String invoke(String keyword, String screenShotPath)
+     * method specification :-
+     *
+     * 1) Runs the keyword in the execution context of the current thread and
+     * returns its result 2) Without a deadline the keyword runs on the current
+     * thread 3) If the keyword overruns the deadline, records diagnostics,
+     * replaces the browser sessions and binds a fork of the context to the
+     * current thread (see above) 4) Exceptions thrown by the keyword are
+     * passed on as they are
+     *
+     * @param : Name of the keyword, path of the screenshot taken if it times
+     * out
+     *
+     * @return : Result of the keyword, "Fail : Timed out ..." if it overran
+     * the deadline
+     */
+
+    public static String invoke(final String keyword, String screenShotPath) throws Throwable {
+
+	if (stepTimeoutSeconds <= 0) {
+	    return keywords.invoke(keyword);
+	}
+
+	final ExecutionContext context = context();
+	Future<String> step = steps.submit(new Callable<String>() {
+	    public String call() throws Exception {
+
+		ExecutionContext.bind(context);
+		try {
+		    return keywords.invoke(keyword);
+		} catch (Exception keywordException) {
+		    throw keywordException;
+		} catch (Error keywordError) {
+		    throw keywordError;
+		} catch (Throwable keywordException) {
+		    throw new ExecutionException(keywordException);
+		} finally {
+		    ExecutionContext.unbind();
+		}
+	    }
+	});
+
+	try {
+	    return step.get(stepTimeoutSeconds, TimeUnit.SECONDS);
+	}
+
+	catch (ExecutionException keywordException) {
+	    throw keywordException.getCause();
+	}
+
+	catch (InterruptedException e) {
+	    step.cancel(true);
+	    throw e;
+	}
+
+	catch (TimeoutException e) {
+
+	    // Wakes up a keyword waiting in Thread.sleep() or the like, a
+	    // WebDriver call does not answer it
+	    step.cancel(true);
+	    APPLICATION_LOGS.debug("Step timed out : " + context.getCurrentTest() + " " + context.getCurrentTSID() + " '"
+		    + keyword + "' is still running after " + stepTimeoutSeconds + " seconds");
+
+	    String sourceFile = saveDiagnostics(context, screenShotPath);
+	    replaceSessions(context);
+
+	    return failTest + " : Timed out after " + stepTimeoutSeconds
+		    + " seconds, the browser session was replaced"
+		    + (sourceFile == null ? "" : ". Page source : " + sourceFile);
+	}
+    }
+
+    // Saves a screenshot and the page source of the stuck browser, returns
+    // the file name of the page source, null if there is none
+    private static String saveDiagnostics(final ExecutionContext context, final String screenShotPath) {
+
+	if (context.getWbdv() == null) {
+	    return null;
+	}
+
+	final File sourceFile = new File(screenShotPath.replaceFirst("\\.jpg$", "") + "_source.html");
+	Future<Boolean> diagnostics = steps.submit(new Callable<Boolean>() {
+	    public Boolean call() throws IOException {
+
+		ExecutionContext.bind(context);
+		try {
+		    TestUtil.takeScreenShot(screenShotPath);
+		    String pageSource = context.getWbdv().getPageSource();
+		    Files.write(sourceFile.toPath(), pageSource.getBytes(StandardCharsets.UTF_8));
+		    return true;
+		} finally {
+		    ExecutionContext.unbind();
+		}
+	    }
+	});
+
+	try {
+	    diagnostics.get(DIAGNOSTICS_SECONDS, TimeUnit.SECONDS);
+	    return sourceFile.getName();
+	}
+
+	catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+
+	catch (Exception diagnosticsException) {
+	    diagnostics.cancel(true);
+	    APPLICATION_LOGS.debug("Error came while saving the page of the stuck browser : " + diagnosticsException);
+	}
+	return null;
+    }
+
+    // Leaves the stuck sessions to the step thread and goes on in a fork of
+    // the context
+    private static void replaceSessions(ExecutionContext context) {
+
+	ExecutionContext fork = context.fork();
+	ExecutionContext.bind(fork);
+
+	SessionPool.abandon(context.getWbdv());
+	SessionPool.abandon(context.getWbdv2());
+
+	// Later keywords of the test case expect a browser session
+	if (context.getWbdv() != null && sessionLifetime != SessionPool.Lifetime.STEP) {
+	    try {
+		WebDriver wbdv = SessionPool.acquire();
+		fork.setDriver(wbdv, new EventFiringWebDriver(wbdv));
+	    } catch (Throwable initBrowserException) {
+		APPLICATION_LOGS.debug(
+			"Error came while replacing the stuck browser instance : " + initBrowserException.getMessage());
+	    }
+	}
+    }
+
+}
@@ -0,0 +1,136 @@
+package testscripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import datatable.DataSource;
+import datatable.DataSources;
+import testscripts.DriverScript.OnFail;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+public class StepWatchdogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Lets the hung keyword return once the test is over
+    private static volatile boolean released = false;
+
+    // Context the hung keyword ran in
+    private static volatile ExecutionContext hungIn = null;
+
+    private KeywordRegistry keywords;
+    private int stepTimeoutSeconds;
+    private DataSource controller;
+    private String screenshotPath;
+
+    @Before
+    public void saveSettings() {
+
+	keywords = DriverScript.keywords;
+	stepTimeoutSeconds = DriverScript.stepTimeoutSeconds;
+	controller = DriverScript.controller;
+	screenshotPath = DriverScript.screenshotPath;
+
+	DriverScript.keywords = new KeywordRegistry(StepWatchdogTest.class);
+	DriverScript.stepTimeoutSeconds = 1;
+	DriverScript.screenshotPath = folder.getRoot().getPath() + "/";
+	released = false;
+    }
+
+    @After
+    public void restoreSettings() {
+
+	released = true;
+	ExecutionContext.unbind();
+	DriverScript.keywords = keywords;
+	DriverScript.stepTimeoutSeconds = stepTimeoutSeconds;
+	DriverScript.controller = controller;
+	DriverScript.screenshotPath = screenshotPath;
+    }
+
+    // Keywords of the test cases below
+
+    public static String ok() {
+	return "Pass : " + DriverScript.context().getCurrentTSID();
+    }
+
+    // A WebDriver call that hangs, deaf to interrupts
+    public static String hang() {
+
+	hungIn = DriverScript.context();
+	while (!released) {
+	    try {
+		Thread.sleep(50);
+	    } catch (InterruptedException e) {
+		// Not answered, like a stuck browser
+	    }
+	}
+	return "Pass : released";
+    }
+
+    @Test
+    public void aStepWithinItsDeadlineRunsInTheContextOfTheTestCase() throws Throwable {
+
+	ExecutionContext context = new ExecutionContext();
+	ExecutionContext.bind(context);
+	context.setStep("TS7", "Quick step", "ok");
+
+	assertEquals("Pass : TS7", StepWatchdog.invoke("ok", folder.getRoot().getPath() + "/TS7.jpg"));
+	assertSame(context, DriverScript.context());
+    }
+
+    @Test
+    public void aHungStepFailsAndTheTestCaseGoesOnInAFork() throws Throwable {
+
+	File plan = new File(folder.getRoot(), "controller.csv");
+	Files.write(plan.toPath(), "TCID\nWatched".getBytes(StandardCharsets.UTF_8));
+	Files.write(new File(folder.getRoot(), "controller.Watched.csv").toPath(),
+		"TSID,Description,Keyword\nTS1,First,ok\nTS2,Hangs,hang\nTS3,Last,ok".getBytes(StandardCharsets.UTF_8));
+	DriverScript.controller = DataSources.open(plan.getPath(), 0);
+
+	ExecutionContext context = new ExecutionContext();
+	ExecutionContext.bind(context);
+	context.setCurrentTest("Watched");
+	context.setOnFail(OnFail.CONTINUE);
+
+	long start = System.currentTimeMillis();
+	DriverScript.runTestCase("Watched", 1);
+
+	// The deadline is 1 second, the keyword would never return
+	assertTrue(System.currentTimeMillis() - start < 10000);
+
+	// The step thread keeps the context, the test case finished in a fork
+	ExecutionContext fork = DriverScript.context();
+	assertSame(context, hungIn);
+	assertNotSame(context, fork);
+	assertEquals(1, context.getStepResults().size());
+
+	List<TestCaseResult> results = fork.getResults();
+	assertEquals(1, results.size());
+	assertEquals("Fail", results.get(0).getStatus());
+
+	List<StepResult> steps = results.get(0).getStepResults();
+	assertEquals(3, steps.size());
+	assertEquals("Pass : TS1", steps.get(0).getStatus());
+	assertTrue(steps.get(1).getStatus(), steps.get(1).getStatus().startsWith("Fail : Timed out after 1 seconds"));
+	assertEquals("Pass : TS3", steps.get(2).getStatus());
+    }
+
+}
@@ -0,0 +1,158 @@
+package testscripts;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+/*
+ * TestHistory keeps what past runs learned about each test case, by TCID,
+ * in a properties file under config (history_file in config.properties) :
+ *
+ * <TCID>.duration   = time the last run of the test case took, in milliseconds
+ * <TCID>.status     = Pass or Fail, outcome of the last run
+ * <TCID>.lastFailed = when the test case last failed, in milliseconds since
+ *                     1970 (absent if it never failed)
+ *
+ * The file is read at the start of a run and written at its end; a missing
+ * or unreadable file is an empty history.
+ */
+
+public class TestHistory {
+
+    private final File file;
+    private final Properties history = new Properties();
+
+    private TestHistory(File file) {
+	this.file = file;
+    }
+
+    /*
+     * public static TestHistory load(String path) method specification :-
+     *
+     * 1) Reads the history kept in the file at path 2) Returns an empty
+     * history if there is no such file or it cannot be read
+     *
+     * @param : Path of the history file
+     *
+     * @return : History of the past runs
+     */
+
+    public static TestHistory load(String path) {
+
+	TestHistory testHistory = new TestHistory(new File(path));
+
+	if (testHistory.file.isFile()) {
+	    InputStream in = null;
+	    try {
+		in = new FileInputStream(testHistory.file);
+		testHistory.history.load(in);
+	    } catch (IOException e) {
+		DriverScript.APPLICATION_LOGS.debug("Error came while reading the test history : " + e.getMessage());
+		testHistory.history.clear();
+	    } finally {
+		close(in);
+	    }
+	}
+	return testHistory;
+    }
+
+    // History file named in the config
+    public static TestHistory load() {
+	return load(System.getProperty("user.dir") + "/src/test/java/config/"
+		+ DriverScript.CONFIG.getProperty("history_file", "testHistory.properties"));
+    }
+
+    // Duration of the last run of the test case in milliseconds, -1 if it
+    // never ran
+    public synchronized long getDuration(String tcid) {
+
+	String duration = history.getProperty(tcid + ".duration");
+	if (duration == null) {
+	    return -1;
+	}
+	try {
+	    return Long.parseLong(duration.trim());
+	} catch (NumberFormatException e) {
+	    return -1;
+	}
+    }
+
+    // true if the last run of the test case failed
+    public synchronized boolean hasFailed(String tcid) {
+	return "Fail".equals(history.getProperty(tcid + ".status"));
+    }
+
+    // When the test case last failed, 0 if it never did
+    public synchronized long getLastFailed(String tcid) {
+
+	try {
+	    return Long.parseLong(history.getProperty(tcid + ".lastFailed", "0").trim());
+	} catch (NumberFormatException e) {
+	    return 0;
+	}
+    }
+
+    /*
+     * public synchronized void recordRun(String tcid, long durationMillis,
+     * List<TestCaseResult> results) method specification :-
+     *
+     * 1) Records the duration and outcome of a run of the test case, Fail if
+     * any of its results (one per data row) failed 2) Skipped test cases are
+     * not recorded
+     *
+     * @param : TCID, time the run took in milliseconds, results of the run
+     */
+
+    public synchronized void recordRun(String tcid, long durationMillis, List<TestCaseResult> results) {
+
+	String status = null;
+	for (TestCaseResult result : results) {
+	    if (result.getStatus().startsWith("Fail")) {
+		status = "Fail";
+	    } else if (result.getStatus().startsWith("Pass") && status == null) {
+		status = "Pass";
+	    }
+	}
+	if (status == null) {
+	    return;
+	}
+
+	history.setProperty(tcid + ".duration", String.valueOf(durationMillis));
+	history.setProperty(tcid + ".status", status);
+	if (status.equals("Fail")) {
+	    history.setProperty(tcid + ".lastFailed", String.valueOf(System.currentTimeMillis()));
+	}
+    }
+
+    // Writes the history back into its file
+    public synchronized void save() throws IOException {
+
+	OutputStream out = new FileOutputStream(file);
+	try {
+	    history.store(out, "Test case history, written at the end of every run");
+	} finally {
+	    out.close();
+	}
+    }
+
+    private static void close(InputStream in) {
+
+	if (in != null) {
+	    try {
+		in.close();
+	    } catch (IOException e) {
+		// Nothing left to read
+	    }
+	}
+    }
+
+}
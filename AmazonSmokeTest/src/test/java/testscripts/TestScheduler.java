@@ -0,0 +1,121 @@
+package testscripts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import datatable.Row;
+
+//All Hail Automation !
+
+/*
+ * TestScheduler decides in which order the test cases of the plan are
+ * started, from what the TestHistory knows of past runs (schedule_policy in
+ * config.properties). The report lists them in plan order whatever the
+ * schedule.
+ *
+ * plan          -> row order of the controller
+ * longest_first -> longest test cases first, so no long one is left for the
+ *                  end while the other workers are idle
+ * failed_first  -> test cases that failed in their last run first, the most
+ *                  recent failure first, so regressions show up at once; the
+ *                  others follow in plan order
+ */
+
+public class TestScheduler {
+
+    public static final String PLAN = "plan";
+    public static final String LONGEST_FIRST = "longest_first";
+    public static final String FAILED_FIRST = "failed_first";
+
+    /*
+     * public static List<Row> schedule(List<Row> testCases, String policy,
+     * TestHistory history) method specification :-
+     *
+     * 1) Returns the test cases in the order the policy starts them 2) Test
+     * cases the policy does not tell apart stay in plan order 3) Throws
+     * IllegalArgumentException for an unknown policy
+     *
+     * @param : Test cases in plan order, schedule policy, history of past
+     * runs
+     *
+     * @return : Test cases in schedule order
+     */
+
+    public static List<Row> schedule(List<Row> testCases, String policy, TestHistory history) {
+
+	List<Row> order = new ArrayList<Row>(testCases);
+	String schedulePolicy = policy.trim().toLowerCase();
+
+	if (schedulePolicy.equals(PLAN)) {
+	    return order;
+	}
+
+	if (schedulePolicy.equals(LONGEST_FIRST)) {
+	    final Map<Row, Long> durations = estimateDurations(testCases, history);
+	    Collections.sort(order, new Comparator<Row>() {
+		public int compare(Row a, Row b) {
+		    return Long.compare(durations.get(b), durations.get(a));
+		}
+	    });
+	    return order;
+	}
+
+	if (schedulePolicy.equals(FAILED_FIRST)) {
+	    final Map<Row, Long> lastFailed = new HashMap<Row, Long>();
+	    for (Row testCase : testCases) {
+		String tcid = testCase.get("TCID").trim();
+		lastFailed.put(testCase, history.hasFailed(tcid) ? history.getLastFailed(tcid) : Long.MIN_VALUE);
+	    }
+	    Collections.sort(order, new Comparator<Row>() {
+		public int compare(Row a, Row b) {
+		    return Long.compare(lastFailed.get(b), lastFailed.get(a));
+		}
+	    });
+	    return order;
+	}
+
+	throw new IllegalArgumentException(
+		"Unknown schedule_policy '" + policy + "', expected plan, longest_first or failed_first");
+    }
+
+    /*
+     * public static Map<Row, Long> estimateDurations(List<Row> testCases,
+     * TestHistory history) method specification :-
+     *
+     * 1) Returns the duration of the last run of every test case 2) A test case
+     * that never ran counts as long as the average of those that did
+     *
+     * @param : Test cases, history of past runs
+     *
+     * @return : Estimated duration of every test case in milliseconds
+     */
+
+    public static Map<Row, Long> estimateDurations(List<Row> testCases, TestHistory history) {
+
+	Map<Row, Long> durations = new HashMap<Row, Long>();
+	long known = 0;
+	int count = 0;
+
+	for (Row testCase : testCases) {
+	    long duration = history.getDuration(testCase.get("TCID").trim());
+	    if (duration >= 0) {
+		durations.put(testCase, duration);
+		known += duration;
+		count++;
+	    }
+	}
+
+	long average = count == 0 ? 1 : Math.max(1, known / count);
+	for (Row testCase : testCases) {
+	    if (!durations.containsKey(testCase)) {
+		durations.put(testCase, average);
+	    }
+	}
+	return durations;
+    }
+
+}
@@ -0,0 +1,134 @@
+package testscripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import datatable.DataSources;
+import datatable.Row;
+import datatable.Rows;
+import testscripts.ExecutionContext.StepResult;
+import testscripts.ExecutionContext.TestCaseResult;
+
+//All Hail Automation !
+
+public class TestSchedulerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // No. of controllers written by plan()
+    private int controllers = 0;
+
+    @Test
+    public void planKeepsThePlanOrder() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search", "Checkout");
+	TestHistory history = history("Checkout.duration=9000", "Search.status=Fail", "Search.lastFailed=100");
+
+	assertEquals(tcids(plan), tcids(TestScheduler.schedule(plan, " Plan ", history)));
+    }
+
+    @Test
+    public void longestFirstCountsATestCaseThatNeverRanAsTheAverage() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search", "Checkout", "Logout");
+	TestHistory history = history("Login.duration=1000", "Search.duration=5000", "Logout.duration=2000");
+
+	Map<Row, Long> durations = TestScheduler.estimateDurations(plan, history);
+	assertEquals(Long.valueOf(2666), durations.get(plan.get(2)));
+
+	assertEquals(Arrays.asList("Search", "Checkout", "Logout", "Login"),
+		tcids(TestScheduler.schedule(plan, TestScheduler.LONGEST_FIRST, history)));
+
+	// Without any history every test case is as long as the others
+	assertEquals(tcids(plan), tcids(TestScheduler.schedule(plan, TestScheduler.LONGEST_FIRST, history())));
+    }
+
+    @Test
+    public void failedFirstStartsTheLatestFailureFirst() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search", "Checkout", "Logout");
+	TestHistory history = history("Search.status=Fail", "Search.lastFailed=100", "Logout.status=Fail",
+		"Logout.lastFailed=200", "Checkout.status=Pass", "Checkout.lastFailed=300");
+
+	assertEquals(Arrays.asList("Logout", "Search", "Login", "Checkout"),
+		tcids(TestScheduler.schedule(plan, TestScheduler.FAILED_FIRST, history)));
+    }
+
+    @Test
+    public void aFailedRunIsRecordedForTheNextSchedule() throws Exception {
+
+	List<Row> plan = plan("TCID", "Login", "Search");
+	TestHistory history = history();
+
+	history.recordRun("Search", 1500, Arrays.asList(result("Pass"), result("Fail")));
+	history.recordRun("Login", 800, Arrays.asList(result("Skip")));
+
+	assertEquals(1500, history.getDuration("Search"));
+	assertTrue(history.hasFailed("Search"));
+	assertEquals(-1, history.getDuration("Login"));
+	assertEquals(Arrays.asList("Search", "Login"),
+		tcids(TestScheduler.schedule(plan, TestScheduler.FAILED_FIRST, history)));
+    }
+
+    @Test
+    public void anUnknownPolicyIsRejected() throws Exception {
+
+	try {
+	    TestScheduler.schedule(plan("TCID", "Login"), "shortest_first", history());
+	    fail("The unknown policy was accepted");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(expected.getMessage(), expected.getMessage().contains("'shortest_first'"));
+	}
+    }
+
+    private TestHistory history(String... properties) throws Exception {
+
+	File file = folder.newFile();
+	Files.write(file.toPath(), String.join("\n", properties).getBytes(StandardCharsets.ISO_8859_1));
+	return TestHistory.load(file.getPath());
+    }
+
+    private static TestCaseResult result(String status) {
+	return new TestCaseResult("run", "start", "end", status, new ArrayList<StepResult>());
+    }
+
+    private static List<String> tcids(List<Row> testCases) {
+
+	List<String> tcids = new ArrayList<String>();
+	for (Row testCase : testCases) {
+	    tcids.add(testCase.get("TCID"));
+	}
+	return tcids;
+    }
+
+    // Rows of a controller sheet, a header line and one line per test case
+    private List<Row> plan(String... lines) throws Exception {
+
+	String sheetName = "controller" + (++controllers);
+	File controller = new File(folder.getRoot(), sheetName + ".csv");
+	Files.write(controller.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+	List<Row> plan = new ArrayList<Row>();
+	try (Rows testCases = DataSources.open(controller.getPath(), 0).rows(sheetName)) {
+	    for (Row testCase : testCases) {
+		plan.add(testCase);
+	    }
+	}
+	return plan;
+    }
+
+}
@@ -0,0 +1,235 @@
+package testscripts;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import datatable.DataSource;
+import datatable.Row;
+import datatable.Rows;
+import reports.ReportUtil;
+import util.TestUtil;
+
+//All Hail Automation !
+
+/*
+ * WatchRunner keeps one JVM alive while the controller and testData sheets
+ * are being edited. It runs the whole suite once, then watches the config
+ * folder and re-runs only the test cases whose sheets changed.
+ *
+ * A test case is affected when its controller row, its keyword sheet or its
+ * DataSheet in testData changes. Each re-run is appended to the same report
+ * as a suite of its own; the Report folder is not wiped again.
+ *
+ * Run from the AmazonSmokeTest folder : java testscripts.WatchRunner (stop
+ * with Ctrl+C)
+ */
+
+public class WatchRunner extends DriverScript {
+
+    // Wait after the first change event, editors save a workbook in several
+    // writes
+    public static final long SETTLE_MILLIS = 500;
+
+    public static void main(String[] args) throws Exception {
+
+	initialize();
+	new DriverScript().databaseConnectivity();
+
+	// Flush pending updates and close the report when stopped
+	Runtime.getRuntime().addShutdownHook(new Thread() {
+	    public void run() {
+		try {
+		    endScript();
+		} catch (Exception e) {
+		    e.printStackTrace();
+		}
+	    }
+	});
+
+	// Full run first ; if it cannot run, e.g. an unknown keyword, every
+	// test case is re-run once the plan is saved again
+	Map<String, List<String>> previous = new HashMap<String, List<String>>();
+	try {
+	    new DriverScript().testApp();
+	    previous = signatures();
+	} catch (Exception e) {
+	    APPLICATION_LOGS.debug("Error came while running the test plan : " + e.getMessage());
+	}
+
+	File configDir = new File(controller.getPath()).getAbsoluteFile().getParentFile();
+	WatchService watcher = FileSystems.getDefault().newWatchService();
+	configDir.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+		StandardWatchEventKinds.ENTRY_MODIFY);
+	APPLICATION_LOGS.debug("Watching " + configDir + " for changes to the test plan ...");
+
+	int rerun = 0;
+	while (true) {
+
+	    WatchKey key = watcher.take();
+	    boolean relevant = isRelevant(key);
+	    key.reset();
+	    if (!relevant) {
+		continue;
+	    }
+
+	    // Let the save settle, then drop the events it raised
+	    Thread.sleep(SETTLE_MILLIS);
+	    WatchKey pending;
+	    while ((pending = watcher.poll(0, TimeUnit.MILLISECONDS)) != null) {
+		pending.pollEvents();
+		pending.reset();
+	    }
+
+	    Map<String, List<String>> current;
+	    try {
+		current = signatures();
+	    } catch (Exception e) {
+		// e.g. a half written workbook, the next event brings the rest
+		APPLICATION_LOGS.debug("Error came while reading the test plan : " + e.getMessage());
+		continue;
+	    }
+
+	    List<String> affected = new ArrayList<String>();
+	    for (Map.Entry<String, List<String>> testCase : current.entrySet()) {
+		if (!testCase.getValue().equals(previous.get(testCase.getKey()))) {
+		    affected.add(testCase.getKey());
+		}
+	    }
+
+	    if (!affected.isEmpty()) {
+		rerun++;
+		APPLICATION_LOGS.debug("Re-running changed test cases : " + affected);
+		List<Row> plan = new ArrayList<Row>();
+		List<Row> changed = new ArrayList<Row>();
+		try (Rows testCases = controller.rows(firstSheetName)) {
+		    for (Row testCase : testCases) {
+			plan.add(testCase);
+			if (affected.contains(testCase.get("TCID").trim())) {
+			    changed.add(testCase);
+			}
+		    }
+		}
+		try {
+		    keywords.validate(controller, changed);
+		    DependencyGraph.validate(plan);
+		    for (Row testCase : changed) {
+			onFail(testCase);
+		    }
+		} catch (IllegalStateException e) {
+		    APPLICATION_LOGS.debug("Error came : " + e.getMessage());
+		    changed.clear();
+		} catch (IllegalArgumentException e) {
+		    APPLICATION_LOGS.debug("Error came : " + e.getMessage());
+		    changed.clear();
+		}
+		if (!changed.isEmpty()) {
+		    ReportUtil.startSuite(firstSheetName + " re-run " + rerun + " " + TestUtil.now("hh.mm.ss aaa"));
+		    try {
+			executeTestCases(changed);
+		    } catch (Exception e) {
+			APPLICATION_LOGS.debug("Error came while re-running the test cases : " + e.getMessage());
+		    }
+		    ReportUtil.endSuite();
+		}
+	    }
+
+	    // Test cases may write into the sheets, those writes are not changes
+	    // to re-run for
+	    try {
+		previous = signatures();
+	    } catch (Exception e) {
+		previous = current;
+	    }
+	}
+    }
+
+    // Only changes to the controller / testData files (or their sheet files)
+    // count, not journals, plans or temp files
+    private static boolean isRelevant(WatchKey key) {
+
+	String controllerExtension = extension(controller.getPath());
+	String testDataExtension = extension(testData.getPath());
+	boolean relevant = false;
+
+	for (WatchEvent<?> event : key.pollEvents()) {
+	    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+		relevant = true;
+		continue;
+	    }
+	    String fileName = ((Path) event.context()).getFileName().toString().toLowerCase();
+	    if (fileName.endsWith(controllerExtension) || fileName.endsWith(testDataExtension)) {
+		relevant = true;
+	    }
+	}
+	return relevant;
+    }
+
+    private static String extension(String path) {
+	return path.substring(path.lastIndexOf('.')).toLowerCase();
+    }
+
+    /*
+     * public static Map<String, List<String>> signatures() method specification
+     * :-
+     *
+     * 1) Returns the contents every test case depends on, by TCID : its
+     * controller row, its keyword sheet and its DataSheet in testData 2) Two
+     * signatures are equal if and only if none of those changed
+     *
+     * @return : Contents of each test case, one String per row
+     */
+
+    public static Map<String, List<String>> signatures() throws Exception {
+
+	Map<String, List<String>> signatures = new HashMap<String, List<String>>();
+	firstSheetName = controller.getFirstSheetname();
+
+	try (Rows testCases = controller.rows(firstSheetName)) {
+	    for (Row testCase : testCases) {
+
+		String tcid = testCase.get("TCID").trim();
+		List<String> signature = new ArrayList<String>();
+		signature.add(join(testCase));
+		addSheet(signature, controller, tcid);
+
+		if (testCase.hasColumn("DataSheet") && !testCase.get("DataSheet").trim().isEmpty()) {
+		    addSheet(signature, testData, testCase.get("DataSheet").trim());
+		}
+		signatures.put(tcid, signature);
+	    }
+	}
+	return signatures;
+    }
+
+    private static void addSheet(List<String> signature, DataSource source, String sheetName) throws Exception {
+
+	signature.add("[" + sheetName + "]");
+	try (Rows rows = source.rows(sheetName)) {
+	    for (Row row : rows) {
+		signature.add(join(row));
+	    }
+	} catch (IllegalArgumentException missingSheet) {
+	    signature.add(missingSheet.getMessage());
+	}
+    }
+
+    private static String join(Row row) {
+
+	StringBuilder cells = new StringBuilder();
+	for (int i = 0; i < row.getColumnCount(); i++) {
+	    cells.append(row.get(i)).append('\t');
+	}
+	return cells.toString();
+    }
+
+}
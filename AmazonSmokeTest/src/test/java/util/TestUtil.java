@@ -55,14 +55,14 @@ public class TestUtil extends DriverScript {
         	if (CONFIG.getProperty("is_remote").equals("true")) 
         	{
         		
-        		WebDriver augmentedDriver = new Augmenter().augment(wbdv);
+        		WebDriver augmentedDriver = new Augmenter().augment(wbdv());
         		scrFile = ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.FILE);
         		
         	}
         	
         	// Take Screenshot from local machine
         	else
-        		scrFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+        		scrFile = ((TakesScreenshot) driver()).getScreenshotAs(OutputType.FILE);
         		
         	// Store screenshot to the path provided
         	FileUtils.copyFile(scrFile, new File(filePath));